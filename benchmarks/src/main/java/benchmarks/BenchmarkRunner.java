@@ -0,0 +1,37 @@
+package benchmarks;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The entry point of the benchmark jar. It runs the benchmarks like JMH's own
+ * main class, taking the same command line options, but always attaches the
+ * GC profiler so that every result shows the allocation rate next to the
+ * throughput.
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Runs the benchmarks selected by the command line options, or all of
+	 * them if none are selected.
+	 * @param args JMH command line options, like a benchmark name filter
+	 * @throws CommandLineOptionException if the options can't be parsed
+	 * @throws RunnerException if a benchmark fails
+	 */
+	public static void main(String[] args) throws CommandLineOptionException,
+			RunnerException {
+
+		Options options = new OptionsBuilder()
+			.parent(new CommandLineOptions(args))
+			.addProfiler(GCProfiler.class)
+			.build();
+
+		new Runner(options).run();
+
+	}
+
+}
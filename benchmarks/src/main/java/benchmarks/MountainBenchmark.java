@@ -0,0 +1,94 @@
+package benchmarks;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import render.BackgroundTiles;
+import world.MountainManager;
+
+/**
+ * Benchmarks for generating mountain vertices, both when a MountainManager is
+ * created and when the view scrolls far enough that a new vertex is needed on
+ * every call, and for the terrain work behind each background tile:
+ * computing a tile's strip of skyline vertices, both when the view scrolls
+ * onto terrain that has to be generated and when the terrain is already
+ * cached. Rendering the tile itself needs the JavaFX application thread, so
+ * it isn't measured here.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MountainBenchmark {
+
+	private static final double WINDOW_WIDTH = 800;
+	private static final double X_STEP = 20;
+	private static final double MAX_SHIFT_MAGNITUDE = 30;
+	private static final double GROUND_Y = 600;
+	private static final double MARGIN = 500;
+	private static final double TILE_WIDTH = BackgroundTiles.DEFAULT_TILE_WIDTH;
+
+	private MountainManager mountainManager;
+	private double viewLeftX;
+	private double tileLeftX;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+
+		mountainManager = createMountainManager();
+		viewLeftX = 0;
+		tileLeftX = 0;
+
+	}
+
+	private MountainManager createMountainManager() {
+
+		return new MountainManager(WINDOW_WIDTH, X_STEP, MAX_SHIFT_MAGNITUDE, 
+			GROUND_Y);
+
+	}
+
+	@Benchmark
+	public MountainManager create() {
+
+		return createMountainManager();
+
+	}
+
+	@Benchmark
+	public MountainManager scroll() {
+
+		viewLeftX += X_STEP;
+		mountainManager.fillViewingWindow(viewLeftX, MARGIN);
+		return mountainManager;
+
+	}
+
+	@Benchmark
+	public int newTile() {
+
+		tileLeftX += TILE_WIDTH;
+		return mountainManager.computeSkyline(tileLeftX, tileLeftX + TILE_WIDTH);
+
+	}
+
+	@Benchmark
+	public int cachedTile() {
+
+		return mountainManager.computeSkyline(0, TILE_WIDTH);
+
+	}
+
+}
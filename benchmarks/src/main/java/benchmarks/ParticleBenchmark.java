@@ -0,0 +1,97 @@
+package benchmarks;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocket.ParticleBuffer;
+import rocket.ParticleEmitter;
+import simulation.HeadlessSimulator;
+import util.ArgbColor;
+
+/**
+ * Benchmarks for ticking a ParticleEmitter that holds a fixed number of live
+ * particles. The particles are given a lifetime far longer than a benchmark
+ * run, so the particle count stays the same from one tick to the next.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParticleBenchmark {
+
+	private static final double GROUND_Y = 600;
+	private static final double LIFETIME = 1e9; // seconds
+
+	@Param({"256", "4096", "65536"})
+	private int particleCount;
+
+	private ParticleEmitter idleEmitter;
+	private ParticleEmitter firingEmitter;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+
+		idleEmitter = createFullEmitter();
+		firingEmitter = createFullEmitter();
+		firingEmitter.setOn(true);
+
+	}
+
+	/**
+	 * Creates an emitter whose buffer is filled to its max capacity with
+	 * particles spread between the top of the screen and the ground.
+	 * @return the new emitter
+	 */
+	private ParticleEmitter createFullEmitter() {
+
+		ParticleEmitter emitter = new ParticleEmitter(GROUND_Y, 
+			new int[] {ArgbColor.ORANGE, ArgbColor.RED});
+		emitter.setParticleLifetime(LIFETIME);
+		emitter.setParticles(new ParticleBuffer(particleCount, particleCount,
+			ParticleBuffer.OverflowPolicy.DROP_OLDEST));
+
+		Random random = new Random(particleCount);
+		for (int i = 0; i < particleCount; i++) {
+
+			emitter.getParticles().add(random.nextDouble() * 800, 
+				random.nextDouble() * GROUND_Y, random.nextDouble() * 200 - 100, 
+				random.nextDouble() * 200 - 100, LIFETIME, 
+				random.nextInt(ParticleEmitter.PARTICLE_COLOR_STEPS));
+
+		}
+
+		return emitter;
+
+	}
+
+	@Benchmark
+	public int tick() {
+
+		idleEmitter.tick(HeadlessSimulator.DEFAULT_TIME_STEP);
+		return idleEmitter.getParticles().size();
+
+	}
+
+	@Benchmark
+	public int tickWhileEmitting() {
+
+		firingEmitter.tick(HeadlessSimulator.DEFAULT_TIME_STEP);
+		return firingEmitter.getParticles().size();
+
+	}
+
+}
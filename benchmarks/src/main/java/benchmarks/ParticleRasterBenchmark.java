@@ -0,0 +1,98 @@
+package benchmarks;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Affine;
+
+import render.ParticleRasterizer;
+import render.ParticleRenderer;
+import rocket.ParticleBuffer;
+import rocket.ParticleEmitter;
+import util.ArgbColor;
+
+/**
+ * Benchmarks for the software particle rasterizer. Splatting into the
+ * framebuffer doesn't need the JavaFX toolkit, so it can be measured
+ * headless, with the work split into one or many strips to show how it
+ * scales across cores. Uploading and drawing the framebuffer happen on the
+ * JavaFX application thread and aren't included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParticleRasterBenchmark {
+
+	private static final int WIDTH = 800;
+	private static final int HEIGHT = 700;
+
+	@Param({"1024", "8192", "65536"})
+	private int particleCount;
+
+	@Param({"1", "16"})
+	private int stripCount;
+
+	private ParticleRasterizer rasterizer;
+	private ParticleEmitter emitter;
+	private Color [] colors;
+	private Affine transform = new Affine();
+
+	@Setup(Level.Iteration)
+	public void setup() {
+
+		emitter = new ParticleEmitter(HEIGHT,
+			new int[] {ArgbColor.ORANGE, ArgbColor.RED});
+		emitter.setParticles(new ParticleBuffer(particleCount, particleCount,
+			ParticleBuffer.OverflowPolicy.DROP_OLDEST));
+
+		Random random = new Random(particleCount);
+		for (int i = 0; i < particleCount; i++) {
+
+			emitter.getParticles().add(random.nextDouble() * WIDTH,
+				random.nextDouble() * HEIGHT, 0, 0,
+				emitter.getParticleLifetime(),
+				random.nextInt(ParticleEmitter.PARTICLE_COLOR_STEPS));
+
+		}
+
+		colors = new ParticleRenderer().getParticleColors(emitter);
+		rasterizer = new ParticleRasterizer(WIDTH, HEIGHT);
+		rasterizer.setStripCount(stripCount);
+		rasterizer.queue(emitter, colors, transform, 1);
+
+	}
+
+	@Benchmark
+	public int queue() {
+
+		rasterizer.clearQueue();
+		rasterizer.queue(emitter, colors, transform, 1);
+		return rasterizer.getQueuedParticleCount();
+
+	}
+
+	@Benchmark
+	public int[] rasterize() {
+
+		rasterizer.rasterize();
+		return rasterizer.getPixels();
+
+	}
+
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocket.ManeuverCalculator;
+import rocket.Rocket;
+import simulation.HeadlessSimulator;
+import util.Vector2D;
+import world.World;
+
+/**
+ * Benchmarks for the Entity physics step and the autopilot's burn height
+ * calculation, which run for every Rocket on every tick.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PhysicsBenchmark {
+
+	private static final double GROUND_Y = 600;
+
+	private Rocket rocket;
+	private ManeuverCalculator maneuverCalculator;
+
+	@Setup
+	public void setup() {
+
+		rocket = new Rocket(400, 100, 10, GROUND_Y);
+		rocket.setAcceleration(new Vector2D(0.0, World.GRAVITY));
+		rocket.getVelocity().setX(50);
+		rocket.getVelocity().setY(80);
+		maneuverCalculator = rocket.getManeuverCalculator();
+
+	}
+
+	@Benchmark
+	public double applyForces() {
+
+		rocket.applyForces(HeadlessSimulator.DEFAULT_TIME_STEP);
+		return rocket.getY();
+
+	}
+
+	@Benchmark
+	public double calculateBurnHeight() {
+
+		return maneuverCalculator.calculateBurnHeight(5);
+
+	}
+
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocket.Rocket;
+import rocket.UserControlledRocket;
+import simulation.HeadlessSimulator;
+import util.Vector2D;
+import world.World;
+
+/**
+ * Benchmarks for a single tick of a self-landing Rocket and of a
+ * UserControlledRocket, with and without particle effects. A Rocket that
+ * reaches the ground or runs out of fuel is put back at its starting point,
+ * so every tick is measured in flight.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RocketTickBenchmark {
+
+	private static final double GROUND_Y = 600;
+	private static final double START_Y = 100;
+	private static final double FUEL = 10;
+
+	@Param({"false", "true"})
+	private boolean particleEffects;
+
+	private Rocket automaticRocket;
+	private UserControlledRocket userControlledRocket;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+
+		automaticRocket = new Rocket(400, START_Y, FUEL, GROUND_Y);
+		automaticRocket.setAcceleration(new Vector2D(0.0, World.GRAVITY));
+		automaticRocket.setParticleEffectsEnabled(particleEffects);
+		relaunch(automaticRocket);
+
+		userControlledRocket = new UserControlledRocket(400, START_Y, FUEL, 
+			GROUND_Y);
+		userControlledRocket.setAcceleration(new Vector2D(0.0, World.GRAVITY));
+		userControlledRocket.setParticleEffectsEnabled(particleEffects);
+		userControlledRocket.setShouldFireEngines(true);
+		userControlledRocket.setShouldFireRCS(true);
+		userControlledRocket.reset(400, START_Y, FUEL);
+		userControlledRocket.setTargetAngle(80);
+
+	}
+
+	/**
+	 * Puts a self-landing Rocket back at its starting point with a full tank.
+	 * @param rocket the Rocket to relaunch
+	 */
+	private void relaunch(Rocket rocket) {
+
+		rocket.setX(400);
+		rocket.setY(START_Y);
+		rocket.setDirection(90);
+		rocket.getVelocity().setX(50);
+		rocket.getVelocity().setY(0);
+		rocket.setFuel(FUEL);
+		rocket.setAirborne(true);
+
+	}
+
+	@Benchmark
+	public double automaticTick() {
+
+		if (automaticRocket.getY() > GROUND_Y || automaticRocket.getFuel() <= 0) {
+			relaunch(automaticRocket);
+		}
+
+		automaticRocket.tick(HeadlessSimulator.DEFAULT_TIME_STEP);
+		return automaticRocket.getY();
+
+	}
+
+	@Benchmark
+	public double userControlledTick() {
+
+		if (userControlledRocket.getY() < 0 || userControlledRocket.getFuel() <= 0) {
+
+			userControlledRocket.reset(400, START_Y, FUEL);
+			userControlledRocket.setTargetAngle(80);
+
+		}
+
+		userControlledRocket.tick(HeadlessSimulator.DEFAULT_TIME_STEP);
+		return userControlledRocket.getY();
+
+	}
+
+}
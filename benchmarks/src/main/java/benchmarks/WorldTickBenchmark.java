@@ -0,0 +1,101 @@
+package benchmarks;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocket.Rocket;
+import simulation.HeadlessSimulator;
+import world.World;
+
+/**
+ * Benchmarks for a single tick of a World holding a fleet of self-landing
+ * Rockets, ticked on the calling thread and in parallel on the common
+ * ForkJoinPool. The Rockets start four widths apart, so the collision
+ * checks see realistic neighbours. Rockets that land or crash are put back
+ * at their starting height, so every tick is measured with the whole fleet
+ * in flight.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorldTickBenchmark {
+
+	private static final double START_HEIGHT = 500;
+	private static final double FUEL = 10;
+
+	@Param({"256", "4096"})
+	private int rocketCount;
+
+	@Param({"false", "true"})
+	private boolean parallel;
+
+	private World world;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+
+		HeadlessSimulator simulator = new HeadlessSimulator();
+		world = simulator.createWorld(1);
+
+		for (int i = 0; i < rocketCount; i++) {
+
+			Rocket rocket = simulator.createAutomaticRocket(world,
+				world.getInitialConditionsRandom().nextDouble(-250, 250),
+				START_HEIGHT, FUEL);
+			rocket.setX(i * 4 * rocket.getWidth());
+			world.getObjects().add(rocket);
+
+		}
+
+		world.setPrimaryRocket((Rocket) world.getObjects().get(0));
+		world.setParallelTickThreshold(parallel ? 0 : Integer.MAX_VALUE);
+
+	}
+
+	@Benchmark
+	public long tick() {
+
+		world.tick(HeadlessSimulator.DEFAULT_TIME_STEP);
+
+		for (Rocket rocket : world.getLandings()) {
+			relaunch(rocket);
+		}
+
+		for (Rocket rocket : world.getCrashes()) {
+			relaunch(rocket);
+		}
+
+		return world.getLandingCount();
+
+	}
+
+	/**
+	 * Puts a Rocket back at its starting height, flying again.
+	 * @param rocket the Rocket to relaunch
+	 */
+	private void relaunch(Rocket rocket) {
+
+		rocket.setY(world.getGroundY() - START_HEIGHT);
+		rocket.setDirection(90);
+		rocket.getVelocity().setY(0);
+		rocket.setFuel(FUEL);
+		rocket.setAirborne(true);
+		rocket.setCrashed(false);
+
+	}
+
+}
@@ -6,8 +6,9 @@ import javafx.collections.ObservableList;
 import javafx.event.Event;
 import javafx.scene.Group;
 import javafx.scene.Scene;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -26,14 +27,18 @@ import javafx.scene.text.TextAlignment;
 import javafx.stage.Stage;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
+import render.CanvasLayer;
+import render.WorldRenderer;
 import rocket.UserControlledRocket;
 import util.Vector2D;
 import userinterface.CustomButton;
 import userinterface.TogglePlayButton;
+import userinterface.FastForwardButton;
 import userinterface.UserInterface;
 import world.World;
 import rocket.Rocket;
 import design.ColorPalette;
+import simulation.SimulationThread;
 import util.KeyboardHandler;
 
 public class RocketSimulator extends Application {
@@ -44,13 +49,14 @@ public class RocketSimulator extends Application {
 	private Group root;
 	private Stage primaryStage;
 	private Scene simulationScene;
-	private GraphicsContext gc;
+	private CanvasLayer backgroundLayer;
+	private CanvasLayer objectLayer;
+	private CanvasLayer interfaceLayer;
 	private AnimationTimer animator;
+	private SimulationThread simulation;
 
 	private UserInterface userInterface;
 	
-	private KeyboardHandler keyboardHandler;
-	
 	private MenuManager menuManager = new MenuManager(WIDTH, HEIGHT);
 	
 	private double maxSpeed = 250;
@@ -59,7 +65,9 @@ public class RocketSimulator extends Application {
 
 	private UserControlledRocket userRocket;
 	private World world;
+	private WorldRenderer worldRenderer;
 	private boolean landingHandled = false;
+	private volatile boolean idle = false;
 
 	private Group landingSummary;
 
@@ -78,9 +86,10 @@ public class RocketSimulator extends Application {
 		root = new Group();
 
 		// Create the World and center the camera on its Rocket
-		world = new World(WIDTH, HEIGHT, getPalette());
+		world = new World(WIDTH, HEIGHT);
 		world.setCenterOnRocketHorizontally(true);
 		world.setCenterOnRocketVertically(true);
+		worldRenderer = new WorldRenderer(world, getPalette());
 		
 		// Initialize a rocket so that keyboard handling can be configured
 		double rocketX = WIDTH  / 2;
@@ -88,8 +97,18 @@ public class RocketSimulator extends Application {
 			world.getGroundY() - getInitialRocketHeight(), 
 			getInitialFuel(), 
 			world.getGroundY());
+		userRocket.setRandom(world.getParticleRandom().split());
 		world.setPrimaryRocket(userRocket);
-		keyboardHandler = new KeyboardHandler(userRocket);
+		simulation = new SimulationThread(world);
+
+		// A snapshot published while the loop is idle restarts it
+		simulation.setPublishListener(() -> {
+
+			if (isIdle()) {
+				Platform.runLater(this::wake);
+			}
+
+		});
 		
 		animator = new AnimationTimer() {
 			
@@ -97,37 +116,53 @@ public class RocketSimulator extends Application {
 
 			private long lastUpdate;
 
+			private double lastViewLeftX;
+			private double lastViewTopY;
+
 			@Override
 			public void start() {
 				
 				startTime = System.nanoTime();
 				lastUpdate = startTime;
+				markAllLayersDirty();
+				setIdle(false);
 				super.start();
 
 			}
 			
-			public void clearScreen(GraphicsContext gc) {
-				
-				gc.clearRect(-gc.getTransform().getTx(), -gc.getTransform().getTy(),
-						WIDTH, HEIGHT);
-				
-			}
-			
 			@Override
 			public void handle(long now) {
 
 				// SIMULATION LOOP
 
-				clearScreen(gc);
-
 				double timeSinceLastUpdateSeconds = (now - lastUpdate) / 1_000_000_000.0;
 				
-				world.draw(gc);
-				userInterface.draw(gc);
-				
-				if (shouldUpdateSimulator()) {
-					world.tick(timeSinceLastUpdateSeconds);
+				// The simulation runs on its own thread, this only draws it
+				simulation.setPaused(!shouldUpdateSimulator());
+				updateTimeControls();
+
+				if (simulation.applyLatestSnapshot()) {
+
+					// The objects moved, and the indicators track them
+					world.setInterpolationAlpha(simulation.getInterpolationAlpha());
+					objectLayer.markDirty();
+					interfaceLayer.markDirty();
+
+				}
+
+				if (world.getViewLeftX() != lastViewLeftX || 
+						world.getViewTopY() != lastViewTopY) {
+
+					lastViewLeftX = world.getViewLeftX();
+					lastViewTopY = world.getViewTopY();
+					backgroundLayer.markDirty();
+
 				}
+
+				// Only the layers whose content changed are redrawn
+				backgroundLayer.redrawIfDirty(worldRenderer::drawBackgroundLayer);
+				objectLayer.redrawIfDirty(worldRenderer::drawObjectLayer);
+				interfaceLayer.redrawIfDirty(userInterface::draw);
 				
 				if (!world.getPrimaryRocket().isAirborne() && !isLandingHandled()) {
 
@@ -139,12 +174,40 @@ public class RocketSimulator extends Application {
 					root.getChildren().add(landingSummary);
 					getUserInterface().getTimeIndicator().setForcePaused(true);
 					setLandingHandled(true);
-					
+
+				} else if (world.getPrimaryRocket().isAirborne() &&
+						isLandingHandled()) {
+
+					/*
+						The Rocket was put back in the air from a checkpoint or
+						by rewinding, so hide the landing summary and restart
+						the clock
+					*/
+					root.getChildren().remove(landingSummary);
+					getUserInterface().getTimeIndicator().setForcePaused(false);
+					setLandingHandled(false);
+
 				}
+				boolean interfaceAnimating = userInterface.isAnimating();
 				userInterface.tick(timeSinceLastUpdateSeconds);
+
+				if (interfaceAnimating || userInterface.isAnimating()) {
+					interfaceLayer.markDirty();
+				}
 				
 				lastUpdate = now;
 
+				if (canIdle()) {
+
+					/*
+						Nothing on screen can change until the user does
+						something, so stop the loop until then
+					*/
+					stop();
+					setIdle(true);
+
+				}
+
 			}
 		};
 		
@@ -160,6 +223,7 @@ public class RocketSimulator extends Application {
 	 */
 	public void resetConfiguration() {
 
+		simulation.stop();
 		world.getObjects().clear();
 		getUserInterface().reset();
 		if (root.getChildren().contains(landingSummary)) {
@@ -168,6 +232,13 @@ public class RocketSimulator extends Application {
 
 	}
 
+	@Override
+	public void stop() {
+
+		simulation.stop();
+
+	}
+
 	@Override
 	public void start(Stage stage) throws Exception {
 
@@ -179,9 +250,15 @@ public class RocketSimulator extends Application {
 		getPrimaryStage().setWidth(WIDTH); 
 		getPrimaryStage().setHeight(HEIGHT);
 
-		Canvas canvas = new Canvas(getPrimaryStage().getWidth(), getPrimaryStage().getHeight());
-		gc = canvas.getGraphicsContext2D();
-		root.getChildren().add(canvas);
+		// Stack the layers from the back to the front
+		backgroundLayer = new CanvasLayer(getPrimaryStage().getWidth(), 
+			getPrimaryStage().getHeight());
+		objectLayer = new CanvasLayer(getPrimaryStage().getWidth(), 
+			getPrimaryStage().getHeight());
+		interfaceLayer = new CanvasLayer(getPrimaryStage().getWidth(), 
+			getPrimaryStage().getHeight());
+		root.getChildren().addAll(backgroundLayer.getCanvas(), 
+			objectLayer.getCanvas(), interfaceLayer.getCanvas());
 		
 		getPrimaryStage().setScene(getSimulationScene());
 
@@ -201,21 +278,181 @@ public class RocketSimulator extends Application {
 	}
 	
 	/**
-	 * Adds keyboard event(ex. key press) handling to a scene
+	 * Adds keyboard event(ex. key press) handling to a scene, and marks the
+	 * sidebar for redrawing after mouse clicks. Any key or click also wakes
+	 * the simulation loop if it is idle.
 	 * @param scene the Scene to add keyboard event handling to
 	 */
 	private void addKeyboardHandling(Scene scene) {
 		
-		scene.setOnKeyPressed(keyboardHandler);
-		scene.setOnKeyReleased(keyboardHandler);
+		// Keys control the simulated Rocket, so they go to its thread
+		scene.setOnKeyPressed(event -> {
+
+			// The cull counts belong to the drawn frame, not the simulation
+			if (event.getCode() == KeyCode.I) {
+				printFrameStatistics();
+			}
+
+			simulation.postInput(getKeyBit(event.getCode()), true);
+
+		});
+		scene.setOnKeyReleased(event -> 
+			simulation.postInput(getKeyBit(event.getCode()), false));
+		scene.addEventFilter(KeyEvent.ANY, event -> wake());
+
+		// Clicks can change the buttons' states, so the sidebar is redrawn
+		scene.addEventFilter(MouseEvent.MOUSE_CLICKED, event -> {
+			interfaceLayer.markDirty();
+			wake();
+		});
 	}
 	
 	/**
-	 * Gets the GraphicsContext used to draw on the primary Stage's Canvas.
-	 * @return the primary Stage's Canvas's GraphicsContext
+	 * Passes the sidebar's time scale and fast-forward clicks to the 
+	 * simulation thread, and shows the simulation's current time scale on
+	 * the sidebar.
+	 */
+	private void updateTimeControls() {
+
+		FastForwardButton fastForwardButton = 
+			userInterface.getFastForwardButton();
+		simulation.setTimeScale(
+			userInterface.getTimeWarpButton().getTimeScale());
+
+		if (fastForwardButton.takeRequest()) {
+
+			if (simulation.isFastForwarding()) {
+				simulation.cancelFastForward();
+			} else {
+				simulation.fastForwardToNextEvent();
+			}
+
+		}
+
+		if (fastForwardButton.isActive() != simulation.isFastForwarding()) {
+
+			fastForwardButton.setActive(simulation.isFastForwarding());
+			interfaceLayer.markDirty();
+
+		}
+
+		// The clock stops while the flight is rewound
+		userInterface.getTimeIndicator().setTimeScale(simulation.isRewinding() ?
+			0 : simulation.getEffectiveTimeScale());
+
+	}
+
+	/**
+	 * Gets the KeyboardHandler key bit of a key code.
+	 * @param code the key code
+	 * @return the key's KEY_ constant, or 0 if the key isn't used
+	 */
+	private static int getKeyBit(KeyCode code) {
+
+		switch (code) {
+
+			case W:
+				return KeyboardHandler.KEY_W;
+			case A:
+				return KeyboardHandler.KEY_A;
+			case D:
+				return KeyboardHandler.KEY_D;
+			case I:
+				return KeyboardHandler.KEY_I;
+			case C:
+				return KeyboardHandler.KEY_C;
+			case R:
+				return KeyboardHandler.KEY_R;
+			case Z:
+				return KeyboardHandler.KEY_Z;
+			default:
+				return 0;
+
+		}
+
+	}
+
+	/**
+	 * Prints what was culled from the last frame drawn, and how long key
+	 * events have waited to be applied to the simulated Rocket. The wait is
+	 * measured from when a key event is queued to when the simulation thread
+	 * takes it off the queue, both from <code>System.nanoTime()</code>.
+	 */
+	private void printFrameStatistics() {
+
+		System.out.println(worldRenderer.getViewport());
+		System.out.printf("input latency: last %.3f ms, average %.3f ms, " +
+			"max %.3f ms over %d key events%n",
+			simulation.getLastInputLatencyNanos() / 1e6,
+			simulation.getAverageInputLatencyNanos() / 1e6,
+			simulation.getMaxInputLatencyNanos() / 1e6,
+			simulation.getInputsHandled());
+
+	}
+	
+	/**
+	 * Marks every Canvas layer as changed, so the whole simulation is redrawn
+	 * on the next frame.
+	 */
+	private void markAllLayersDirty() {
+
+		backgroundLayer.markDirty();
+		objectLayer.markDirty();
+		interfaceLayer.markDirty();
+
+	}
+
+	/**
+	 * Returns true if nothing on screen can change without user input, so
+	 * the simulation loop can stop until the next key press or click. This
+	 * is the case when the simulation isn't shown, or when it is paused or
+	 * its thread has settled after landing while every layer is up to date
+	 * and the sidebar isn't animating. The drawn World can lag behind the
+	 * simulation thread, so only the thread's own state is checked.
+	 * @return whether the simulation loop can go idle
+	 */
+	private boolean canIdle() {
+
+		if (getPrimaryStage().getScene() != getSimulationScene()) {
+			return true;
+		}
+
+		boolean worldChanging = shouldUpdateSimulator() && 
+			!simulation.isSettled();
+		boolean layersDirty = backgroundLayer.isDirty() || 
+			objectLayer.isDirty() || interfaceLayer.isDirty();
+
+		return !worldChanging && !layersDirty && !userInterface.isAnimating();
+
+	}
+
+	/**
+	 * Restarts the simulation loop if it is idle. The time spent idle is not
+	 * simulated.
+	 */
+	private void wake() {
+
+		if (isIdle()) {
+			getAnimator().start();
+		}
+
+	}
+
+	/**
+	 * Returns true if the simulation loop has stopped because nothing on
+	 * screen could change.
+	 * @return whether the simulation loop is idle
+	 */
+	public boolean isIdle() {
+		return idle;
+	}
+
+	/**
+	 * Sets whether the simulation loop is idle.
+	 * @param idle the new idle status
 	 */
-	private GraphicsContext getGraphicsContext() {
-		return gc;
+	private void setIdle(boolean idle) {
+		this.idle = idle;
 	}
 
 	/**
@@ -365,7 +602,8 @@ public class RocketSimulator extends Application {
 	 */
 	public void setPalette(ColorPalette palette) {
 		this.palette = palette;
-		world.setPalette(palette);
+		worldRenderer.setPalette(palette);
+		markAllLayersDirty();
 	}
 
 	public static void main(String[] args) {
@@ -686,10 +924,10 @@ public class RocketSimulator extends Application {
 		public Group getLandingSummary() {
 
 			boolean acceptableVelocity = 
-				world.getPrimaryRocket().getLandingVelocity() < world.getPrimaryRocket().getAcceptableLandingVelocity();
+				world.getPrimaryRocket().hasAcceptableLandingVelocity();
 			boolean acceptableAngle = 
-				Math.abs(world.getPrimaryRocket().getDirection() - 90) <= world.getPrimaryRocket().getLandingAngleMargin();
-			boolean crash = !(acceptableVelocity && acceptableAngle);
+				world.getPrimaryRocket().hasAcceptableLandingAngle();
+			boolean crash = !world.getPrimaryRocket().hasLandedSuccessfully();
 
 			// distance between largest element and the box edge
 			double boxMargin = 16; 
@@ -718,7 +956,7 @@ public class RocketSimulator extends Application {
 				velocityTextBox.setFill(Color.web(getTextColorHex()));
 			}
 			
-			Text angleTextBox = new Text("Angle: " + (int) world.getPrimaryRocket().getDirection() + "\u00B0");
+			Text angleTextBox = new Text("Angle: " + (int) world.getPrimaryRocket().getLandingAngle() + "\u00B0");
 			angleTextBox.setFont(Font.font("Tahoma", FontWeight.BOLD, FontPosture.REGULAR, 20));
 			angleTextBox.setTranslateY(
 				velocityTextBox.getTranslateY() + 
@@ -789,12 +1027,14 @@ public class RocketSimulator extends Application {
 	
 			// Create the rocket
 			double rocketX = WIDTH  / 2;
-			double xVelocity = Math.random() * getMaxSpeed() * 2 - getMaxSpeed();
+			double xVelocity = world.getInitialConditionsRandom().nextDouble(
+				-getMaxSpeed(), getMaxSpeed());
 			Vector2D acceleration = new Vector2D(0.0, World.GRAVITY);
 			Rocket autoRocket = new Rocket(rocketX, 
 				world.getGroundY() - getInitialRocketHeight(),
 				getInitialFuel(), 
 				world.getGroundY());
+			autoRocket.setRandom(world.getParticleRandom().split());
 			autoRocket.getVelocity().setX(xVelocity);
 			autoRocket.setAcceleration(acceleration);
 			setLandingHandled(false);
@@ -804,6 +1044,7 @@ public class RocketSimulator extends Application {
 			userInterface.calibrateElements(autoRocket);
 
 			stage.setScene(getSimulationScene()); 
+			simulation.start();
 			animator.start();
 	
 		}
@@ -818,7 +1059,8 @@ public class RocketSimulator extends Application {
 		public void startUserControlledSimulation(Stage stage) {
 	
 			// Create the rocket
-			double xVelocity = Math.random() * getMaxSpeed() * 2 - getMaxSpeed();
+			double xVelocity = world.getInitialConditionsRandom().nextDouble(
+				-getMaxSpeed(), getMaxSpeed());
 			Vector2D acceleration = new Vector2D(0.0, World.GRAVITY);
 			double rocketX = WIDTH  / 2;
 			
@@ -835,6 +1077,7 @@ public class RocketSimulator extends Application {
 			userInterface.calibrateElements(userRocket);
 
 			stage.setScene(getSimulationScene());
+			simulation.start();
 			animator.start();
 	
 		}
@@ -1,7 +1,18 @@
+import java.util.Arrays;
+
+import simulation.HeadlessSimulator;
+import simulation.MonteCarloRunner;
+
 public class Starter {
     
     public static void main(final String[] args) {
-        RocketSimulator.main(args);
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessSimulator.main(Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length > 0 && args[0].equals("--monte-carlo")) {
+            MonteCarloRunner.main(Arrays.copyOfRange(args, 1, args.length));
+        } else {
+            RocketSimulator.main(args);
+        }
     }
 
 }
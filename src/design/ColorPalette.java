@@ -1,6 +1,8 @@
 package design;
 import javafx.scene.paint.Color;
 
+import util.ArgbColor;
+
 /**
  * A class used to store data for colors to be used in the simulation.
  */
@@ -98,6 +100,19 @@ public class ColorPalette {
         this.mountainColor = mountainColor;
     }
 
+    /**
+     * Gets the Color of a packed ARGB value, the form simulation objects
+     * hold their colors in.
+     * @param argb the packed color
+     * @return the Color
+     */
+    public static Color toColor(int argb) {
+
+        return Color.rgb(ArgbColor.getRed(argb), ArgbColor.getGreen(argb),
+            ArgbColor.getBlue(argb), ArgbColor.getAlpha(argb) / 255.0);
+
+    }
+
     @Override
     public String toString() {
         return name;
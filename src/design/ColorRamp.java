@@ -0,0 +1,127 @@
+package design;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javafx.scene.paint.Color;
+
+/**
+ * A shared cache of precomputed Colors. Fading a Color to an opacity, or
+ * picking a Color between two others, becomes an index lookup into a table
+ * that is built once per base Color and then reused by every caller, so no
+ * Colors are created while the simulation runs.
+ */
+public class ColorRamp {
+
+    public static final int ALPHA_LEVELS = 64;
+
+    private static final Map<Color, Color[]> alphaRamps =
+        new ConcurrentHashMap<Color, Color[]>();
+    private static final Map<List<Object>, Color[]> colorRanges =
+        new ConcurrentHashMap<List<Object>, Color[]>();
+
+    private ColorRamp() {}
+
+    /**
+     * Gets the table of a Color faded to each alpha level, from fully
+     * transparent at index 0 to the Color's own opacity at the last index.
+     * The table is shared, so it must not be modified.
+     * @param base the Color to fade
+     * @return the Color's alpha ramp
+     */
+    public static Color[] getAlphaRamp(Color base) {
+        return alphaRamps.computeIfAbsent(base, ColorRamp::createAlphaRamp);
+    }
+
+    /**
+     * Gets the alpha ramp index closest to the given opacity.
+     * @param opacity the opacity, from 0 to 1
+     * @return an index into an alpha ramp
+     */
+    public static int getAlphaIndex(double opacity) {
+
+        int index = (int) (opacity * (ALPHA_LEVELS - 1) + 0.5);
+        return Math.min(Math.max(index, 0), ALPHA_LEVELS - 1);
+
+    }
+
+    /**
+     * Gets a Color faded to the alpha level closest to the given opacity.
+     * @param base the Color to fade
+     * @param opacity the fraction of the Color's opacity to keep, from 0 to 1
+     * @return the faded Color
+     */
+    public static Color fade(Color base, double opacity) {
+        return getAlphaRamp(base)[getAlphaIndex(opacity)];
+    }
+
+    /**
+     * Gets a table of Colors whose red, green, and blue components each step
+     * evenly from the smaller to the larger of the two Colors' values. The
+     * table is shared, so it must not be modified.
+     * @param color1 one end of the range
+     * @param color2 the other end of the range
+     * @param steps the number of Colors in the table
+     * @return the table of Colors
+     */
+    public static Color[] getColorRange(Color color1, Color color2, int steps) {
+
+        return colorRanges.computeIfAbsent(Arrays.asList(color1, color2, steps),
+            key -> createColorRange(color1, color2, steps));
+
+    }
+
+    /**
+     * Builds the alpha ramp of a Color.
+     * @param base the Color to fade
+     * @return the Color's alpha ramp
+     */
+    private static Color[] createAlphaRamp(Color base) {
+
+        Color[] ramp = new Color[ALPHA_LEVELS];
+
+        for (int i = 0; i < ramp.length; i++) {
+            ramp[i] = new Color(base.getRed(), base.getGreen(), base.getBlue(),
+                base.getOpacity() * i / (ALPHA_LEVELS - 1));
+        }
+
+        return ramp;
+
+    }
+
+    /**
+     * Builds a table of Colors between two Colors.
+     * @param color1 one end of the range
+     * @param color2 the other end of the range
+     * @param steps the number of Colors in the table
+     * @return the table of Colors
+     */
+    private static Color[] createColorRange(Color color1, Color color2,
+            int steps) {
+
+        double lowerR = Math.min(color1.getRed(), color2.getRed());
+        double upperR = Math.max(color1.getRed(), color2.getRed());
+
+        double lowerG = Math.min(color1.getGreen(), color2.getGreen());
+        double upperG = Math.max(color1.getGreen(), color2.getGreen());
+
+        double lowerB = Math.min(color1.getBlue(), color2.getBlue());
+        double upperB = Math.max(color1.getBlue(), color2.getBlue());
+
+        Color[] colors = new Color[steps];
+
+        for (int i = 0; i < colors.length; i++) {
+
+            double t = steps > 1 ? i / (steps - 1.0) : 0;
+            colors[i] = new Color(lowerR + t * (upperR - lowerR),
+                lowerG + t * (upperG - lowerG),
+                lowerB + t * (upperB - lowerB), 1);
+
+        }
+
+        return colors;
+
+    }
+
+}
@@ -0,0 +1,222 @@
+package render;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+
+import design.ColorPalette;
+import world.World;
+
+/**
+ * A class that caches a World's static background, the sky and mountains
+ * down to the ground, as prerendered image tiles drawn by a WorldRenderer.
+ * Each tile covers a fixed strip of the World and is rendered once, then
+ * drawn with a single drawImage call every frame until the palette
+ * changes. Only the most recently used tiles are kept, and the images of
+ * dropped tiles are reused for new ones.
+ * <p>
+ * Tiles must be drawn and rendered on the JavaFX application thread.
+ */
+public class BackgroundTiles {
+
+	public static final int DEFAULT_TILE_WIDTH = 256;
+	public static final int DEFAULT_MAX_TILES = 16;
+
+	private WorldRenderer renderer;
+	private int tileWidth;
+	private int maxTiles;
+
+	private ColorPalette palette;
+	private double topY;
+	private int tileHeight;
+
+	private Canvas tileCanvas;
+	private SnapshotParameters snapshotParameters = new SnapshotParameters();
+
+	// An access-ordered map iterates from least to most recently used
+	private LinkedHashMap<Long, WritableImage> tiles =
+		new LinkedHashMap<Long, WritableImage>(16, 0.75f, true);
+
+	private long tilesRendered = 0;
+
+	/**
+	 * Creates a BackgroundTiles for the given WorldRenderer's World with the
+	 * default tile width and tile limit.
+	 * @param renderer the WorldRenderer that draws the cached background
+	 */
+	public BackgroundTiles(WorldRenderer renderer) {
+		this(renderer, DEFAULT_TILE_WIDTH, DEFAULT_MAX_TILES);
+	}
+
+	/**
+	 * Creates a BackgroundTiles for the given WorldRenderer's World.
+	 * @param renderer the WorldRenderer that draws the cached background
+	 * @param tileWidth the width, in pixels, of each tile
+	 * @param maxTiles the most tiles to keep at once
+	 */
+	public BackgroundTiles(WorldRenderer renderer, int tileWidth, 
+			int maxTiles) {
+
+		this.renderer = renderer;
+		this.tileWidth = tileWidth;
+		this.maxTiles = maxTiles;
+
+	}
+
+	/**
+	 * Gets the width, in pixels, of each tile.
+	 * @return the tile width
+	 */
+	public int getTileWidth() {
+		return tileWidth;
+	}
+
+	/**
+	 * Gets the most tiles that are kept at once.
+	 * @return the max tile count
+	 */
+	public int getMaxTiles() {
+		return maxTiles;
+	}
+
+	/**
+	 * Gets the number of tiles currently cached.
+	 * @return the cached tile count
+	 */
+	public int getTileCount() {
+		return tiles.size();
+	}
+
+	/**
+	 * Gets the number of times a tile has been rendered, including tiles
+	 * rendered again after being dropped or invalidated.
+	 * @return the rendered tile count
+	 */
+	public long getTilesRendered() {
+		return tilesRendered;
+	}
+
+	/**
+	 * Discards every tile, so they are rendered again the next time they are
+	 * drawn. This should be called when anything drawn in the tiles changes,
+	 * like the palette.
+	 */
+	public void invalidate() {
+
+		tiles.clear();
+		palette = null;
+
+	}
+
+	/**
+	 * Draws the background in the given area of the World, using cached
+	 * tiles where they exist and rendering the ones that don't. The sky above
+	 * the tiles is filled with a single rectangle.
+	 * @param gc the GraphicsContext, already translated by the camera, to
+	 * draw the background with
+	 * @param leftX the left x-coordinate of the area to draw
+	 * @param topY the top y-coordinate of the area to draw
+	 * @param width the width of the area to draw
+	 * @param height the height of the area to draw
+	 */
+	public void draw(GraphicsContext gc, double leftX, double topY,
+			double width, double height) {
+
+		if (renderer.getPalette() != palette) {
+
+			invalidate();
+			palette = renderer.getPalette();
+
+		}
+
+		if (tileCanvas == null) {
+
+			World world = renderer.getWorld();
+			this.topY = Math.floor(world.getBackgroundTopY());
+			this.tileHeight = (int) Math.ceil(world.getGroundY() - this.topY);
+			tileCanvas = new Canvas(tileWidth, tileHeight);
+
+		}
+
+		if (topY < this.topY) {
+
+			gc.setFill(palette.getSkyColor());
+			gc.fillRect(leftX, topY, width, this.topY - topY);
+
+		}
+
+		long firstTile = (long) Math.floor(leftX / tileWidth);
+		long lastTile = (long) Math.floor((leftX + width) / tileWidth);
+
+		// Smoothing would blend the tiles' edges and leave seams between them
+		boolean imageSmoothing = gc.isImageSmoothing();
+		gc.setImageSmoothing(false);
+
+		for (long index = firstTile; index <= lastTile; index++) {
+
+			gc.drawImage(getTile(index), index * tileWidth, this.topY);
+
+		}
+
+		gc.setImageSmoothing(imageSmoothing);
+
+	}
+
+	/**
+	 * Gets a tile from the cache, rendering it if it isn't cached.
+	 * @param index the tile's index, counting from the World's origin
+	 * @return the tile's image
+	 */
+	private WritableImage getTile(long index) {
+
+		WritableImage tile = tiles.get(index);
+
+		if (tile == null) {
+
+			WritableImage reusedImage = null;
+
+			if (tiles.size() >= maxTiles) {
+
+				Iterator<Map.Entry<Long, WritableImage>> eldest =
+					tiles.entrySet().iterator();
+				reusedImage = eldest.next().getValue();
+				eldest.remove();
+
+			}
+
+			tile = renderTile(index, reusedImage);
+			tiles.put(index, tile);
+
+		}
+
+		return tile;
+
+	}
+
+	/**
+	 * Renders the background of a tile's strip of the World into an image.
+	 * @param index the tile's index
+	 * @param image an image of the right size to render into, or null to
+	 * create a new one
+	 * @return the rendered tile
+	 */
+	private WritableImage renderTile(long index, WritableImage image) {
+
+		GraphicsContext gc = tileCanvas.getGraphicsContext2D();
+		double tileLeftX = index * tileWidth;
+
+		gc.save();
+		gc.translate(-tileLeftX, -topY);
+		renderer.drawBackground(gc, tileLeftX, topY, tileWidth, tileHeight);
+		gc.restore();
+
+		tilesRendered++;
+		return tileCanvas.snapshot(snapshotParameters, image);
+
+	}
+
+}
@@ -0,0 +1,106 @@
+package render;
+import java.util.function.Consumer;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * A class for one of several Canvases stacked on top of each other, each
+ * holding content that changes at its own pace. A layer is only cleared and
+ * redrawn after it has been marked dirty, so layers whose content hasn't
+ * changed keep their last image at no cost.
+ */
+public class CanvasLayer {
+
+	private Canvas canvas;
+	private boolean dirty = true;
+	private long redrawCount = 0;
+
+	/**
+	 * Creates a CanvasLayer with a new Canvas of the given dimensions. The
+	 * layer starts out dirty so it is drawn at least once.
+	 * @param width the width of the layer's Canvas
+	 * @param height the height of the layer's Canvas
+	 */
+	public CanvasLayer(double width, double height) {
+
+		this.canvas = new Canvas(width, height);
+
+	}
+
+	/**
+	 * Gets the Canvas the layer is drawn on, to add to a scene.
+	 * @return the layer's Canvas
+	 */
+	public Canvas getCanvas() {
+		return canvas;
+	}
+
+	/**
+	 * Gets the GraphicsContext of the layer's Canvas.
+	 * @return the layer's GraphicsContext
+	 */
+	public GraphicsContext getGraphicsContext() {
+		return canvas.getGraphicsContext2D();
+	}
+
+	/**
+	 * Returns true if the layer's content has changed since it was last
+	 * drawn.
+	 * @return whether the layer needs to be redrawn
+	 */
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	/**
+	 * Marks the layer's content as changed, so it is redrawn the next time
+	 * <code>redrawIfDirty</code> is called.
+	 */
+	public void markDirty() {
+		this.dirty = true;
+	}
+
+	/**
+	 * Gets the number of times the layer has been redrawn.
+	 * @return the redraw count
+	 */
+	public long getRedrawCount() {
+		return redrawCount;
+	}
+
+	/**
+	 * Clears the whole Canvas, whatever its GraphicsContext's transform is.
+	 */
+	public void clear() {
+
+		GraphicsContext gc = getGraphicsContext();
+		gc.save();
+		gc.setTransform(1, 0, 0, 1, 0, 0);
+		gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+		gc.restore();
+
+	}
+
+	/**
+	 * Clears the layer and draws it again with the given function, if it has
+	 * been marked dirty.
+	 * @param painter the function that draws the layer's content
+	 * @return true if the layer was redrawn, false if it was already up to
+	 * date
+	 */
+	public boolean redrawIfDirty(Consumer<GraphicsContext> painter) {
+
+		if (!isDirty()) {
+			return false;
+		}
+
+		clear();
+		painter.accept(getGraphicsContext());
+		dirty = false;
+		redrawCount++;
+		return true;
+
+	}
+
+}
@@ -0,0 +1,441 @@
+package render;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Affine;
+
+import design.ColorRamp;
+import rocket.ParticleBuffer;
+import rocket.ParticleEmitter;
+
+/**
+ * A software rasterizer for dense exhaust plumes. Instead of issuing one
+ * Canvas command per Particle, emitters queue their Particles, which are
+ * projected into screen space right away. Once per frame every queued
+ * Particle is splatted into an ARGB framebuffer, split into horizontal
+ * strips that are rasterized in parallel, and the framebuffer is uploaded
+ * to an image with a single setPixels call and drawn with a single
+ * drawImage call.
+ * <p>
+ * The per-frame cost grows with the number of pixels covered rather than
+ * the number of Canvas commands, so this only pays off once there are many
+ * Particles on screen. Queuing and rendering must happen on the JavaFX
+ * application thread; only the splatting runs on other threads.
+ */
+public class ParticleRasterizer {
+
+	private static final PixelFormat<IntBuffer> PIXEL_FORMAT =
+		PixelFormat.getIntArgbPreInstance();
+
+	private int width;
+	private int height;
+	private int [] pixels;
+	private WritableImage image;
+
+	private int stripCount = Runtime.getRuntime().availableProcessors() * 2;
+
+	// The queued Particles, already in screen space
+	private double [] centerX = new double[256];
+	private double [] centerY = new double[256];
+	private double [] radius = new double[256];
+	private int [] color = new int[256]; // premultiplied ARGB
+	private int particleCount = 0;
+
+	private Affine transform = new Affine();
+
+	private long lastRasterizeNanos = 0;
+
+	/**
+	 * Creates a ParticleRasterizer with a framebuffer of the given size.
+	 * @param width the framebuffer width, in pixels
+	 * @param height the framebuffer height, in pixels
+	 */
+	public ParticleRasterizer(int width, int height) {
+		setSize(width, height);
+	}
+
+	/**
+	 * Gets the framebuffer width.
+	 * @return the width, in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the framebuffer height.
+	 * @return the height, in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Resizes the framebuffer, if its size is different.
+	 * @param width the new width, in pixels
+	 * @param height the new height, in pixels
+	 */
+	public void setSize(int width, int height) {
+
+		if (pixels != null && width == this.width && height == this.height) {
+			return;
+		}
+
+		this.width = Math.max(1, width);
+		this.height = Math.max(1, height);
+		this.pixels = new int[this.width * this.height];
+		this.image = null;
+
+	}
+
+	/**
+	 * Gets the number of strips the framebuffer is split into.
+	 * @return the strip count
+	 */
+	public int getStripCount() {
+		return stripCount;
+	}
+
+	/**
+	 * Sets the number of strips the framebuffer is split into. Each strip is
+	 * rasterized as its own parallel task.
+	 * @param stripCount the new strip count
+	 */
+	public void setStripCount(int stripCount) {
+		this.stripCount = Math.max(1, stripCount);
+	}
+
+	/**
+	 * Gets the number of Particles queued for the next frame.
+	 * @return the queued Particle count
+	 */
+	public int getQueuedParticleCount() {
+		return particleCount;
+	}
+
+	/**
+	 * Gets the framebuffer, whose pixels are premultiplied ARGB values,
+	 * row by row.
+	 * @return the framebuffer
+	 */
+	public int[] getPixels() {
+		return pixels;
+	}
+
+	/**
+	 * Gets the time the last call to <code>rasterize()</code> took.
+	 * @return the time, in nanoseconds
+	 */
+	public long getLastRasterizeNanos() {
+		return lastRasterizeNanos;
+	}
+
+	/**
+	 * Queues an emitter's Particles, drawn through the GraphicsContext's
+	 * current transform.
+	 * @param emitter the emitter whose Particles are queued
+	 * @param colors the Colors that the Particles' color indices refer to
+	 * @param gc the GraphicsContext the Particles would be drawn with
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @return the number of Particles queued
+	 */
+	public int queue(ParticleEmitter emitter, Color [] colors,
+			GraphicsContext gc, double alpha) {
+
+		return queue(emitter, colors, gc.getTransform(transform), alpha);
+
+	}
+
+	/**
+	 * Queues an emitter's Particles, drawn through the given transform.
+	 * Particles that fall completely outside the framebuffer are skipped.
+	 * @param emitter the emitter whose Particles are queued
+	 * @param colors the Colors that the Particles' color indices refer to
+	 * @param transform the transform from the emitter's coordinates to the
+	 * framebuffer's pixels
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @return the number of Particles queued
+	 */
+	public int queue(ParticleEmitter emitter, Color [] colors,
+			Affine transform, double alpha) {
+
+		ParticleBuffer particles = emitter.getParticles();
+		ensureCapacity(particleCount + particles.size());
+
+		double mxx = transform.getMxx();
+		double mxy = transform.getMxy();
+		double myx = transform.getMyx();
+		double myy = transform.getMyy();
+		double tx = transform.getTx();
+		double ty = transform.getTy();
+
+		double localRadius = emitter.getParticleRadius();
+		double screenRadius = localRadius * Math.sqrt(Math.abs(mxx * myy - mxy * myx));
+		int queued = 0;
+
+		for (int i = 0; i < particles.size(); i++) {
+
+			// Particles are drawn below their position, like a fillOval
+			double x = particles.getInterpolatedX(i, alpha);
+			double y = particles.getInterpolatedY(i, alpha) + localRadius;
+			double screenX = mxx * x + mxy * y + tx;
+			double screenY = myx * x + myy * y + ty;
+
+			if (screenX + screenRadius < 0 || screenX - screenRadius > width ||
+					screenY + screenRadius < 0 || screenY - screenRadius > height) {
+				continue;
+			}
+
+			centerX[particleCount] = screenX;
+			centerY[particleCount] = screenY;
+			radius[particleCount] = screenRadius;
+			color[particleCount] = toPremultipliedArgb(
+				colors[particles.getColorIndex(i)], particles.getOpacity(i));
+			particleCount++;
+			queued++;
+
+		}
+
+		return queued;
+
+	}
+
+	/**
+	 * Drops every queued Particle.
+	 */
+	public void clearQueue() {
+		particleCount = 0;
+	}
+
+	/**
+	 * Clears the framebuffer and splats every queued Particle into it, one
+	 * parallel task per strip.
+	 */
+	public void rasterize() {
+
+		long start = System.nanoTime();
+
+		int strips = Math.min(stripCount, height);
+		IntStream.range(0, strips).parallel()
+			.forEach(strip -> rasterizeStrip(strip, strips));
+
+		lastRasterizeNanos = System.nanoTime() - start;
+
+	}
+
+	/**
+	 * Rasterizes the queued Particles, uploads the framebuffer, and draws it
+	 * over the Canvas at the Canvas's own pixel coordinates, whatever the
+	 * GraphicsContext's transform is. The queue is then cleared for the
+	 * next frame.
+	 * @param gc the GraphicsContext to draw the Particles with
+	 */
+	public void render(GraphicsContext gc) {
+
+		rasterize();
+
+		if (image == null) {
+			image = new WritableImage(width, height);
+		}
+
+		image.getPixelWriter().setPixels(0, 0, width, height, PIXEL_FORMAT,
+			pixels, 0, width);
+
+		gc.save();
+		gc.setTransform(1, 0, 0, 1, 0, 0);
+		gc.drawImage(image, 0, 0);
+		gc.restore();
+
+		clearQueue();
+
+	}
+
+	/**
+	 * Clears one strip of the framebuffer and splats the part of every
+	 * queued Particle that falls inside it. Strips don't share any pixels,
+	 * so they can be rasterized at the same time.
+	 * @param strip the index of the strip
+	 * @param strips the number of strips
+	 */
+	private void rasterizeStrip(int strip, int strips) {
+
+		int top = (int) ((long) height * strip / strips);
+		int bottom = (int) ((long) height * (strip + 1) / strips);
+
+		Arrays.fill(pixels, top * width, bottom * width, 0);
+
+		for (int i = 0; i < particleCount; i++) {
+
+			double r = radius[i];
+			double cy = centerY[i];
+
+			if (cy + r + 1 < top || cy - r - 1 >= bottom) {
+				continue;
+			}
+
+			splat(centerX[i], cy, r, color[i], top, bottom);
+
+		}
+
+	}
+
+	/**
+	 * Blends an anti-aliased circle into the rows of the framebuffer between
+	 * top and bottom. A pixel's coverage falls off over the last pixel of
+	 * the circle's radius.
+	 * @param cx the x-coordinate of the circle's center
+	 * @param cy the y-coordinate of the circle's center
+	 * @param r the circle's radius
+	 * @param argb the circle's premultiplied color
+	 * @param top the first row to draw in
+	 * @param bottom the row after the last row to draw in
+	 */
+	private void splat(double cx, double cy, double r, int argb, int top,
+			int bottom) {
+
+		double outer = r + 0.5;
+		int minY = Math.max(top, (int) Math.floor(cy - outer));
+		int maxY = Math.min(bottom - 1, (int) Math.ceil(cy + outer));
+		int minX = Math.max(0, (int) Math.floor(cx - outer));
+		int maxX = Math.min(width - 1, (int) Math.ceil(cx + outer));
+
+		// Pixels within the inner radius are fully covered
+		double inner = Math.max(0, r - 0.5);
+		double innerSquared = inner * inner;
+		double outerSquared = outer * outer;
+
+		for (int y = minY; y <= maxY; y++) {
+
+			double dy = y + 0.5 - cy;
+			double dySquared = dy * dy;
+
+			if (dySquared >= outerSquared) {
+				continue;
+			}
+
+			int row = y * width;
+			double outerSpan = Math.sqrt(outerSquared - dySquared);
+			int left = Math.max(minX, (int) Math.floor(cx - outerSpan - 0.5));
+			int right = Math.min(maxX, (int) Math.ceil(cx + outerSpan - 0.5));
+
+			// The fully covered run of the row, empty if the row only grazes
+			int innerLeft = right + 1;
+			int innerRight = right;
+
+			if (dySquared < innerSquared) {
+
+				double innerSpan = Math.sqrt(innerSquared - dySquared);
+				innerLeft = Math.max(left, (int) Math.ceil(cx - innerSpan - 0.5));
+				innerRight = Math.min(right, (int) Math.floor(cx + innerSpan - 0.5));
+
+			}
+
+			for (int x = left; x < innerLeft; x++) {
+				blendEdge(row + x, x + 0.5 - cx, dySquared, outer, argb);
+			}
+
+			int keep = 256 - (argb >>> 24) - (argb >>> 31);
+
+			for (int x = innerLeft; x <= innerRight; x++) {
+
+				int dst = pixels[row + x];
+				pixels[row + x] = dst == 0 ? argb : argb + scale(dst, keep);
+
+			}
+
+			for (int x = Math.max(left, innerRight + 1); x <= right; x++) {
+				blendEdge(row + x, x + 0.5 - cx, dySquared, outer, argb);
+			}
+
+		}
+
+	}
+
+	/**
+	 * Blends a partly covered pixel on the edge of a circle into the
+	 * framebuffer.
+	 * @param index the pixel's index in the framebuffer
+	 * @param dx the pixel center's horizontal distance from the circle's
+	 * center
+	 * @param dySquared the square of the pixel center's vertical distance
+	 * from the circle's center
+	 * @param outer the radius at which coverage reaches 0
+	 * @param argb the circle's premultiplied color
+	 */
+	private void blendEdge(int index, double dx, double dySquared,
+			double outer, int argb) {
+
+		double coverage = outer - Math.sqrt(dx * dx + dySquared);
+
+		if (coverage <= 0) {
+			return;
+		}
+
+		int src = coverage >= 1 ? argb : scale(argb, (int) (coverage * 256));
+		int dst = pixels[index];
+		pixels[index] = dst == 0 ? src : 
+			src + scale(dst, 256 - (src >>> 24) - (src >>> 31));
+
+	}
+
+	/**
+	 * Multiplies every channel of a premultiplied ARGB value by a factor.
+	 * @param argb the premultiplied ARGB value
+	 * @param factor the factor, from 0 (transparent) to 256 (unchanged)
+	 * @return the scaled ARGB value
+	 */
+	private static int scale(int argb, int factor) {
+
+		// Scale alpha and green together, then red and blue together
+		int alphaGreen = ((argb >>> 8) & 0x00ff00ff) * factor;
+		int redBlue = (argb & 0x00ff00ff) * factor;
+
+		return (alphaGreen & 0xff00ff00) | ((redBlue >>> 8) & 0x00ff00ff);
+
+	}
+
+	/**
+	 * Converts a Color, faded to an opacity, to a premultiplied ARGB value.
+	 * The opacity is rounded to the same alpha levels as the sprite path.
+	 * @param color the Color to convert
+	 * @param opacity the fraction of the Color's opacity to keep, from 0 to 1
+	 * @return the premultiplied ARGB value
+	 */
+	private static int toPremultipliedArgb(Color color, double opacity) {
+
+		double alpha = color.getOpacity() * ColorRamp.getAlphaIndex(opacity)
+			/ (ColorRamp.ALPHA_LEVELS - 1);
+		int a = (int) Math.round(alpha * 255);
+		int r = (int) Math.round(color.getRed() * alpha * 255);
+		int g = (int) Math.round(color.getGreen() * alpha * 255);
+		int b = (int) Math.round(color.getBlue() * alpha * 255);
+
+		return (a << 24) | (r << 16) | (g << 8) | b;
+
+	}
+
+	/**
+	 * Grows the queue's arrays so they can hold the given number of
+	 * Particles.
+	 * @param capacity the number of Particles the queue must hold
+	 */
+	private void ensureCapacity(int capacity) {
+
+		if (capacity <= centerX.length) {
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, centerX.length * 2);
+		centerX = Arrays.copyOf(centerX, newCapacity);
+		centerY = Arrays.copyOf(centerY, newCapacity);
+		radius = Arrays.copyOf(radius, newCapacity);
+		color = Arrays.copyOf(color, newCapacity);
+
+	}
+
+}
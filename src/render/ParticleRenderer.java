@@ -0,0 +1,310 @@
+package render;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Affine;
+
+import design.ColorPalette;
+import design.ColorRamp;
+import rocket.ParticleBuffer;
+import rocket.ParticleEmitter;
+import util.Viewport;
+
+/**
+ * A class that draws the Particles a ParticleEmitter has emitted, either as
+ * cells of a prerendered ParticleSpriteSheet or, when it has one, by
+ * queuing them in a ParticleRasterizer. The emitter itself is drawn
+ * separately, with <code>drawBody()</code>, since it moves with whatever it
+ * is attached to while its Particles move on their own. The table of Colors
+ * each emitter's Particles pick from, and its sprite sheet, are worked out
+ * the first time the emitter is drawn, and again only when its color range
+ * or Particle radius changes.
+ * <p>
+ * Particles must be drawn on the JavaFX application thread.
+ */
+public class ParticleRenderer implements Renderer<ParticleEmitter> {
+
+	// Emitters that are no longer drawn are dropped along with their look
+	private Map<ParticleEmitter, ParticleLook> looks =
+		new WeakHashMap<ParticleEmitter, ParticleLook>();
+
+	private ParticleRasterizer rasterizer;
+	private Affine drawTransform = new Affine();
+
+	/**
+	 * Gets the ParticleRasterizer that Particles are queued in instead of
+	 * being drawn, if there is one.
+	 * @return the ParticleRasterizer, or null if Particles are drawn as
+	 * sprites
+	 */
+	public ParticleRasterizer getRasterizer() {
+		return rasterizer;
+	}
+
+	/**
+	 * Sets the ParticleRasterizer that Particles are queued in instead of
+	 * being drawn.
+	 * @param rasterizer the new ParticleRasterizer, or null to draw
+	 * Particles as sprites
+	 */
+	public void setRasterizer(ParticleRasterizer rasterizer) {
+		this.rasterizer = rasterizer;
+	}
+
+	/**
+	 * Gets the table of Colors that an emitter's Particles' color indices
+	 * refer to.
+	 * @param emitter the emitter whose Particles are drawn
+	 * @return the Particle Colors
+	 */
+	public Color [] getParticleColors(ParticleEmitter emitter) {
+		return getLook(emitter).colors;
+	}
+
+	/**
+	 * Gets the sprite sheet an emitter's Particles are drawn from, which
+	 * depends on the Particle Colors and radius.
+	 * @param emitter the emitter whose Particles are drawn
+	 * @return the Particle sprite sheet
+	 */
+	public ParticleSpriteSheet getParticleSprites(ParticleEmitter emitter) {
+
+		ParticleLook look = getLook(emitter);
+
+		if (look.sprites == null) {
+			look.sprites = ParticleSpriteSheet.getSheet(look.colors,
+					look.radius);
+		}
+
+		return look.sprites;
+
+	}
+
+	/**
+	 * Draws the ParticleEmitter's Particles that are inside the Viewport,
+	 * each at a position between its position before and after the last
+	 * tick. If none of the Particles can be inside the Viewport, none of
+	 * them are looked at. Visible Particles are copied from the emitter's
+	 * sprite sheet, or queued in the ParticleRasterizer if there is one.
+	 * @param gc the GraphicsContext of the Canvas to draw on
+	 * @param emitter the emitter whose Particles are drawn
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @param viewport the part of the World that is visible, or null to draw
+	 * every Particle
+	 */
+	@Override
+	public void draw(GraphicsContext gc, ParticleEmitter emitter, double alpha,
+			Viewport viewport) {
+
+		ParticleBuffer particles = emitter.getParticles();
+
+		if (particles.size() == 0) {
+			return;
+		}
+
+		gc.getTransform(drawTransform);
+
+		if (viewport != null && !isInView(emitter, viewport, drawTransform)) {
+
+			viewport.countCulledEmitter(particles.size());
+			return;
+
+		}
+
+		if (getRasterizer() != null) {
+
+			// The rasterizer clips Particles to the Canvas itself
+			int queued = getRasterizer().queue(emitter,
+					getParticleColors(emitter), drawTransform, alpha);
+
+			if (viewport != null) {
+				viewport.countCulledParticles(particles.size() - queued);
+			}
+
+			return;
+
+		}
+
+		ParticleSpriteSheet sprites = getParticleSprites(emitter);
+		double radius = emitter.getParticleRadius();
+
+		// The transform into Canvas pixels, to test Particles against
+		double mxx = drawTransform.getMxx();
+		double mxy = drawTransform.getMxy();
+		double myx = drawTransform.getMyx();
+		double myy = drawTransform.getMyy();
+		double tx = drawTransform.getTx();
+		double ty = drawTransform.getTy();
+		double screenRadius = radius * Math.sqrt(Math.abs(mxx * myy - mxy * myx));
+		int culled = 0;
+
+		for (int i = 0; i < particles.size(); i++) {
+
+			double x = particles.getInterpolatedX(i, alpha);
+			double y = particles.getInterpolatedY(i, alpha);
+
+			if (viewport != null) {
+
+				double centerY = y + radius;
+
+				if (!viewport.containsScreen(mxx * x + mxy * centerY + tx,
+						myx * x + myy * centerY + ty, screenRadius)) {
+
+					culled++;
+					continue;
+
+				}
+
+			}
+
+			// Each color and alpha level is a cell of the same sprite sheet
+			sprites.draw(gc, particles.getColorIndex(i),
+					ColorRamp.getAlphaIndex(particles.getOpacity(i)), x, y);
+
+		}
+
+		if (viewport != null) {
+			viewport.countCulledParticles(culled);
+		}
+
+	}
+
+	/**
+	 * Returns true if the bounds of an emitter's Particles, drawn through
+	 * the given transform, overlap the Viewport.
+	 * @param emitter the emitter whose Particles are tested
+	 * @param viewport the part of the World that is visible
+	 * @param transform the transform from the emitter's coordinates to
+	 * Canvas pixels
+	 * @return whether any Particle may be visible
+	 */
+	private static boolean isInView(ParticleEmitter emitter, Viewport viewport,
+			Affine transform) {
+
+		ParticleBuffer particles = emitter.getParticles();
+		double radius = emitter.getParticleRadius();
+
+		// Each Particle is a circle below its position
+		double left = particles.getMinX() - radius;
+		double right = particles.getMaxX() + radius;
+		double top = particles.getMinY();
+		double bottom = particles.getMaxY() + radius * 2;
+
+		// The bounds of the transformed corners, which may be rotated
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+
+		for (int corner = 0; corner < 4; corner++) {
+
+			double x = corner % 2 == 0 ? left : right;
+			double y = corner < 2 ? top : bottom;
+			double screenX = transform.getMxx() * x + transform.getMxy() * y +
+					transform.getTx();
+			double screenY = transform.getMyx() * x + transform.getMyy() * y +
+					transform.getTy();
+
+			minX = Math.min(minX, screenX);
+			maxX = Math.max(maxX, screenX);
+			minY = Math.min(minY, screenY);
+			maxY = Math.max(maxY, screenY);
+
+		}
+
+		return viewport.intersectsScreen(minX, minY, maxX, maxY);
+
+	}
+
+	/**
+	 * Draws a ParticleEmitter as a rectangle of its color, without the
+	 * Particles it has emitted.
+	 * @param gc the GraphicsContext of the Canvas to draw on
+	 * @param emitter the ParticleEmitter to draw
+	 */
+	public static void drawBody(GraphicsContext gc, ParticleEmitter emitter) {
+
+		gc.setFill(ColorPalette.toColor(emitter.getColor()));
+		gc.fillRect(emitter.getX() - emitter.getWidth() / 2, emitter.getY(),
+				emitter.getWidth(), emitter.getHeight());
+
+	}
+
+	/**
+	 * Gets how an emitter's Particles look, working it out again if the
+	 * emitter's color range or Particle radius has changed since it was
+	 * last drawn.
+	 * @param emitter the emitter whose Particles are drawn
+	 * @return the emitter's ParticleLook
+	 */
+	private ParticleLook getLook(ParticleEmitter emitter) {
+
+		ParticleLook look = looks.get(emitter);
+		int [] colorRange = emitter.getParticleColorRange();
+		double radius = emitter.getParticleRadius();
+
+		if (look == null || look.colorRange != colorRange ||
+				look.radius != radius) {
+
+			look = new ParticleLook(colorRange, radius,
+					createParticleColors(colorRange,
+							emitter.getParticleColorCount()));
+			looks.put(emitter, look);
+
+		}
+
+		return look;
+
+	}
+
+	/**
+	 * Gets a table of Colors evenly spread within a packed color range. Each
+	 * RGB component steps from the smaller to the larger of the two colors'
+	 * values. Tables are shared between every emitter with the same color
+	 * range.
+	 * @param colorRange the minimum and maximum RGB values of the table
+	 * @param count the number of Colors in the table
+	 * @return the table of Colors
+	 */
+	private static Color [] createParticleColors(int [] colorRange,
+			int count) {
+
+		Color first = ColorPalette.toColor(colorRange[0]);
+		Color last = ColorPalette.toColor(colorRange[colorRange.length - 1]);
+
+		return ColorRamp.getColorRange(first, count == 1 ? first : last,
+				count);
+
+	}
+
+	/**
+	 * The Colors and sprites an emitter's Particles are drawn with, along
+	 * with the color range and radius they were made for.
+	 */
+	private static class ParticleLook {
+
+		private int [] colorRange;
+		private double radius;
+		private Color [] colors;
+		private ParticleSpriteSheet sprites;
+
+		/**
+		 * Creates a ParticleLook whose sprites are made when first needed.
+		 * @param colorRange the emitter's packed color range
+		 * @param radius the emitter's Particle radius
+		 * @param colors the table of Colors for the color range
+		 */
+		private ParticleLook(int [] colorRange, double radius,
+				Color [] colors) {
+
+			this.colorRange = colorRange;
+			this.radius = radius;
+			this.colors = colors;
+
+		}
+
+	}
+
+}
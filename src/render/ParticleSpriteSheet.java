@@ -0,0 +1,140 @@
+package render;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import design.ColorRamp;
+
+/**
+ * A class that prerenders a Particle's anti-aliased circle in every color of
+ * a Particle color table, faded to every alpha level, into a single sprite
+ * sheet. Each row of the sheet holds one color and each column one alpha
+ * level, so a Particle is drawn by copying its cell with one drawImage call,
+ * without changing the fill or rasterizing an oval.
+ * <p>
+ * Because every cell comes from the same image, drawing Particles of
+ * different colors and opacities needs no state changes between them.
+ * Emitters with the same colors and radius share a sheet.
+ * <p>
+ * Sheets must be drawn and rendered on the JavaFX application thread.
+ */
+public class ParticleSpriteSheet {
+
+	private static final int PADDING = 1; // pixels around each sprite
+
+	private static final Map<List<Object>, ParticleSpriteSheet> sheets =
+		new HashMap<List<Object>, ParticleSpriteSheet>();
+
+	private Color [] colors;
+	private double radius;
+	private int cellSize;
+
+	private WritableImage sheet;
+
+	/**
+	 * Creates a ParticleSpriteSheet for Particles of the given colors and
+	 * radius. The sheet is rendered the first time a Particle is drawn.
+	 * @param colors the table of Colors that Particles' color indices refer
+	 * to
+	 * @param radius the radius of the Particles
+	 */
+	public ParticleSpriteSheet(Color [] colors, double radius) {
+
+		this.colors = colors;
+		this.radius = radius;
+		this.cellSize = (int) Math.ceil(radius * 2) + 2 * PADDING;
+
+	}
+
+	/**
+	 * Gets the shared sheet for Particles of the given colors and radius,
+	 * creating it if it doesn't exist.
+	 * @param colors the table of Colors that Particles' color indices refer
+	 * to
+	 * @param radius the radius of the Particles
+	 * @return the sprite sheet
+	 */
+	public static ParticleSpriteSheet getSheet(Color [] colors, double radius) {
+
+		List<Object> key = Arrays.asList(Arrays.asList(colors), radius);
+		return sheets.computeIfAbsent(key,
+			k -> new ParticleSpriteSheet(colors, radius));
+
+	}
+
+	/**
+	 * Gets the width and height, in pixels, of each sprite.
+	 * @return the sprite size
+	 */
+	public int getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Returns true if the sheet has been rendered.
+	 * @return whether the sheet is rendered
+	 */
+	public boolean isRendered() {
+		return sheet != null;
+	}
+
+	/**
+	 * Draws a Particle whose circle's top is at the given point, like a
+	 * fillOval at (x - radius, y).
+	 * @param gc the GraphicsContext to draw with
+	 * @param colorIndex the Particle's index into the color table
+	 * @param alphaIndex the Particle's alpha level, from
+	 * <code>ColorRamp.getAlphaIndex</code>
+	 * @param x the x-coordinate of the Particle's center
+	 * @param y the y-coordinate of the top of the Particle
+	 */
+	public void draw(GraphicsContext gc, int colorIndex, int alphaIndex,
+			double x, double y) {
+
+		if (sheet == null) {
+			render();
+		}
+
+		gc.drawImage(sheet,
+			alphaIndex * cellSize, colorIndex * cellSize, cellSize, cellSize,
+			x - radius - PADDING, y - PADDING, cellSize, cellSize);
+
+	}
+
+	/**
+	 * Renders every cell of the sheet.
+	 */
+	private void render() {
+
+		Canvas canvas = new Canvas(ColorRamp.ALPHA_LEVELS * cellSize,
+			colors.length * cellSize);
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+
+		for (int colorIndex = 0; colorIndex < colors.length; colorIndex++) {
+
+			Color [] ramp = ColorRamp.getAlphaRamp(colors[colorIndex]);
+
+			for (int alphaIndex = 0; alphaIndex < ramp.length; alphaIndex++) {
+
+				gc.setFill(ramp[alphaIndex]);
+				gc.fillOval(alphaIndex * cellSize + PADDING,
+					colorIndex * cellSize + PADDING, radius * 2, radius * 2);
+
+			}
+
+		}
+
+		SnapshotParameters snapshotParameters = new SnapshotParameters();
+		snapshotParameters.setFill(Color.TRANSPARENT);
+		sheet = canvas.snapshot(snapshotParameters, null);
+
+	}
+
+}
@@ -0,0 +1,26 @@
+package render;
+import javafx.scene.canvas.GraphicsContext;
+
+import util.Viewport;
+
+/**
+ * An interface for classes that draw one kind of simulation object on a
+ * Canvas. The simulation objects only hold state, so they can be ticked
+ * without JavaFX, and everything about how they look lives in their
+ * Renderer.
+ * @param <T> the type of object drawn
+ */
+public interface Renderer<T> {
+
+	/**
+	 * Draws an object at a position between its position before and after
+	 * the last tick, skipping whatever is outside the Viewport.
+	 * @param gc the GraphicsContext of the Canvas to draw on
+	 * @param object the object to draw
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @param viewport the part of the World that is visible, or null to draw
+	 * everything
+	 */
+	void draw(GraphicsContext gc, T object, double alpha, Viewport viewport);
+
+}
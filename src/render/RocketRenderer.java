@@ -0,0 +1,241 @@
+package render;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.ArcType;
+
+import design.ColorPalette;
+import rocket.ParticleEmitter;
+import rocket.Rocket;
+import rocket.RocketEngine;
+import util.Viewport;
+
+/**
+ * A class that draws Rockets: the exhaust Particles of their engines and
+ * RCS thrusters through a ParticleRenderer, and their bodies as sprites of
+ * a RocketSpriteAtlas.
+ */
+public class RocketRenderer implements Renderer<Rocket> {
+
+	private ParticleRenderer particleRenderer;
+
+	/**
+	 * Creates a RocketRenderer that draws exhaust with its own
+	 * ParticleRenderer.
+	 */
+	public RocketRenderer() {
+		this(new ParticleRenderer());
+	}
+
+	/**
+	 * Creates a RocketRenderer that draws exhaust with the given
+	 * ParticleRenderer.
+	 * @param particleRenderer the ParticleRenderer to draw exhaust with
+	 */
+	public RocketRenderer(ParticleRenderer particleRenderer) {
+		this.particleRenderer = particleRenderer;
+	}
+
+	/**
+	 * Gets the ParticleRenderer that Rockets' exhaust is drawn with.
+	 * @return the ParticleRenderer
+	 */
+	public ParticleRenderer getParticleRenderer() {
+		return particleRenderer;
+	}
+
+	/**
+	 * Pivots the GraphicsContext around the center of a Rocket whose top is
+	 * at the given point, so that the Rocket can be drawn at an angle. This
+	 * transform should be reversed (with a save() and restore()) before
+	 * objects that should be drawn normally on the Canvas are drawn.
+	 * @param gc the GraphicsContext to rotate
+	 * @param rocket the Rocket to be drawn
+	 * @param x the middle x coordinate of the Rocket
+	 * @param y the top y coordinate of the Rocket
+	 */
+	public static void rotateGraphicsContext(GraphicsContext gc, Rocket rocket,
+			double x, double y) {
+
+		double pivotX = x;
+		double pivotY = y + (rocket.getHeight() / 2.0);
+		gc.translate(pivotX, pivotY);
+		gc.rotate(90 - rocket.getDirection());
+		gc.translate(-pivotX, -pivotY);
+
+	}
+
+	/**
+	 * Draws the Rocket's exhaust Particles that are inside the Viewport,
+	 * then its body, as a single prerendered sprite, if any angle of it could
+	 * be.
+	 * @param gc the GraphicsContext of the Canvas to draw the Rocket on
+	 * @param rocket the Rocket to draw
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @param viewport the part of the World that is visible, or null to draw
+	 * everything
+	 */
+	@Override
+	public void draw(GraphicsContext gc, Rocket rocket, double alpha,
+			Viewport viewport) {
+
+		drawExhaust(gc, rocket, alpha, viewport);
+		drawSprite(gc, rocket, alpha, viewport);
+
+	}
+
+	/**
+	 * Draws the exhaust Particles of the Rocket's engines and RCS thrusters
+	 * that are inside the Viewport, each interpolated on its own, without
+	 * the Rocket's body. The Particles are culled on their own, since they
+	 * can be in view when the body isn't. If the ParticleRenderer has a
+	 * ParticleRasterizer, they are only queued in it.
+	 * @param gc the GraphicsContext of the Canvas to draw the exhaust on
+	 * @param rocket the Rocket whose exhaust is drawn
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @param viewport the part of the World that is visible, or null to draw
+	 * every Particle
+	 */
+	public void drawExhaust(GraphicsContext gc, Rocket rocket, double alpha,
+			Viewport viewport) {
+
+		gc.save();
+
+		rotateGraphicsContext(gc, rocket, rocket.getInterpolatedX(alpha),
+				rocket.getInterpolatedY(alpha));
+
+		// Particles move on their own, so they are interpolated separately
+		for (RocketEngine engine : rocket.getEngines()) {
+
+			particleRenderer.draw(gc, engine.getEmitter(), alpha, viewport);
+
+		}
+
+		for (ParticleEmitter thruster : rocket.getRCSThrusters()) {
+
+			particleRenderer.draw(gc, thruster, alpha, viewport);
+
+		}
+
+		gc.restore();
+
+	}
+
+	/**
+	 * Draws the Rocket's body at its interpolated position as a single
+	 * sprite of its RocketSpriteAtlas, without its exhaust, unless no angle
+	 * of it could be inside the Viewport.
+	 * @param gc the GraphicsContext of the Canvas to draw the body on
+	 * @param rocket the Rocket whose body is drawn
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @param viewport the part of the World that is visible, or null to
+	 * always draw the body
+	 */
+	public void drawSprite(GraphicsContext gc, Rocket rocket, double alpha,
+			Viewport viewport) {
+
+		// The body fits in a circle around its center at any angle
+		double drawX = rocket.getInterpolatedX(alpha);
+		double centerY = rocket.getInterpolatedY(alpha) + rocket.getHeight() / 2;
+		double radius = Math.hypot(rocket.getWidth(), rocket.getHeight()) / 2;
+
+		if (viewport != null && !viewport.intersects(drawX - radius,
+				centerY - radius, drawX + radius, centerY + radius)) {
+
+			viewport.countCulledEntity();
+			return;
+
+		}
+
+		// The body is a prerendered sprite, already rotated
+		RocketSpriteAtlas.getAtlas(rocket).draw(gc, rocket.getDirection(),
+				drawX, centerY);
+
+	}
+
+	/**
+	 * Draws the Rocket's body, with its engines and RCS thrusters, pointing
+	 * straight up at its current position. The body is rendered through a
+	 * RocketSpriteAtlas, so this is only called to render new sprites.
+	 * @param gc the GraphicsContext of the Canvas to draw the Rocket on
+	 * @param rocket the Rocket to draw
+	 */
+	public static void drawBody(GraphicsContext gc, Rocket rocket) {
+
+		for (RocketEngine engine : rocket.getEngines()) {
+
+			drawEngine(gc, engine);
+
+		}
+
+		for (ParticleEmitter thruster : rocket.getRCSThrusters()) {
+
+			ParticleRenderer.drawBody(gc, thruster);
+
+		}
+
+		gc.setFill(ColorPalette.toColor(rocket.getColor()));
+
+		// Rocket nose cone
+		gc.fillArc(rocket.getX() - rocket.getCenterTankWidth() / 2,
+				rocket.getY(), rocket.getCenterTankWidth(),
+				rocket.getNoseConeHeight() * 2, 0, 180, ArcType.ROUND);
+
+		// Center tank
+		gc.fillRect(rocket.getX() - rocket.getCenterTankWidth() / 2,
+				rocket.getY() + rocket.getNoseConeHeight(),
+				rocket.getCenterTankWidth(), rocket.getCenterTankHeight());
+
+		drawFins(gc, rocket);
+
+	}
+
+	/**
+	 * Draws a RocketEngine and its ParticleEmitter, without the emitted
+	 * Particles.
+	 * @param gc the GraphicsContext of the Canvas to draw on
+	 * @param engine the RocketEngine to draw
+	 */
+	private static void drawEngine(GraphicsContext gc, RocketEngine engine) {
+
+		ParticleRenderer.drawBody(gc, engine.getEmitter());
+
+		gc.setFill(ColorPalette.toColor(engine.getColor()));
+		gc.fillArc(engine.getX() - engine.getWidth() / 2, engine.getY(),
+				engine.getWidth(), engine.getHeight() * 2, 0, 180, ArcType.ROUND);
+
+	}
+
+	/**
+	 * Draws Rocket's fins at the bottom of its center tank.
+	 * @param gc the GraphicsContext of the Canvas to draw the Rocket on
+	 * @param rocket the Rocket whose fins are drawn
+	 */
+	private static void drawFins(GraphicsContext gc, Rocket rocket) {
+
+		double [] fin1xPoints = new double[] {
+				rocket.getX() - rocket.getCenterTankWidth() / 2,
+				rocket.getX() - rocket.getCenterTankWidth() / 2,
+				rocket.getX() - rocket.getWidth() / 2
+		};
+
+		double [] fin2xPoints = new double[] {
+				rocket.getX() + rocket.getCenterTankWidth() / 2,
+				rocket.getX() + rocket.getCenterTankWidth() / 2,
+				rocket.getX() + rocket.getWidth() / 2
+		};
+
+		double finStartY = rocket.getY() + rocket.getNoseConeHeight() +
+				rocket.getCenterTankHeight() - rocket.getFinHeight();
+		double [] finyPoints = new double[] {
+				finStartY,
+				finStartY + rocket.getFinHeight(),
+				finStartY + rocket.getFinHeight()
+		};
+
+		gc.setFill(Color.BLUE);
+		gc.fillPolygon(fin1xPoints, finyPoints, finyPoints.length);
+		gc.fillPolygon(fin2xPoints, finyPoints, finyPoints.length);
+
+	}
+
+}
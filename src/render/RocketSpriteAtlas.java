@@ -0,0 +1,209 @@
+package render;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import rocket.Rocket;
+
+/**
+ * A class that caches a Rocket's body, prerendered at evenly spaced angles,
+ * in an atlas of sprite images. Drawing a Rocket at any angle becomes a
+ * single drawImage call of the sprite for the nearest angle, instead of
+ * transforming the GraphicsContext and drawing each part of the body.
+ * <p>
+ * Sprites are rendered the first time their angle is drawn. The atlas is
+ * split into pages of sprites, and a page is only allocated once one of its
+ * sprites is needed, so angles that are never drawn cost no memory. Rockets
+ * that look the same share an atlas. The atlas renders from its own copy
+ * of the first Rocket it is given, so it never reads or moves the parts of
+ * a Rocket that is being ticked.
+ * <p>
+ * Sprites must be drawn and rendered on the JavaFX application thread.
+ */
+public class RocketSpriteAtlas {
+
+	public static final int DEFAULT_ANGLE_BUCKETS = 360;
+
+	private static final int PAGE_COLUMNS = 6;
+	private static final int PAGE_ROWS = 6;
+	private static final int PADDING = 4; // pixels around each sprite
+
+	private static final Map<List<Object>, RocketSpriteAtlas> atlases =
+		new HashMap<List<Object>, RocketSpriteAtlas>();
+
+	private Rocket rocket;
+	private int angleBuckets;
+	private int cellSize;
+
+	private WritableImage [] pages;
+	private boolean [] rendered;
+	private int spritesRendered = 0;
+
+	private Canvas spriteCanvas;
+	private WritableImage spriteImage;
+	private SnapshotParameters snapshotParameters = new SnapshotParameters();
+
+	/**
+	 * Creates a RocketSpriteAtlas that renders the given Rocket's body at the
+	 * given number of angles. The Rocket is copied, and only the copy is
+	 * rendered from.
+	 * @param rocket the Rocket whose body is rendered
+	 * @param angleBuckets the number of evenly spaced angles to render
+	 */
+	public RocketSpriteAtlas(Rocket rocket, int angleBuckets) {
+
+		this.rocket = rocket.copy();
+		this.angleBuckets = angleBuckets;
+
+		// A sprite must fit the body at any angle around its center
+		double diagonal = Math.hypot(rocket.getWidth(), rocket.getHeight());
+		this.cellSize = (int) Math.ceil(diagonal) + 2 * PADDING;
+
+		int spritesPerPage = PAGE_COLUMNS * PAGE_ROWS;
+		this.pages = new WritableImage[(angleBuckets + spritesPerPage - 1)
+			/ spritesPerPage];
+		this.rendered = new boolean[angleBuckets];
+
+		snapshotParameters.setFill(Color.TRANSPARENT);
+
+	}
+
+	/**
+	 * Gets the shared atlas for Rockets that look like the given Rocket,
+	 * creating it if it doesn't exist. Rockets look the same if they are of
+	 * the same class and have the same dimensions and color.
+	 * @param rocket the Rocket to get an atlas for
+	 * @return the Rocket's atlas
+	 */
+	public static RocketSpriteAtlas getAtlas(Rocket rocket) {
+
+		List<Object> key = Arrays.asList(rocket.getClass(), rocket.getWidth(),
+			rocket.getHeight(), rocket.getColor());
+
+		return atlases.computeIfAbsent(key,
+			k -> new RocketSpriteAtlas(rocket, DEFAULT_ANGLE_BUCKETS));
+
+	}
+
+	/**
+	 * Gets the number of evenly spaced angles the body is rendered at.
+	 * @return the angle bucket count
+	 */
+	public int getAngleBuckets() {
+		return angleBuckets;
+	}
+
+	/**
+	 * Gets the width and height, in pixels, of each sprite.
+	 * @return the sprite size
+	 */
+	public int getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Gets the number of sprites that have been rendered.
+	 * @return the rendered sprite count
+	 */
+	public int getSpritesRendered() {
+		return spritesRendered;
+	}
+
+	/**
+	 * Gets the angle bucket closest to a direction.
+	 * @param direction the direction, in degrees
+	 * @return the index of the nearest angle bucket
+	 */
+	public int getBucket(double direction) {
+
+		double bucketsPerDegree = angleBuckets / 360.0;
+		long bucket = Math.round(direction * bucketsPerDegree);
+		return (int) Math.floorMod(bucket, (long) angleBuckets);
+
+	}
+
+	/**
+	 * Draws the body, pointing in the given direction, centered on the given
+	 * point.
+	 * @param gc the GraphicsContext to draw with
+	 * @param direction the direction the body points in, in degrees
+	 * @param centerX the x-coordinate of the body's center
+	 * @param centerY the y-coordinate of the body's center
+	 */
+	public void draw(GraphicsContext gc, double direction, double centerX,
+			double centerY) {
+
+		int bucket = getBucket(direction);
+
+		if (!rendered[bucket]) {
+			renderSprite(bucket);
+		}
+
+		int spritesPerPage = PAGE_COLUMNS * PAGE_ROWS;
+		int cell = bucket % spritesPerPage;
+		double half = cellSize / 2.0;
+
+		gc.drawImage(pages[bucket / spritesPerPage],
+			(cell % PAGE_COLUMNS) * cellSize, (cell / PAGE_COLUMNS) * cellSize,
+			cellSize, cellSize,
+			centerX - half, centerY - half, cellSize, cellSize);
+
+	}
+
+	/**
+	 * Renders the body at a bucket's angle and copies it into its page of
+	 * the atlas, allocating the page if it doesn't exist yet.
+	 * @param bucket the index of the angle bucket to render
+	 */
+	private void renderSprite(int bucket) {
+
+		if (spriteCanvas == null) {
+
+			spriteCanvas = new Canvas(cellSize, cellSize);
+			spriteImage = new WritableImage(cellSize, cellSize);
+
+		}
+
+		GraphicsContext gc = spriteCanvas.getGraphicsContext2D();
+		double direction = bucket * 360.0 / angleBuckets;
+		double half = cellSize / 2.0;
+
+		// Only the private copy is moved, never a Rocket that is ticked
+		rocket.alignParts();
+
+		gc.clearRect(0, 0, cellSize, cellSize);
+		gc.save();
+		gc.translate(half, half);
+		gc.rotate(90 - direction);
+		gc.translate(-rocket.getX(), -(rocket.getY() + rocket.getHeight() / 2));
+		RocketRenderer.drawBody(gc, rocket);
+		gc.restore();
+
+		spriteCanvas.snapshot(snapshotParameters, spriteImage);
+
+		int spritesPerPage = PAGE_COLUMNS * PAGE_ROWS;
+		int page = bucket / spritesPerPage;
+		int cell = bucket % spritesPerPage;
+
+		if (pages[page] == null) {
+			pages[page] = new WritableImage(PAGE_COLUMNS * cellSize,
+				PAGE_ROWS * cellSize);
+		}
+
+		pages[page].getPixelWriter().setPixels(
+			(cell % PAGE_COLUMNS) * cellSize, (cell / PAGE_COLUMNS) * cellSize,
+			cellSize, cellSize, spriteImage.getPixelReader(), 0, 0);
+
+		rendered[bucket] = true;
+		spritesRendered++;
+
+	}
+
+}
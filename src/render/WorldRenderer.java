@@ -0,0 +1,333 @@
+package render;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Affine;
+
+import design.ColorPalette;
+import rocket.Rocket;
+import util.Entity;
+import util.Viewport;
+import world.MountainManager;
+import world.World;
+
+/**
+ * A class that draws a World from its camera's point of view: the sky and
+ * mountains from prerendered BackgroundTiles, then the World's Rockets
+ * through a RocketRenderer, then the ground over them. The World itself holds no drawing state, so
+ * everything about how it looks, from the color palette to the cache of
+ * prerendered tiles, lives here.
+ */
+public class WorldRenderer {
+
+	private World world;
+	private ColorPalette palette;
+	private BackgroundTiles backgroundTiles = new BackgroundTiles(this);
+	private RocketRenderer rocketRenderer = new RocketRenderer();
+
+	public static final int DEFAULT_PARTICLE_RASTER_THRESHOLD = 2048;
+	private int particleRasterThreshold = DEFAULT_PARTICLE_RASTER_THRESHOLD;
+	private ParticleRasterizer particleRasterizer;
+	private Viewport viewport = new Viewport();
+
+	// Reused between frames so drawing the mountains allocates nothing
+	private Color lastMountainColor;
+	private Color mountainStrokeColor;
+
+	/**
+	 * Creates a WorldRenderer that draws a World with a given color palette.
+	 * @param world the World to draw
+	 * @param palette the color palette to use when drawing the World and its
+	 * objects
+	 */
+	public WorldRenderer(World world, ColorPalette palette) {
+
+		this.world = world;
+		this.palette = palette;
+
+	}
+
+	/**
+	 * Gets the World that is drawn.
+	 * @return the WorldRenderer's World
+	 */
+	public World getWorld() {
+		return world;
+	}
+
+	/**
+	 * Gets the color palette to use when drawing the World's objects
+	 * @return the World's color palette
+	 */
+	public ColorPalette getPalette() {
+		return this.palette;
+	}
+
+	/**
+	 * Sets the color palette to use when drawing the World's objects
+	 * @param palette the World's color palette
+	 */
+	public void setPalette(ColorPalette palette) {
+		this.palette = palette;
+		getBackgroundTiles().invalidate();
+	}
+
+	/**
+	 * Gets the cache of prerendered tiles that the sky and mountains are
+	 * drawn from.
+	 * @return the World's BackgroundTiles
+	 */
+	public BackgroundTiles getBackgroundTiles() {
+		return backgroundTiles;
+	}
+
+	/**
+	 * Gets the RocketRenderer that the World's Rockets are drawn with.
+	 * @return the RocketRenderer
+	 */
+	public RocketRenderer getRocketRenderer() {
+		return rocketRenderer;
+	}
+
+	/**
+	 * Gets the number of live exhaust Particles at which Particles are drawn
+	 * by the software ParticleRasterizer instead of as sprites.
+	 * @return the Particle raster threshold
+	 */
+	public int getParticleRasterThreshold() {
+		return particleRasterThreshold;
+	}
+
+	/**
+	 * Sets the number of live exhaust Particles at which Particles are drawn
+	 * by the software ParticleRasterizer instead of as sprites.
+	 * <code>Integer.MAX_VALUE</code> always draws them as sprites, and 0
+	 * always rasterizes them.
+	 * @param particleRasterThreshold the new Particle raster threshold
+	 */
+	public void setParticleRasterThreshold(int particleRasterThreshold) {
+		this.particleRasterThreshold = particleRasterThreshold;
+	}
+
+	/**
+	 * Gets the ParticleRasterizer used once there are enough Particles, or
+	 * null if Particles have never been rasterized.
+	 * @return the ParticleRasterizer
+	 */
+	public ParticleRasterizer getParticleRasterizer() {
+		return particleRasterizer;
+	}
+
+	/**
+	 * Gets the Viewport of the last frame drawn, which reports how many
+	 * Rockets, emitters and Particles were culled because they were out of
+	 * the camera's view.
+	 * @return the last frame's Viewport
+	 */
+	public Viewport getViewport() {
+		return viewport;
+	}
+
+	/**
+	 * Draws the ground level with color filled below it
+	 * @param gc The GraphicsContext for the Canvas to draw the ground on
+	 */
+	public void drawGround(GraphicsContext gc) {
+
+		gc.setFill(getPalette().getGroundColor());
+		double leftX = -gc.getTransform().getTx();
+		double topY = world.getWindowHeight() - world.getGroundHeight();
+		// Stretch the ground rectangle to the bottom of the screen
+		double height = topY + world.getGroundHeight() - gc.getTransform().getTy();
+		gc.fillRect(leftX, topY, world.getWindowWidth(), height);
+
+	}
+
+	/**
+	 * Draws the sky, mountains, and ground in the given area of the World,
+	 * without relying on the GraphicsContext's transform. This is used to
+	 * render the background tiles.
+	 * @param gc the GraphicsContext to draw the background with
+	 * @param leftX the left x-coordinate of the area to draw
+	 * @param topY the top y-coordinate of the area to draw
+	 * @param width the width of the area to draw
+	 * @param height the height of the area to draw
+	 */
+	public void drawBackground(GraphicsContext gc, double leftX, double topY,
+			double width, double height) {
+
+		gc.setFill(getPalette().getSkyColor());
+		gc.fillRect(leftX, topY, width, height);
+
+		drawMountains(gc, leftX, leftX + width);
+
+		if (topY + height > world.getGroundY()) {
+
+			gc.setFill(getPalette().getGroundColor());
+			gc.fillRect(leftX, world.getGroundY(), width,
+					topY + height - world.getGroundY());
+
+		}
+
+	}
+
+	/**
+	 * Draws the mountains between two x-coordinates, plus one vertex past
+	 * each side, as a single filled polygon, closed along the ground, and a
+	 * single outline. Any part of the mountain range can be drawn, not just
+	 * the part near the Canvas.
+	 * @param gc the GraphicsContext to use when drawing the mountains
+	 * @param leftX the left x-coordinate of the area to draw
+	 * @param rightX the right x-coordinate of the area to draw
+	 */
+	public void drawMountains(GraphicsContext gc, double leftX, double rightX) {
+
+		MountainManager mountains = world.getMountainManager();
+		int vertexCount = mountains.computeSkyline(leftX, rightX);
+		double [] skylineX = mountains.getSkylineX();
+		double [] skylineY = mountains.getSkylineY();
+
+		skylineX[vertexCount] = skylineX[vertexCount - 1];
+		skylineY[vertexCount] = mountains.getGroundY();
+		skylineX[vertexCount + 1] = skylineX[0];
+		skylineY[vertexCount + 1] = mountains.getGroundY();
+
+		gc.setFill(getPalette().getMountainColor());
+		gc.fillPolygon(skylineX, skylineY, vertexCount + 2);
+
+		gc.setStroke(getMountainStrokeColor());
+		gc.setLineWidth(MountainManager.OUTLINE_WIDTH);
+		gc.strokePolyline(skylineX, skylineY, vertexCount);
+
+	}
+
+	/**
+	 * Gets the darker Color used to outline the mountains, only recomputing
+	 * it when the palette's mountain color changes.
+	 * @return the mountain outline Color
+	 */
+	private Color getMountainStrokeColor() {
+
+		Color mountainColor = getPalette().getMountainColor();
+
+		if (mountainColor != lastMountainColor) {
+
+			lastMountainColor = mountainColor;
+			mountainStrokeColor = mountainColor.darker();
+
+		}
+
+		return mountainStrokeColor;
+
+	}
+
+	/**
+	 * Translates the given GraphicsContext so that the camera's view of the
+	 * World, which follows the primary Rocket if the World says so, starts
+	 * at the top left of the Canvas.
+	 * @param gc the GraphicsContext to translate
+	 */
+	public void alignGraphicsContext(GraphicsContext gc) {
+
+		gc.translate(-world.getViewLeftX() - gc.getTransform().getTx(),
+				-world.getViewTopY() - gc.getTransform().getTy());
+
+	}
+
+	/**
+	 * Draws the World's static background, the sky and mountains, from the
+	 * camera's point of view. This only has to be redrawn when the camera
+	 * moves or the palette changes.
+	 * @param gc the GraphicsContext for the Canvas to draw the background on
+	 */
+	public void drawBackgroundLayer(GraphicsContext gc) {
+
+		alignGraphicsContext(gc);
+
+		getBackgroundTiles().draw(gc, -gc.getTransform().getTx(),
+				-gc.getTransform().getTy(), world.getWindowWidth(),
+				world.getWindowHeight());
+
+	}
+
+	/**
+	 * Draws the World's objects, and the ground over them so that it hides
+	 * anything below ground level, from the camera's point of view, skipping
+	 * whatever is outside the camera's view. Every Rocket's exhaust is drawn
+	 * before any Rocket's body, so the exhaust stays under the bodies whether
+	 * it is drawn as sprites or rasterized. This should be drawn on a
+	 * transparent Canvas stacked over the background.
+	 * @param gc the GraphicsContext for the Canvas to draw the objects on
+	 */
+	public void drawObjectLayer(GraphicsContext gc) {
+
+		alignGraphicsContext(gc);
+
+		double alpha = world.getInterpolationAlpha();
+
+		// The camera's view is worked out once, then everything is culled by it
+		Affine camera = gc.getTransform();
+		viewport.set(-camera.getTx(), -camera.getTy(),
+				gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
+
+		/*
+			Past the threshold, Particles are queued while the exhaust is
+			drawn, then rasterized and drawn all at once under the bodies
+		*/
+		ParticleRasterizer rasterizer = null;
+
+		if (world.getLiveParticleCount() >= getParticleRasterThreshold()) {
+
+			int width = (int) Math.ceil(gc.getCanvas().getWidth());
+			int height = (int) Math.ceil(gc.getCanvas().getHeight());
+
+			if (particleRasterizer == null) {
+				particleRasterizer = new ParticleRasterizer(width, height);
+			}
+
+			particleRasterizer.setSize(width, height);
+			rasterizer = particleRasterizer;
+
+		}
+
+		rocketRenderer.getParticleRenderer().setRasterizer(rasterizer);
+
+		for (Entity entity : world.getObjects()) {
+
+			if (entity instanceof Rocket) {
+				rocketRenderer.drawExhaust(gc, (Rocket) entity, alpha,
+						viewport);
+			}
+
+		}
+
+		if (rasterizer != null) {
+			rasterizer.render(gc);
+		}
+
+		for (Entity entity : world.getObjects()) {
+
+			if (entity instanceof Rocket) {
+				rocketRenderer.drawSprite(gc, (Rocket) entity, alpha,
+						viewport);
+			}
+
+		}
+
+		drawGround(gc);
+
+	}
+
+	/**
+	 * Draws the World and all its child objects on the Canvas. The sky and
+	 * mountains come from prerendered tiles, while the ground is drawn over
+	 * the objects so that it hides anything below ground level.
+	 * @param gc the GraphicsContext for the Canvas to draw the objects on
+	 */
+	public void draw(GraphicsContext gc) {
+
+		drawBackgroundLayer(gc);
+		drawObjectLayer(gc);
+
+	}
+
+}
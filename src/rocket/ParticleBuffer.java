@@ -0,0 +1,602 @@
+package rocket;
+import java.util.Arrays;
+
+import util.StateBuffer;
+
+/**
+ * A class that stores the state of many exhaust particles in parallel arrays
+ * of primitives instead of one object per particle. Dead particles are
+ * removed by moving the last particle into their slot, so the live particles
+ * always occupy indices 0 to size - 1 in no particular order.
+ * <p>
+ * The arrays act as a pool: slots freed by dead particles are reused by new
+ * ones, and the arrays only grow until they reach the max capacity. After 
+ * that, the overflow policy decides what happens to new particles, so a long
+ * burn settles at a fixed amount of memory with no allocation.
+ */
+public class ParticleBuffer {
+	
+	/**
+	 * What a full ParticleBuffer does with a new particle.
+	 */
+	public enum OverflowPolicy {
+		/** Replace the particle with the least lifetime left */
+		DROP_OLDEST, 
+		/** Discard the new particle */
+		REFUSE_NEW
+	}
+
+	private double [] x;
+	private double [] y;
+	private double [] previousX;
+	private double [] previousY;
+	private double [] xVelocity;
+	private double [] yVelocity;
+	private double [] lifetime;
+	private double [] opacity;
+	private int [] colorIndex;
+
+	private int size = 0;
+	
+	private int maxCapacity;
+	private OverflowPolicy overflowPolicy;
+	
+	// Bounds of every particle's current and previous position
+	private double minX = Double.POSITIVE_INFINITY;
+	private double minY = Double.POSITIVE_INFINITY;
+	private double maxX = Double.NEGATIVE_INFINITY;
+	private double maxY = Double.NEGATIVE_INFINITY;
+
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long overflowCount = 0;
+
+	/**
+	 * Creates a ParticleBuffer with room for the given number of particles
+	 * before its arrays have to grow, that grows without limit.
+	 * @param initialCapacity the number of particles to allocate space for
+	 */
+	public ParticleBuffer(int initialCapacity) {
+		
+		this(initialCapacity, Integer.MAX_VALUE, OverflowPolicy.DROP_OLDEST);
+		
+	}
+
+	/**
+	 * Creates a ParticleBuffer with room for the given number of particles
+	 * before its arrays have to grow, which never holds more than the max
+	 * capacity.
+	 * @param initialCapacity the number of particles to allocate space for
+	 * @param maxCapacity the most particles the buffer can hold
+	 * @param overflowPolicy what to do with new particles when the buffer 
+	 * holds its max capacity
+	 */
+	public ParticleBuffer(int initialCapacity, int maxCapacity, 
+			OverflowPolicy overflowPolicy) {
+		
+		this.maxCapacity = maxCapacity;
+		this.overflowPolicy = overflowPolicy;
+		initialCapacity = Math.min(initialCapacity, maxCapacity);
+
+		x = new double[initialCapacity];
+		y = new double[initialCapacity];
+		previousX = new double[initialCapacity];
+		previousY = new double[initialCapacity];
+		xVelocity = new double[initialCapacity];
+		yVelocity = new double[initialCapacity];
+		lifetime = new double[initialCapacity];
+		opacity = new double[initialCapacity];
+		colorIndex = new int[initialCapacity];
+
+	}
+
+	/**
+	 * Gets the number of live particles.
+	 * @return the particle count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of particles the buffer can hold before it grows.
+	 * @return the allocated capacity
+	 */
+	public int capacity() {
+		return x.length;
+	}
+
+	/**
+	 * Gets the most particles the buffer can hold.
+	 * @return the max capacity
+	 */
+	public int getMaxCapacity() {
+		return maxCapacity;
+	}
+
+	/**
+	 * Sets the most particles the buffer can hold. If the buffer holds more
+	 * particles than the new max capacity, the extra ones are removed.
+	 * @param maxCapacity the new max capacity
+	 */
+	public void setMaxCapacity(int maxCapacity) {
+		
+		this.maxCapacity = maxCapacity;
+		
+		if (capacity() > maxCapacity) {
+			
+			size = Math.min(size, maxCapacity);
+			resize(maxCapacity);
+			
+		}
+		
+	}
+
+	/**
+	 * Gets what the buffer does with new particles when it is full.
+	 * @return the overflow policy
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Sets what the buffer does with new particles when it is full.
+	 * @param overflowPolicy the new overflow policy
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Gets the number of particles that were added to a slot that was
+	 * already allocated.
+	 * @return the pool hit count
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Gets the number of particles that could not be added to an allocated,
+	 * free slot, because the arrays had to grow or the buffer was full.
+	 * @return the pool miss count
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Gets the number of particles that were added while the buffer was 
+	 * full, and so were handled by the overflow policy.
+	 * @return the overflow count
+	 */
+	public long getOverflowCount() {
+		return overflowCount;
+	}
+
+	/**
+	 * Sets the hit, miss, and overflow counts back to 0.
+	 */
+	public void resetCounters() {
+		
+		hitCount = 0;
+		missCount = 0;
+		overflowCount = 0;
+		
+	}
+
+	/**
+	 * Gets the middle x coordinate of a particle.
+	 * @param i the particle's index
+	 * @return the particle's x
+	 */
+	public double getX(int i) {
+		return x[i];
+	}
+
+	/**
+	 * Gets the top y coordinate of a particle.
+	 * @param i the particle's index
+	 * @return the particle's y
+	 */
+	public double getY(int i) {
+		return y[i];
+	}
+
+	/**
+	 * Gets the x component of a particle's velocity.
+	 * @param i the particle's index
+	 * @return the particle's x velocity
+	 */
+	public double getXVelocity(int i) {
+		return xVelocity[i];
+	}
+
+	/**
+	 * Gets the y component of a particle's velocity.
+	 * @param i the particle's index
+	 * @return the particle's y velocity
+	 */
+	public double getYVelocity(int i) {
+		return yVelocity[i];
+	}
+
+	/**
+	 * Gets the time, in seconds, a particle has left to live.
+	 * @param i the particle's index
+	 * @return the particle's lifetime left
+	 */
+	public double getLifetime(int i) {
+		return lifetime[i];
+	}
+
+	/**
+	 * Gets a particle's opacity, from 0 to 1.
+	 * @param i the particle's index
+	 * @return the particle's opacity
+	 */
+	public double getOpacity(int i) {
+		return opacity[i];
+	}
+
+	/**
+	 * Gets the index of a particle's color in its emitter's color table.
+	 * @param i the particle's index
+	 * @return the particle's color index
+	 */
+	public int getColorIndex(int i) {
+		return colorIndex[i];
+	}
+
+	/**
+	 * Gets a particle's x coordinate between its position before and after
+	 * the last tick.
+	 * @param i the particle's index
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @return the interpolated x coordinate
+	 */
+	public double getInterpolatedX(int i, double alpha) {
+		return previousX[i] + (x[i] - previousX[i]) * alpha;
+	}
+
+	/**
+	 * Gets a particle's y coordinate between its position before and after
+	 * the last tick.
+	 * @param i the particle's index
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @return the interpolated y coordinate
+	 */
+	public double getInterpolatedY(int i, double alpha) {
+		return previousY[i] + (y[i] - previousY[i]) * alpha;
+	}
+
+	/**
+	 * Gets the smallest x coordinate any particle is drawn at, between its
+	 * position before and after the last tick.
+	 * @return the left edge of the particles' bounds
+	 */
+	public double getMinX() {
+		return minX;
+	}
+
+	/**
+	 * Gets the smallest y coordinate any particle is drawn at, between its
+	 * position before and after the last tick.
+	 * @return the top edge of the particles' bounds
+	 */
+	public double getMinY() {
+		return minY;
+	}
+
+	/**
+	 * Gets the largest x coordinate any particle is drawn at, between its
+	 * position before and after the last tick.
+	 * @return the right edge of the particles' bounds
+	 */
+	public double getMaxX() {
+		return maxX;
+	}
+
+	/**
+	 * Gets the largest y coordinate any particle is drawn at, between its
+	 * position before and after the last tick.
+	 * @return the bottom edge of the particles' bounds
+	 */
+	public double getMaxY() {
+		return maxY;
+	}
+
+	/**
+	 * Records every particle's current position as its previous position.
+	 * This should be called once per step, before the particles are ticked.
+	 */
+	public void savePreviousPositions() {
+
+		System.arraycopy(x, 0, previousX, 0, size);
+		System.arraycopy(y, 0, previousY, 0, size);
+
+	}
+
+	/**
+	 * Adds a fully opaque particle to the buffer. If there is no free slot, 
+	 * the arrays grow, or once they have reached the max capacity, the
+	 * overflow policy is applied. The particle's previous position is its
+	 * starting position.
+	 * @param x the particle's middle x coordinate
+	 * @param y the particle's top y coordinate
+	 * @param xVelocity the x component of the particle's velocity
+	 * @param yVelocity the y component of the particle's velocity
+	 * @param lifetime the time, in seconds, the particle should live for
+	 * @param colorIndex the index of the particle's color
+	 * @return true if the particle was added, false if it was refused
+	 */
+	public boolean add(double x, double y, double xVelocity, double yVelocity,
+			double lifetime, int colorIndex) {
+
+		int slot = size;
+		
+		if (size < capacity()) {
+			
+			hitCount++;
+			size++;
+			
+		} else if (capacity() < getMaxCapacity()) {
+			
+			missCount++;
+			resize((int) Math.min((long) getMaxCapacity(), 
+					Math.max(1L, capacity() * 2L)));
+			size++;
+			
+		} else {
+			
+			missCount++;
+			overflowCount++;
+			
+			if (getOverflowPolicy() == OverflowPolicy.REFUSE_NEW || size == 0) {
+				return false;
+			}
+			
+			slot = findOldest();
+			
+		}
+
+		this.x[slot] = x;
+		this.y[slot] = y;
+		this.previousX[slot] = x;
+		this.previousY[slot] = y;
+		this.xVelocity[slot] = xVelocity;
+		this.yVelocity[slot] = yVelocity;
+		this.lifetime[slot] = lifetime;
+		this.opacity[slot] = 1;
+		this.colorIndex[slot] = colorIndex;
+		includeInBounds(slot);
+		return true;
+
+	}
+
+	/**
+	 * Finds the particle with the least lifetime left.
+	 * @return the index of the oldest particle
+	 */
+	private int findOldest() {
+		
+		int oldest = 0;
+		
+		for (int i = 1; i < size; i++) {
+			
+			if (lifetime[i] < lifetime[oldest]) {
+				oldest = i;
+			}
+			
+		}
+		
+		return oldest;
+		
+	}
+
+	/**
+	 * Removes a particle by moving the last particle into its slot.
+	 * @param i the index of the particle to remove
+	 */
+	public void remove(int i) {
+
+		int last = size - 1;
+
+		x[i] = x[last];
+		y[i] = y[last];
+		previousX[i] = previousX[last];
+		previousY[i] = previousY[last];
+		xVelocity[i] = xVelocity[last];
+		yVelocity[i] = yVelocity[last];
+		lifetime[i] = lifetime[last];
+		opacity[i] = opacity[last];
+		colorIndex[i] = colorIndex[last];
+		size--;
+
+	}
+
+	/**
+	 * Makes this buffer hold a copy of every particle in another buffer,
+	 * along with their previous positions and bounds. The arrays only grow
+	 * if the other buffer has more particles than they can hold.
+	 * @param other the buffer to copy the particles of
+	 */
+	public void copyFrom(ParticleBuffer other) {
+
+		if (other.size > capacity()) {
+			resize(other.size);
+		}
+
+		System.arraycopy(other.x, 0, x, 0, other.size);
+		System.arraycopy(other.y, 0, y, 0, other.size);
+		System.arraycopy(other.previousX, 0, previousX, 0, other.size);
+		System.arraycopy(other.previousY, 0, previousY, 0, other.size);
+		System.arraycopy(other.xVelocity, 0, xVelocity, 0, other.size);
+		System.arraycopy(other.yVelocity, 0, yVelocity, 0, other.size);
+		System.arraycopy(other.lifetime, 0, lifetime, 0, other.size);
+		System.arraycopy(other.opacity, 0, opacity, 0, other.size);
+		System.arraycopy(other.colorIndex, 0, colorIndex, 0, other.size);
+		size = other.size;
+
+		minX = other.minX;
+		minY = other.minY;
+		maxX = other.maxX;
+		maxY = other.maxY;
+
+	}
+
+	/**
+	 * Writes every particle, along with its previous position, and the
+	 * bounds to the end of a StateBuffer.
+	 * @param buffer the StateBuffer to write to
+	 */
+	public void saveState(StateBuffer buffer) {
+
+		buffer.putInt(size);
+		buffer.putDouble(minX);
+		buffer.putDouble(minY);
+		buffer.putDouble(maxX);
+		buffer.putDouble(maxY);
+
+		buffer.putDoubles(x, size);
+		buffer.putDoubles(y, size);
+		buffer.putDoubles(previousX, size);
+		buffer.putDoubles(previousY, size);
+		buffer.putDoubles(xVelocity, size);
+		buffer.putDoubles(yVelocity, size);
+		buffer.putDoubles(lifetime, size);
+		buffer.putDoubles(opacity, size);
+		buffer.putInts(colorIndex, size);
+
+	}
+
+	/**
+	 * Replaces every particle with the ones written by
+	 * <code>saveState()</code>, from the StateBuffer's read position. The
+	 * arrays only grow if there are more particles than they can hold.
+	 * @param buffer the StateBuffer to read from
+	 */
+	public void restoreState(StateBuffer buffer) {
+
+		int savedSize = buffer.getInt();
+
+		if (savedSize > capacity()) {
+			resize(savedSize);
+		}
+
+		size = savedSize;
+		minX = buffer.getDouble();
+		minY = buffer.getDouble();
+		maxX = buffer.getDouble();
+		maxY = buffer.getDouble();
+
+		buffer.getDoubles(x, size);
+		buffer.getDoubles(y, size);
+		buffer.getDoubles(previousX, size);
+		buffer.getDoubles(previousY, size);
+		buffer.getDoubles(xVelocity, size);
+		buffer.getDoubles(yVelocity, size);
+		buffer.getDoubles(lifetime, size);
+		buffer.getDoubles(opacity, size);
+		buffer.getInts(colorIndex, size);
+
+	}
+
+	/**
+	 * Removes every particle.
+	 */
+	public void clear() {
+		size = 0;
+		resetBounds();
+	}
+
+	/**
+	 * Empties the particles' bounds, so they can be grown again particle by
+	 * particle.
+	 */
+	private void resetBounds() {
+
+		minX = Double.POSITIVE_INFINITY;
+		minY = Double.POSITIVE_INFINITY;
+		maxX = Double.NEGATIVE_INFINITY;
+		maxY = Double.NEGATIVE_INFINITY;
+
+	}
+
+	/**
+	 * Grows the particles' bounds to hold a particle's current and previous
+	 * positions.
+	 * @param i the particle's index
+	 */
+	private void includeInBounds(int i) {
+
+		minX = Math.min(minX, Math.min(x[i], previousX[i]));
+		maxX = Math.max(maxX, Math.max(x[i], previousX[i]));
+		minY = Math.min(minY, Math.min(y[i], previousY[i]));
+		maxY = Math.max(maxY, Math.max(y[i], previousY[i]));
+
+	}
+
+	/**
+	 * Changes the length of every array in the buffer.
+	 * @param newCapacity the new length of the arrays
+	 */
+	private void resize(int newCapacity) {
+
+		x = Arrays.copyOf(x, newCapacity);
+		y = Arrays.copyOf(y, newCapacity);
+		previousX = Arrays.copyOf(previousX, newCapacity);
+		previousY = Arrays.copyOf(previousY, newCapacity);
+		xVelocity = Arrays.copyOf(xVelocity, newCapacity);
+		yVelocity = Arrays.copyOf(yVelocity, newCapacity);
+		lifetime = Arrays.copyOf(lifetime, newCapacity);
+		opacity = Arrays.copyOf(opacity, newCapacity);
+		colorIndex = Arrays.copyOf(colorIndex, newCapacity);
+
+	}
+
+	/**
+	 * Fades, ages, and moves every particle, bouncing particles off the
+	 * ground and removing the ones whose lifetime has run out.
+	 * @param timeElapsed the time, in seconds, since the last tick
+	 * @param initialLifetime the lifetime particles had when emitted
+	 * @param groundY the top y coordinate of the ground
+	 */
+	public void tick(double timeElapsed, double initialLifetime,
+			double groundY) {
+
+		resetBounds();
+
+		/*
+			Walk backwards so that the particle swapped into a removed slot
+			has already been updated.
+		*/
+		for (int i = size - 1; i >= 0; i--) {
+
+			// Fade in proportion to the lifetime left
+			opacity[i] *= lifetime[i] / initialLifetime;
+			lifetime[i] -= timeElapsed;
+
+			// Bounce off the ground
+			if (y[i] >= groundY || y[i] + yVelocity[i] * timeElapsed >= groundY) {
+
+				y[i] = groundY;
+				yVelocity[i] = -yVelocity[i];
+
+			}
+
+			x[i] += xVelocity[i] * timeElapsed;
+			y[i] += yVelocity[i] * timeElapsed;
+
+			if (lifetime[i] <= 0) {
+				remove(i);
+			} else {
+				includeInBounds(i);
+			}
+
+		}
+
+	}
+
+}
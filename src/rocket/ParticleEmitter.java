@@ -1,9 +1,8 @@
 package rocket;
-import java.util.Iterator;
-import java.util.LinkedList;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
+import util.ArgbColor;
 import util.Entity;
+import util.RandomStream;
+import util.StateBuffer;
 
 /**
  * A class used to create a Rocket exhaust effect through the creation of
@@ -14,7 +13,13 @@ public class ParticleEmitter extends Entity {
 	private double width = 0; 
 	private double height = 0;
 	
-	LinkedList<Particle> particles = new LinkedList<Particle>();
+	public static final int PARTICLE_COLOR_STEPS = 16;
+	
+	public static final int DEFAULT_PARTICLE_CAPACITY = 4096;
+	
+	private ParticleBuffer particles = new ParticleBuffer(64, 
+			DEFAULT_PARTICLE_CAPACITY, ParticleBuffer.OverflowPolicy.DROP_OLDEST);
+	private double particleLifetime = 5; // seconds
 	private double particleSpawnRate = 0; 
 	private double particleBurstAmount = 10;
 	private double particleLaunchAngle = 0;
@@ -22,39 +27,43 @@ public class ParticleEmitter extends Entity {
 	private double particleRadius = 6;
 	private double initialParticleSpeed = 50;
 	private double timeSinceLastParticleSpawned = particleSpawnRate;
-	private Color [] particleColorRange;
+	private int [] particleColorRange; // packed ARGB
+	private int particleColorCount;
 	private double groundY;
 	
 	private boolean on = false;
+	private boolean particleEffectsEnabled = true;
+	
+	private RandomStream random = new RandomStream();
 	
 	/**
 	 * Creates a ParticleEmitter with the given ground y-coordinate and 
 	 * particle color range.
 	 * @param groundY the ground y-coordinate
-	 * @param particleColorRange a two-dimensional array of Colors representing
+	 * @param particleColorRange an array of two packed ARGB colors representing
 	 * the minimum and maximum RGB values particles can take on, respectively
 	 */
-	public ParticleEmitter(double groundY, Color[] particleColorRange) {
+	public ParticleEmitter(double groundY, int[] particleColorRange) {
 		super();
 		this.groundY = groundY;
-		this.particleColorRange = particleColorRange;
+		setParticleColorRange(particleColorRange);
 	}
 	
 	/**
 	 * Creates a ParticleEmitter with the given ground y-coordinate, particle 
 	 * color range, and x and y offsets.
 	 * @param groundY the ground y-coordinate
-	 * @param particleColorRange a two-dimensional array of Colors representing
+	 * @param particleColorRange an array of two packed ARGB colors representing
 	 * the minimum and maximum RGB values particles can take on, respectively
 	 * @param xOffset the ParticleEmitter's xOffset, used in drawing
 	 * @param yOffset the ParticleEmitter's yOffset, used in drawing
 	 */
-	public ParticleEmitter(double groundY, Color[] particleColorRange, 
+	public ParticleEmitter(double groundY, int[] particleColorRange, 
 			double xOffset, double yOffset) {
 		
-		super(0, 0, Color.RED, xOffset, yOffset);
+		super(0, 0, ArgbColor.RED, xOffset, yOffset);
 		this.groundY = groundY;
-		this.particleColorRange = particleColorRange;
+		setParticleColorRange(particleColorRange);
 		
 	}
 	/**
@@ -64,23 +73,23 @@ public class ParticleEmitter extends Entity {
 	 * @param width the width of the ParticleEmitter
 	 * @param height
 	 * @param groundY the ground y-coordinate
-	 * @param particleColorRange a two-dimensional array of Colors representing
+	 * @param particleColorRange an array of two packed ARGB colors representing
 	 * the minimum and maximum RGB values particles can take on, respectively
 	 * @param xOffset the ParticleEmitter's xOffset, used in drawing
 	 * @param yOffset the ParticleEmitter's yOffset, used in drawing
 	 * @param particleLaunchAngle the direction Particles should be emitted at,
 	 * in degrees
-	 * @param color the ParticleEmitter's color
+	 * @param color the ParticleEmitter's color, as a packed ARGB value
 	 */
 	public ParticleEmitter(double width, double height, double groundY, 
-			Color [] particleColorRange, double xOffset, double yOffset, 
-			double particleLaunchAngle, Color color) {
+			int [] particleColorRange, double xOffset, double yOffset, 
+			double particleLaunchAngle, int color) {
 		
 		super(0, 0, color, xOffset, yOffset);
 		this.groundY = groundY;
 		setWidth(width);
 		setHeight(height);
-		this.particleColorRange = particleColorRange;
+		setParticleColorRange(particleColorRange);
 		this.particleLaunchAngle = particleLaunchAngle;
 		this.particleRadius = 1;
 		this.particleSpreadAngle = 5;
@@ -106,35 +115,98 @@ public class ParticleEmitter extends Entity {
 	}
 
 	/**
-	 * Gets a LinkedList of this ParticleEmitter's emitted Particles.
-	 * @return a list of emitted Particles.
+	 * Returns whether the ParticleEmitter creates Particles while it is on.
+	 * @return whether Particle effects are enabled
+	 */
+	public boolean isParticleEffectsEnabled() {
+		return particleEffectsEnabled;
+	}
+
+	/**
+	 * Sets whether the ParticleEmitter creates Particles while it is on. 
+	 * Turning Particle effects off is useful when the simulation is not drawn.
+	 * @param particleEffectsEnabled whether Particle effects are enabled
+	 */
+	public void setParticleEffectsEnabled(boolean particleEffectsEnabled) {
+		this.particleEffectsEnabled = particleEffectsEnabled;
+	}
+
+	/**
+	 * Gets the stream of random numbers used to pick emitted Particles' 
+	 * angles and colors.
+	 * @return the ParticleEmitter's random stream
+	 */
+	public RandomStream getRandom() {
+		return random;
+	}
+
+	/**
+	 * Sets the stream of random numbers used to pick emitted Particles' 
+	 * angles and colors.
+	 * @param random the ParticleEmitter's new random stream
+	 */
+	public void setRandom(RandomStream random) {
+		this.random = random;
+	}
+
+	/**
+	 * Gets the buffer holding this ParticleEmitter's emitted Particles.
+	 * @return the emitted Particles
 	 */
-	public LinkedList<Particle> getParticles() {
+	public ParticleBuffer getParticles() {
 		return particles;
 	}
 
 	/**
-	 * Sets the list of Particles emitted by this ParticleEmitter.
-	 * @param particles the list of Particles emitted
+	 * Sets the buffer holding this ParticleEmitter's emitted Particles.
+	 * @param particles the emitted Particles
 	 */
-	public void setParticles(LinkedList<Particle> particles) {
+	public void setParticles(ParticleBuffer particles) {
 		this.particles = particles;
 	}
 
 	/**
-	 * Gets the range of Colors that Particles can take on when emitted.
-	 * @return the Particle color range
+	 * Gets the range of colors that Particles can take on when emitted.
+	 * @return the Particle color range, as packed ARGB values
 	 */
-	public Color [] getParticleColorRange() {
+	public int [] getParticleColorRange() {
 		return particleColorRange;
 	}
 
 	/**
-	 * Sets the range of Colors that Particles can take on when emitted.
-	 * @param particleColorRange the new Particle color range
+	 * Sets the range of colors that Particles can take on when emitted, and
+	 * works out how many colors within it Particles pick from.
+	 * @param particleColorRange the new Particle color range, as packed ARGB
+	 * values
 	 */
-	public void setParticleColorRange(Color [] particleColorRange) {
+	public void setParticleColorRange(int [] particleColorRange) {
 		this.particleColorRange = particleColorRange;
+		this.particleColorCount = countParticleColors(particleColorRange);
+	}
+
+	/**
+	 * Gets the number of colors, evenly spread within the color range, that
+	 * Particles' color indices refer to.
+	 * @return the Particle color count
+	 */
+	public int getParticleColorCount() {
+		return particleColorCount;
+	}
+
+	/**
+	 * Gets the time, in seconds, that Particles live for after being emitted.
+	 * @return the Particle lifetime
+	 */
+	public double getParticleLifetime() {
+		return particleLifetime;
+	}
+
+	/**
+	 * Sets the time, in seconds, that Particles live for after being emitted.
+	 * @param particleLifetime the Particle lifetime
+	 */
+	public void setParticleLifetime(double particleLifetime) {
+		this.particleLifetime = particleLifetime;
 	}
 
 	/**
@@ -257,47 +329,51 @@ public class ParticleEmitter extends Entity {
 	}
 	
 	/**
-	 * Gets a random Color within the range of the 
-	 * <code>particleColorRange</code>. If the length of 
-	 * <code>particleColorRange</code> is less than 2, its first element is
-	 * returned.
-	 * @return a random Color within the <code>particleColorRange</code>
+	 * Gets the number of colors evenly spread within a color range that
+	 * Particles pick from. Each RGB component steps from the smaller to the
+	 * larger of the two colors' values. If the range has fewer than 2 
+	 * distinct colors, Particles only take on the first color.
+	 * @param colorRange the minimum and maximum RGB values of the range
+	 * @return the number of colors
 	 */
-	private Color generateRandomParticleColor() {
+	private static int countParticleColors(int [] colorRange) {
 		
-		if (getParticleColorRange().length == 1 || 
-				getParticleColorRange()[0].equals(
-						getParticleColorRange()[1])) {
-			
-			return getParticleColorRange()[0];
-			
-		} else {
-			
-			Color color1 = getParticleColorRange()[0];
-			Color color2 = getParticleColorRange()[1];
-			
-			double lowerR = Math.min(color1.getRed(), color2.getRed());
-			double upperR = Math.max(color1.getRed(), color2.getRed());
-			
-			double lowerG = Math.min(color1.getGreen(), color2.getGreen());
-			double upperG = Math.max(color1.getGreen(), color2.getGreen());
-			
-			double lowerB = Math.min(color1.getBlue(), color2.getBlue());
-			double upperB = Math.max(color1.getBlue(), color2.getBlue());
-			
-			double particleR = lowerR + (Math.random() * (upperR - lowerR));
-			double particleG = lowerG + (Math.random() * (upperG - lowerG));
-			double particleB = lowerB + (Math.random() * (upperB - lowerB));
-			
-			return new Color(particleR, particleG, particleB, 1);
-			
+		if (colorRange.length == 1 || colorRange[0] == colorRange[1]) {
+			return 1;
 		}
 		
+		return PARTICLE_COLOR_STEPS;
+		
+	}
+	
+	/**
+	 * Gets the index of a random color within the range of the
+	 * <code>particleColorRange</code>.
+	 * @return an index into the Particle colors
+	 */
+	private int generateRandomParticleColorIndex() {
+		
+		return getRandom().nextInt(getParticleColorCount());
+		
+	}
+	
+	/**
+	 * Return a random angle, in degrees, between the two parameters given
+	 * @param random the stream of random numbers to draw from
+	 * @param minAngle the lower bound for the random angle, in degrees
+	 * @param maxAngle the upper bound for the random angle, in degrees
+	 * @return a random angle between minAngle and maxAngle
+	 */
+	public static double getRandomAngle(RandomStream random, double minAngle, 
+			double maxAngle) {
+		
+		return random.nextDouble(minAngle, maxAngle);
+		
 	}
 	
 	/**
-	 * Emits a single Particle by creating one and adding it to the
-	 * ParticleEmitter's list of Particles.
+	 * Emits a single Particle at the ParticleEmitter's position, moving at a
+	 * random angle within the spread angle of the launch direction.
 	 */
 	private void emitParticle() {
 		
@@ -306,12 +382,13 @@ public class ParticleEmitter extends Entity {
 		double maxAngle = getDirection() + getParticleSpreadAngle() + 
 				getParticleLaunchAngle();
 		
-		getParticles().add(new Particle(
-				getX(), getY() + getHeight() / 2, getParticleRadius(), 
-				generateRandomParticleColor(), minAngle, maxAngle, 
-				getVelocity().getMagnitude(), getInitialParticleSpeed(),
-				groundY
-				));
+		double angle = Math.toRadians(getRandomAngle(getRandom(), minAngle, maxAngle));
+		double speed = getVelocity().getMagnitude() + getInitialParticleSpeed();
+		
+		// The x component is flipped so the exhaust leaves the engine side
+		getParticles().add(getX(), getY() + getHeight() / 2, 
+				-speed * Math.cos(angle), speed * Math.sin(angle), 
+				getParticleLifetime(), generateRandomParticleColorIndex());
 		
 	}
 	
@@ -340,37 +417,58 @@ public class ParticleEmitter extends Entity {
 		
 	}
 	
+	@Override
+	public void savePreviousPosition() {
+		
+		super.savePreviousPosition();
+		getParticles().savePreviousPositions();
+		
+	}
+	
 	/**
-	 * Removes the dead(lifetime = 0) Particles from the Rocket's ArrayList of
-	 * particles for the engine plume
+	 * Copies the state of another ParticleEmitter into this one, including
+	 * its Particles and the state of its random numbers, so both emit the
+	 * same Particles from now on.
+	 * @param other the ParticleEmitter to copy the state of
 	 */
-	private void cleanParticles() {
+	public void copyStateFrom(ParticleEmitter other) {
 		
-		Iterator<Particle> particleIterator = 
-				getParticles().iterator();
+		super.copyStateFrom(other);
+		setOn(other.isOn());
+		setParticleEffectsEnabled(other.isParticleEffectsEnabled());
+		setTimeSinceLastParticleSpawned(other.getTimeSinceLastParticleSpawned());
+		getParticles().copyFrom(other.getParticles());
+		getRandom().setState(other.getRandom().getState());
 		
-		while (particleIterator.hasNext()) {
-
-			if (particleIterator.next().getLifetime() <= 0) {
-
-				particleIterator.remove();
-
-			}
-
+	}
+	
+	@Override
+	public void saveState(StateBuffer buffer) {
+		
+		super.saveState(buffer);
+		buffer.putBoolean(isOn());
+		buffer.putBoolean(isParticleEffectsEnabled());
+		buffer.putDouble(getTimeSinceLastParticleSpawned());
+		buffer.putLong(getRandom().getState());
+		
+		if (buffer.isCosmeticStateIncluded()) {
+			getParticles().saveState(buffer);
 		}
 		
 	}
 	
 	@Override
-	public void draw(GraphicsContext gc) {
+	public void restoreState(StateBuffer buffer) {
 		
-		gc.setFill(getColor());
-		gc.fillRect(getX() - getWidth() / 2, getY(), getWidth(), getHeight());
+		super.restoreState(buffer);
+		setOn(buffer.getBoolean());
+		setParticleEffectsEnabled(buffer.getBoolean());
+		setTimeSinceLastParticleSpawned(buffer.getDouble());
+		getRandom().setState(buffer.getLong());
 		
-		for (Particle particle : getParticles()) {
-			
-			particle.draw(gc);
-			
+		// Without cosmetic state, the live Particles are left where they are
+		if (buffer.isCosmeticStateIncluded()) {
+			getParticles().restoreState(buffer);
 		}
 		
 	}
@@ -378,17 +476,11 @@ public class ParticleEmitter extends Entity {
 	@Override
 	public void tick(double timeElapsed) {
 		
-		if (isOn()) {
+		if (isOn() && isParticleEffectsEnabled()) {
 			emitParticles(timeElapsed);
 		}
 		
-		for (Particle particle : getParticles()) {
-			
-			particle.tick(timeElapsed);
-			
-		}
-		
-		cleanParticles();
+		getParticles().tick(timeElapsed, getParticleLifetime(), groundY);
 		
 	}
 	
@@ -1,11 +1,9 @@
 package rocket;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.ArcType;
-import javafx.scene.transform.Affine;
-import javafx.scene.transform.Rotate;
 import world.World;
+import util.ArgbColor;
 import util.Entity;
+import util.RandomStream;
+import util.StateBuffer;
 
 /**
  * A class for storing data about a Rocket body, with relevant flight functions
@@ -13,6 +11,8 @@ import util.Entity;
  */
 public class Rocket extends Entity {
 	
+	public static final int STATE_TYPE = 1;
+	
 	// Physics variables
 	private double width = 40;
 	private double centerTankWidth = width / 2.5;
@@ -26,6 +26,7 @@ public class Rocket extends Entity {
 	
 	// Flight attributes
 	private boolean airborne = true;
+	private boolean crashed = false;
 	private double fuel; 
 	private RocketEngine [] engines;
 	private ParticleEmitter [] rcsThrusters;
@@ -35,6 +36,7 @@ public class Rocket extends Entity {
 	private double landingAngleMargin = 10;
 	private double acceptableLandingVelocity = 100;
 	private double landingVelocity;
+	private double landingAngle = 90;
 
 	Rocket() {}
 	
@@ -63,11 +65,11 @@ public class Rocket extends Entity {
 		this.rcsThrusters = new ParticleEmitter [] {
 				
 				new ParticleEmitter(4, 8, groundY, 
-						new Color[] {Color.WHITE}, -rcsXOffset, rcsYoffset, 
-						-90, Color.RED),
+						new int[] {ArgbColor.WHITE}, -rcsXOffset, rcsYoffset, 
+						-90, ArgbColor.RED),
 				new ParticleEmitter(4, 8, groundY, 
-						new Color[] {Color.WHITE}, rcsXOffset, rcsYoffset, 
-						90, Color.RED)
+						new int[] {ArgbColor.WHITE}, rcsXOffset, rcsYoffset, 
+						90, ArgbColor.RED)
 				
 		};
 		
@@ -275,6 +277,22 @@ public class Rocket extends Entity {
 		return airborne;
 	}
 
+	/**
+	 * Returns true if the Rocket has crashed into another Rocket.
+	 * @return whether the Rocket has crashed
+	 */
+	public boolean isCrashed() {
+		return crashed;
+	}
+
+	/**
+	 * Sets whether the Rocket has crashed into another Rocket.
+	 * @param crashed the new crash status
+	 */
+	public void setCrashed(boolean crashed) {
+		this.crashed = crashed;
+	}
+
 	/**
 	 * Sets the airborne status of the Rocket
 	 * @param airborne the new status
@@ -355,6 +373,159 @@ public class Rocket extends Entity {
 		this.landingVelocity = landingVelocity;
 	}
 
+	/**
+	 * Gets the direction the Rocket had at the moment of its most recent 
+	 * landing, before a good landing straightens it up.
+	 * @return the Rocket's landing angle, in degrees
+	 */
+	public double getLandingAngle() {
+		return this.landingAngle;
+	}
+
+	/**
+	 * Sets the direction the Rocket had at the moment of its most recent 
+	 * landing.
+	 * @param landingAngle the Rocket's landing angle, in degrees
+	 */
+	public void setLandingAngle(double landingAngle) {
+		this.landingAngle = landingAngle;
+	}
+
+	/**
+	 * Returns whether the Rocket's most recent landing velocity was below the
+	 * acceptable landing velocity.
+	 * @return true if the landing velocity was acceptable
+	 */
+	public boolean hasAcceptableLandingVelocity() {
+		
+		return getLandingVelocity() < getAcceptableLandingVelocity();
+		
+	}
+
+	/**
+	 * Returns whether the Rocket's most recent landing angle was within the
+	 * landing angle margin of pointing straight up.
+	 * @return true if the Rocket's landing angle was acceptable
+	 */
+	public boolean hasAcceptableLandingAngle() {
+		
+		return Math.abs(getLandingAngle() - 90) <= getLandingAngleMargin();
+		
+	}
+
+	/**
+	 * Returns whether the Rocket has touched down with an acceptable velocity
+	 * and angle. A Rocket that is still airborne, or that crashed into another
+	 * Rocket, has not landed successfully.
+	 * @return true if the Rocket landed safely, false if it crashed or is 
+	 * still airborne
+	 */
+	public boolean hasLandedSuccessfully() {
+		
+		return !isAirborne() && !isCrashed() && 
+				hasAcceptableLandingVelocity() && hasAcceptableLandingAngle();
+		
+	}
+
+	/**
+	 * Sets whether the Rocket's engines and RCS thrusters should emit exhaust
+	 * Particles. Particles are purely visual, so simulations that are never
+	 * drawn can turn them off.
+	 * @param particleEffectsEnabled whether exhaust Particles should be 
+	 * emitted
+	 */
+	public void setParticleEffectsEnabled(boolean particleEffectsEnabled) {
+		
+		for (RocketEngine engine : getEngines()) {
+			
+			engine.getEmitter().setParticleEffectsEnabled(particleEffectsEnabled);
+			
+		}
+		
+		for (ParticleEmitter rcsThruster : getRCSThrusters()) {
+			
+			rcsThruster.setParticleEffectsEnabled(particleEffectsEnabled);
+			
+		}
+		
+	}
+
+	/**
+	 * Returns true if any of the Rocket's engines or RCS thrusters still has
+	 * exhaust Particles in the air.
+	 * @return whether the Rocket has live exhaust Particles
+	 */
+	public boolean hasLiveParticles() {
+		
+		for (RocketEngine engine : getEngines()) {
+			
+			if (engine.getEmitter().getParticles().size() > 0) {
+				return true;
+			}
+			
+		}
+		
+		for (ParticleEmitter rcsThruster : getRCSThrusters()) {
+			
+			if (rcsThruster.getParticles().size() > 0) {
+				return true;
+			}
+			
+		}
+		
+		return false;
+		
+	}
+
+	/**
+	 * Returns the number of exhaust Particles the Rocket's engines and RCS
+	 * thrusters have in the air.
+	 * @return the live Particle count
+	 */
+	public int getLiveParticleCount() {
+		
+		int count = 0;
+		
+		for (RocketEngine engine : getEngines()) {
+			
+			count += engine.getEmitter().getParticles().size();
+			
+		}
+		
+		for (ParticleEmitter rcsThruster : getRCSThrusters()) {
+			
+			count += rcsThruster.getParticles().size();
+			
+		}
+		
+		return count;
+		
+	}
+
+	/**
+	 * Gives each of the Rocket's engines and RCS thrusters its own stream of
+	 * random numbers, split from the given stream, so that the Rocket's 
+	 * exhaust is the same every time the stream is seeded the same way.
+	 * @param random the stream to split the exhaust streams from
+	 */
+	public void setRandom(RandomStream random) {
+		
+		int streamId = 0;
+		
+		for (RocketEngine engine : getEngines()) {
+			
+			engine.getEmitter().setRandom(random.split(streamId++));
+			
+		}
+		
+		for (ParticleEmitter rcsThruster : getRCSThrusters()) {
+			
+			rcsThruster.setRandom(random.split(streamId++));
+			
+		}
+		
+	}
+
 	/**
 	 * Applies the force of gravity to the Rocket's velocity vector
 	 * @param timeElapsed the time, in seconds, since the last tick
@@ -468,148 +639,266 @@ public class Rocket extends Entity {
 		
 		if (isAirborne()) {
 
-			// Turn off visual effects
-			setAirborne(false);
-			setEnginesOn(false);
+			endFlight();
 
-			for (ParticleEmitter rcsThruster : getRCSThrusters()) {
+			if (!isCrashed() && hasAcceptableLandingVelocity() &&
+					hasAcceptableLandingAngle()) {
+				// Good landing, make the Rocket point straight up
+				setDirection(90);
 
-				rcsThruster.setOn(false);
+			} 
 
-			}
+		}
+		
+	}
+
+	/**
+	 * Ends the Rocket's flight in a crash, whatever its velocity and angle,
+	 * as when it collides with another Rocket. The velocity and direction at
+	 * the moment of the crash are recorded as the landing velocity and
+	 * angle, and the engines and RCS thrusters are shut off, but the wreck
+	 * stays airborne and falls until it hits the ground. Only a Rocket that
+	 * is still flying can crash: one that has landed, or crashed already, is
+	 * left as it is.
+	 */
+	public void crash() {
+		
+		if (isAirborne() && !isCrashed()) {
 
 			setLandingVelocity(getVelocity().getMagnitude());
+			setLandingAngle(getDirection());
+			shutDown();
+			setCrashed(true);
 
-			if (
-				getVelocity().getMagnitude() < getAcceptableLandingVelocity() &&
-				Math.abs(getDirection() - 90) <= getLandingAngleMargin()
-			) {
-				// Good landing, make the Rocket point straight up
-				setDirection(90);
+		}
+		
+	}
+	
+	/**
+	 * Turns off the Rocket's engines and RCS thrusters.
+	 */
+	private void shutDown() {
+		
+		// Turn off visual effects
+		setEnginesOn(false);
 
-			} 
+		for (ParticleEmitter rcsThruster : getRCSThrusters()) {
 
-			getVelocity().setX(0);
-			getVelocity().setY(0);
+			rcsThruster.setOn(false);
 
 		}
 		
 	}
+	
+	/**
+	 * Turns off the Rocket's engines and RCS thrusters, records its landing
+	 * velocity and angle unless it already crashed, and brings it to a halt.
+	 */
+	private void endFlight() {
+		
+		setAirborne(false);
+		shutDown();
 
-	@Override
-	public void tick(double timeElapsed) {
+		if (!isCrashed()) {
+
+			setLandingVelocity(getVelocity().getMagnitude());
+			setLandingAngle(getDirection());
+
+		}
+
+		getVelocity().setX(0);
+		getVelocity().setY(0);
 		
-		if (isAirborne()) {
-			
-			// Automatic hoverslam
-			double safetyMargin = 5; // TODO Implement this better
-			setEnginesOn(getManeuverCalculator().shouldBurn(safetyMargin));
+	}
 
-			pointInDirection(getVelocity().getDirection() - 180, timeElapsed);
+	/**
+	 * Creates a new Rocket that looks like this one and has a copy of its
+	 * state, sharing none of its objects. The copy can be ticked or drawn on
+	 * another thread than this Rocket.
+	 * @return the copy
+	 */
+	public Rocket copy() {
+		
+		Rocket copy = new Rocket(getX(), getY(), getFuel(), 
+				getManeuverCalculator().getGroundY());
+		copy.copyLooksFrom(this);
+		copy.copyStateFrom(this);
+		return copy;
+		
+	}
+	
+	/**
+	 * Copies the state of another Rocket of the same kind into this one,
+	 * including the state of its engines, RCS thrusters, and their exhaust.
+	 * @param other the Rocket to copy the state of
+	 */
+	public void copyStateFrom(Rocket other) {
+		
+		super.copyStateFrom(other);
+		setAirborne(other.isAirborne());
+		setCrashed(other.isCrashed());
+		setFuel(other.getFuel());
+		setLandingVelocity(other.getLandingVelocity());
+		setLandingAngle(other.getLandingAngle());
+		
+		for (int i = 0; i < getEngines().length; i++) {
 			
-			applyThrust(timeElapsed);
-			applyForces(timeElapsed); // should be last
+			getEngines()[i].copyStateFrom(other.getEngines()[i]);
 			
 		}
 		
-		for (RocketEngine engine : getEngines()) {
+		for (int i = 0; i < getRCSThrusters().length; i++) {
 			
-			engine.tick(timeElapsed);
+			getRCSThrusters()[i].copyStateFrom(other.getRCSThrusters()[i]);
 			
 		}
 		
+	}
+	
+	@Override
+	public int getStateType() {
+		return STATE_TYPE;
+	}
+	
+	@Override
+	public void saveState(StateBuffer buffer) {
+		
+		super.saveState(buffer);
+		buffer.putBoolean(isAirborne());
+		buffer.putBoolean(isCrashed());
+		buffer.putDouble(getFuel());
+		buffer.putDouble(getLandingVelocity());
+		buffer.putDouble(getLandingAngle());
+		
+		for (RocketEngine engine : getEngines()) {
+			engine.saveState(buffer);
+		}
+		
 		for (ParticleEmitter rcsThruster : getRCSThrusters()) {
-			
-			rcsThruster.tick(timeElapsed);
-			
+			rcsThruster.saveState(buffer);
+		}
+		
+	}
+	
+	@Override
+	public void restoreState(StateBuffer buffer) {
+		
+		super.restoreState(buffer);
+		setAirborne(buffer.getBoolean());
+		setCrashed(buffer.getBoolean());
+		setFuel(buffer.getDouble());
+		setLandingVelocity(buffer.getDouble());
+		setLandingAngle(buffer.getDouble());
+		
+		for (RocketEngine engine : getEngines()) {
+			engine.restoreState(buffer);
+		}
+		
+		for (ParticleEmitter rcsThruster : getRCSThrusters()) {
+			rcsThruster.restoreState(buffer);
 		}
 		
 	}
 	
 	/**
-	 * Pivots the GraphicsContext around the center of the Rocket so that the
-	 * Rocket can be drawn at an angle. This transform should be reversed
-	 * (with a save() and restore()) before objects that should be drawn 
-	 * normally on the Canvas are drawn.
-	 * @param gc the GraphicsContext to rotate
+	 * Copies the dimensions, color and direction of another Rocket into this
+	 * one, so that its body is drawn the same way.
+	 * @param other the Rocket to copy the looks of
 	 */
-	public void rotateGraphicsContext(GraphicsContext gc) {
+	protected void copyLooksFrom(Rocket other) {
 		
-		double pivotX = getX();
-		double pivotY = getY() + (getHeight() / 2.0);
-		Rotate rotate = new Rotate(90 - getDirection(), pivotX, pivotY);
-		gc.transform(new Affine(rotate));
+		width = other.width;
+		centerTankWidth = other.centerTankWidth;
+		height = other.height;
+		noseConeHeight = other.noseConeHeight;
+		centerTankHeight = other.centerTankHeight;
+		finHeight = other.finHeight;
+		setColor(other.getColor());
+		setDirection(other.getDirection());
 		
 	}
 
 	/**
-	 * Draws Rocket's fins at the bottom of its center tank.
-	 * @param gc the GraphicsContext of the Canvas to draw the Rocket on
+	 * Moves the Rocket's engines and RCS thrusters, and the engines' exhaust
+	 * emitters, to their positions on the Rocket so that their exhaust is
+	 * emitted from the right place, whether or not the Rocket is being drawn.
 	 */
-	public void drawFins(GraphicsContext gc) {
-		
-		double [] fin1xPoints = new double[] {
-				getX() - getCenterTankWidth() / 2,
-				getX() - getCenterTankWidth() / 2,
-				getX() - getWidth() / 2
-		};
+	public void alignParts() {
 		
-		double [] fin2xPoints = new double[] {
-				getX() + getCenterTankWidth() / 2,
-				getX() + getCenterTankWidth() / 2,
-				getX() + getWidth() / 2
-		};
-		
-		double finStartY = getY() + getNoseConeHeight() + getCenterTankHeight() - getFinHeight();
-		double [] finyPoints = new double[] {
-				finStartY,
-				finStartY + getFinHeight(),
-				finStartY + getFinHeight()
-		};
+		for (RocketEngine engine : getEngines()) {
+			
+			engine.alignWith(this);
+			engine.getEmitter().alignWith(engine);
+			
+		}
 		
-		gc.setFill(Color.BLUE);
-		gc.fillPolygon(fin1xPoints, finyPoints, finyPoints.length);
-		gc.fillPolygon(fin2xPoints, finyPoints, finyPoints.length);
-
+		for (ParticleEmitter rcsThruster : getRCSThrusters()) {
+			
+			rcsThruster.alignWith(this);
+			
+		}
 		
 	}
-	
+
+	/**
+	 * Records the current positions of the Rocket, its engines and RCS 
+	 * thrusters, and all of their exhaust Particles as their previous 
+	 * positions.
+	 */
 	@Override
-	public void draw(GraphicsContext gc) {
-		
-		gc.save();
+	public void savePreviousPosition() {
 		
-		rotateGraphicsContext(gc);
+		super.savePreviousPosition();
 		
 		for (RocketEngine engine : getEngines()) {
 			
-			engine.alignWith(this);
-			engine.draw(gc);
+			engine.savePreviousPosition();
+			engine.getEmitter().savePreviousPosition();
 			
 		}
+		
+		for (ParticleEmitter rcsThruster : getRCSThrusters()) {
+			
+			rcsThruster.savePreviousPosition();
+			
+		}
+		
+	}
 
-		for (ParticleEmitter thruster : getRCSThrusters()) {
+	@Override
+	public void tick(double timeElapsed) {
+		
+		if (isAirborne()) {
+			
+			if (!isCrashed()) {
 
-			thruster.alignWith(this);
-			thruster.draw(gc);
+				// Automatic hoverslam
+				double safetyMargin = 5; // TODO Implement this better
+				setEnginesOn(getManeuverCalculator().shouldBurn(safetyMargin));
 
-		}
+				pointInDirection(getVelocity().getDirection() - 180, timeElapsed);
+				
+				applyThrust(timeElapsed);
 
-		gc.setFill(getColor());
-		
-		// Rocket nose cone
-		gc.fillArc(getX() - getCenterTankWidth() / 2, getY(), 
-				getCenterTankWidth(), getNoseConeHeight() * 2, 
-				0, 180, ArcType.ROUND);
+			}
+
+			applyForces(timeElapsed); // should be last
+			
+		}
 		
-		// Center tank
-		gc.fillRect(getX() - getCenterTankWidth() / 2, 
-				getY() + getNoseConeHeight(), 
-				getCenterTankWidth(), getCenterTankHeight());
+		alignParts();
 		
-		drawFins(gc);
+		for (RocketEngine engine : getEngines()) {
+			
+			engine.tick(timeElapsed);
+			
+		}
 		
-		gc.restore();
+		for (ParticleEmitter rcsThruster : getRCSThrusters()) {
+			
+			rcsThruster.tick(timeElapsed);
+			
+		}
 		
 	}
 	
@@ -1,8 +1,7 @@
 package rocket;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.ArcType;
+import util.ArgbColor;
 import util.Entity;
+import util.StateBuffer;
 
 /**
  * A class used to store data about a Rocket's engines, which generate thrust
@@ -28,8 +27,8 @@ public class RocketEngine extends Entity {
 	public RocketEngine(double groundY) {
 		
 		super();
-		setColor(Color.GRAY);
-		this.emitter = new ParticleEmitter(groundY, new Color[] {Color.RED, Color.ORANGE}, 
+		setColor(ArgbColor.GRAY);
+		this.emitter = new ParticleEmitter(groundY, new int[] {ArgbColor.RED, ArgbColor.ORANGE}, 
 				0, getHeight());
 	
 	}
@@ -49,8 +48,8 @@ public class RocketEngine extends Entity {
 			double xOffset, double yOffset) {
 		
 		super();
-		setColor(Color.GRAY);
-		this.emitter = new ParticleEmitter(groundY, new Color[] {Color.RED, Color.ORANGE}, 
+		setColor(ArgbColor.GRAY);
+		this.emitter = new ParticleEmitter(groundY, new int[] {ArgbColor.RED, ArgbColor.ORANGE}, 
 				0, getHeight());
 		this.width = width;
 		this.height = height;
@@ -158,14 +157,34 @@ public class RocketEngine extends Entity {
 		this.emitter = emitter;
 	}
 
+	/**
+	 * Copies the state of another RocketEngine, and of its ParticleEmitter,
+	 * into this one.
+	 * @param other the RocketEngine to copy the state of
+	 */
+	public void copyStateFrom(RocketEngine other) {
+		
+		super.copyStateFrom(other);
+		setOn(other.isOn());
+		getEmitter().copyStateFrom(other.getEmitter());
+		
+	}
+	
 	@Override
-	public void draw(GraphicsContext gc) {
+	public void saveState(StateBuffer buffer) {
+		
+		super.saveState(buffer);
+		buffer.putBoolean(isOn());
+		getEmitter().saveState(buffer);
 		
-		emitter.draw(gc);
+	}
+	
+	@Override
+	public void restoreState(StateBuffer buffer) {
 		
-		gc.setFill(getColor());
-		gc.fillArc(getX() - getWidth() / 2, getY(), getWidth(), getHeight() * 2, 
-				0, 180, ArcType.ROUND);
+		super.restoreState(buffer);
+		setOn(buffer.getBoolean());
+		getEmitter().restoreState(buffer);
 		
 	}
 	
@@ -1,10 +1,13 @@
 package rocket;
+import util.StateBuffer;
 
 /**
  * A class used to add user interaction functionality to the Rocket class.
  */
 public class UserControlledRocket extends Rocket {
 
+	public static final int STATE_TYPE = 2;
+
 	double targetAngle = 90;
 	boolean shouldFireEngines = false;
 	boolean shouldFireRCS = false;
@@ -92,12 +95,67 @@ public class UserControlledRocket extends Rocket {
 		getRCSThrusters()[1].setOn(false);
 		setX(x);
 		setY(y);
+		savePreviousPosition();
 		getVelocity().setX(0);
 		getVelocity().setY(0);
 		setFuel(fuel);
 		setAirborne(true);
+		setCrashed(false);
 
 	}
+	
+	@Override
+	public Rocket copy() {
+		
+		UserControlledRocket copy = new UserControlledRocket(getX(), getY(), 
+				getFuel(), getManeuverCalculator().getGroundY());
+		copy.copyLooksFrom(this);
+		copy.copyStateFrom(this);
+		return copy;
+		
+	}
+	
+	@Override
+	public void copyStateFrom(Rocket other) {
+		
+		super.copyStateFrom(other);
+		
+		if (other instanceof UserControlledRocket) {
+			
+			UserControlledRocket userRocket = (UserControlledRocket) other;
+			setTargetAngle(userRocket.getTargetAngle());
+			setShouldFireEngines(userRocket.shouldFireEngines());
+			setShouldFireRCS(userRocket.shouldFireRCS());
+			
+		}
+		
+	}
+	
+	@Override
+	public int getStateType() {
+		return STATE_TYPE;
+	}
+	
+	@Override
+	public void saveState(StateBuffer buffer) {
+		
+		super.saveState(buffer);
+		buffer.putDouble(getTargetAngle());
+		buffer.putBoolean(shouldFireEngines());
+		buffer.putBoolean(shouldFireRCS());
+		
+	}
+	
+	@Override
+	public void restoreState(StateBuffer buffer) {
+		
+		super.restoreState(buffer);
+		setTargetAngle(buffer.getDouble());
+		setShouldFireEngines(buffer.getBoolean());
+		setShouldFireRCS(buffer.getBoolean());
+		
+	}
+	
 	@Override
 	protected void pointInDirection(double targetAngle, double timeElapsed) {
 		
@@ -136,14 +194,21 @@ public class UserControlledRocket extends Rocket {
 
 		if (isAirborne()) {
 
-			setEnginesOn(shouldFireEngines());
-			pointInDirection(getTargetAngle(), timeElapsed);
+			if (!isCrashed()) {
+
+				setEnginesOn(shouldFireEngines());
+				pointInDirection(getTargetAngle(), timeElapsed);
+
+				applyThrust(timeElapsed);
+
+			}
 
-			applyThrust(timeElapsed);
 			applyForces(timeElapsed); // should be last
 
 		} 
 		
+		alignParts();
+		
 		for (RocketEngine engine : getEngines()) {
 			
 			engine.tick(timeElapsed);
@@ -163,6 +228,4 @@ public class UserControlledRocket extends Rocket {
 		
 	}
 	
-	
-	
 }
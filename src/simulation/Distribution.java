@@ -0,0 +1,107 @@
+package simulation;
+import java.util.Arrays;
+
+/**
+ * A class that summarizes a set of measurements with their mean, standard
+ * deviation, and percentiles.
+ */
+public class Distribution {
+
+	private double [] sortedValues;
+	private double mean;
+	private double standardDeviation;
+
+	/**
+	 * Creates a Distribution of the given values. The array is copied, so it
+	 * can be reused by the caller.
+	 * @param values the measurements to summarize
+	 */
+	public Distribution(double [] values) {
+
+		this.sortedValues = values.clone();
+		Arrays.sort(sortedValues);
+
+		double sum = 0;
+		for (double value : sortedValues) {
+			sum += value;
+		}
+		this.mean = sortedValues.length > 0 ? sum / sortedValues.length : 0;
+
+		double squaredDifferenceSum = 0;
+		for (double value : sortedValues) {
+			squaredDifferenceSum += (value - mean) * (value - mean);
+		}
+		this.standardDeviation = sortedValues.length > 0 ?
+			Math.sqrt(squaredDifferenceSum / sortedValues.length) : 0;
+
+	}
+
+	/**
+	 * Gets the number of measurements in the Distribution.
+	 * @return the measurement count
+	 */
+	public int getCount() {
+		return sortedValues.length;
+	}
+
+	/**
+	 * Gets the mean of the measurements.
+	 * @return the mean
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Gets the population standard deviation of the measurements.
+	 * @return the standard deviation
+	 */
+	public double getStandardDeviation() {
+		return standardDeviation;
+	}
+
+	/**
+	 * Gets the smallest measurement.
+	 * @return the minimum
+	 */
+	public double getMin() {
+		return getPercentile(0);
+	}
+
+	/**
+	 * Gets the largest measurement.
+	 * @return the maximum
+	 */
+	public double getMax() {
+		return getPercentile(100);
+	}
+
+	/**
+	 * Gets the measurement below which the given percentage of measurements
+	 * fall, using the nearest-rank method.
+	 * @param percentile the percentage, from 0 to 100
+	 * @return the measurement at that percentile, or 0 if there are none
+	 */
+	public double getPercentile(double percentile) {
+
+		if (sortedValues.length == 0) {
+			return 0;
+		}
+
+		int rank = (int) Math.ceil(percentile / 100 * sortedValues.length);
+		int index = Math.min(Math.max(rank - 1, 0), sortedValues.length - 1);
+		return sortedValues[index];
+
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format(
+			"mean %.2f, sd %.2f, min %.2f, p50 %.2f, p90 %.2f, p99 %.2f, max %.2f",
+			getMean(), getStandardDeviation(), getMin(), getPercentile(50),
+			getPercentile(90), getPercentile(99), getMax());
+
+	}
+
+}
@@ -0,0 +1,107 @@
+package simulation;
+
+/**
+ * A class that turns variable frame times into a whole number of fixed-size
+ * simulation steps. Leftover time is carried over to the next frame, and the
+ * fraction of a step it represents can be used to interpolate drawn positions
+ * between the last two steps.
+ */
+public class FixedTimestep {
+
+	private double stepSize = HeadlessSimulator.DEFAULT_TIME_STEP;
+	private int maxStepsPerFrame = 8;
+	private double accumulator = 0;
+
+	public FixedTimestep() {}
+
+	/**
+	 * Creates a FixedTimestep with the given step size and limit on the
+	 * number of steps run per frame.
+	 * @param stepSize the simulated time, in seconds, of each step
+	 * @param maxStepsPerFrame the most steps that can be run for one frame
+	 */
+	public FixedTimestep(double stepSize, int maxStepsPerFrame) {
+		this.stepSize = stepSize;
+		this.maxStepsPerFrame = maxStepsPerFrame;
+	}
+
+	/**
+	 * Gets the simulated time, in seconds, of each step.
+	 * @return the step size
+	 */
+	public double getStepSize() {
+		return stepSize;
+	}
+
+	/**
+	 * Sets the simulated time, in seconds, of each step.
+	 * @param stepSize the new step size
+	 */
+	public void setStepSize(double stepSize) {
+		this.stepSize = stepSize;
+	}
+
+	/**
+	 * Gets the most steps that can be run for a single frame. Time beyond
+	 * this limit is dropped so that one long frame can't cause a spiral of
+	 * ever longer catch-up frames.
+	 * @return the max steps per frame
+	 */
+	public int getMaxStepsPerFrame() {
+		return maxStepsPerFrame;
+	}
+
+	/**
+	 * Sets the most steps that can be run for a single frame.
+	 * @param maxStepsPerFrame the new max steps per frame
+	 */
+	public void setMaxStepsPerFrame(int maxStepsPerFrame) {
+		this.maxStepsPerFrame = maxStepsPerFrame;
+	}
+
+	/**
+	 * Adds a frame's time to the accumulated time and returns how many steps
+	 * should be run for it.
+	 * @param frameTime the time, in seconds, since the last frame
+	 * @return the number of steps to run
+	 */
+	public int advance(double frameTime) {
+
+		accumulator += frameTime;
+		int steps = (int) (accumulator / getStepSize());
+
+		if (steps > getMaxStepsPerFrame()) {
+
+			// Drop the time that can't be caught up on, keeping the fraction
+			steps = getMaxStepsPerFrame();
+			accumulator %= getStepSize();
+
+		} else {
+
+			accumulator -= steps * getStepSize();
+
+		}
+
+		return steps;
+
+	}
+
+	/**
+	 * Gets the fraction of a step that has accumulated but not been run yet.
+	 * This is the interpolation factor between the previous and the current
+	 * step's positions.
+	 * @return a value between 0 and 1
+	 */
+	public double getAlpha() {
+		return accumulator / getStepSize();
+	}
+
+	/**
+	 * Discards any accumulated time, for example when the simulation is
+	 * restarted.
+	 */
+	public void reset() {
+		accumulator = 0;
+	}
+
+}
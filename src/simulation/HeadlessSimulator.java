@@ -0,0 +1,372 @@
+package simulation;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import rocket.Rocket;
+import util.Entity;
+import util.RandomStream;
+import util.Vector2D;
+import world.World;
+
+/**
+ * A class for running Rocket flights without a display. The World is ticked
+ * in fixed time steps until its primary Rocket lands, and nothing is drawn,
+ * so the JavaFX toolkit is never started.
+ */
+public class HeadlessSimulator {
+
+	public static final double DEFAULT_TIME_STEP = 1 / 120.0; // seconds
+	private static final double FLEET_SPACING = 4; // Rocket widths
+	private static final double FLEET_JITTER = 1; // Rocket widths
+
+	private double windowWidth = 800;
+	private double windowHeight = 700;
+	private double timeStep = DEFAULT_TIME_STEP;
+	private double maxFlightTime = 300; // seconds
+
+	public HeadlessSimulator() {}
+
+	/**
+	 * Creates a HeadlessSimulator that ticks its Worlds with the given time
+	 * step.
+	 * @param timeStep the simulated time, in seconds, of each tick
+	 */
+	public HeadlessSimulator(double timeStep) {
+		this.timeStep = timeStep;
+	}
+
+	/**
+	 * Gets the simulated time, in seconds, that passes in each tick.
+	 * @return the time step
+	 */
+	public double getTimeStep() {
+		return timeStep;
+	}
+
+	/**
+	 * Sets the simulated time, in seconds, that passes in each tick.
+	 * @param timeStep the new time step
+	 */
+	public void setTimeStep(double timeStep) {
+		this.timeStep = timeStep;
+	}
+
+	/**
+	 * Gets the longest simulated time, in seconds, a flight may take before
+	 * it is stopped without a landing.
+	 * @return the max flight time
+	 */
+	public double getMaxFlightTime() {
+		return maxFlightTime;
+	}
+
+	/**
+	 * Sets the longest simulated time, in seconds, a flight may take before
+	 * it is stopped without a landing.
+	 * @param maxFlightTime the new max flight time
+	 */
+	public void setMaxFlightTime(double maxFlightTime) {
+		this.maxFlightTime = maxFlightTime;
+	}
+
+	/**
+	 * Creates a World with the same dimensions as the simulator window.
+	 * @return a new World that is not meant to be drawn
+	 */
+	public World createWorld() {
+
+		return new World(windowWidth, windowHeight);
+
+	}
+
+	/**
+	 * Creates a World with the same dimensions as the simulator window, whose
+	 * randomness all comes from the given seed.
+	 * @param seed the seed of the World's random streams
+	 * @return a new World that is not meant to be drawn
+	 */
+	public World createWorld(long seed) {
+
+		return new World(windowWidth, windowHeight, seed);
+
+	}
+
+	/**
+	 * Creates a self-landing Rocket above the center of the given World, with
+	 * gravity applied and its particle effects turned off.
+	 * @param world the World the Rocket will fly in
+	 * @param xVelocity the Rocket's initial horizontal velocity
+	 * @param initialHeight the Rocket's initial distance from the ground
+	 * @param fuel the Rocket's initial fuel amount
+	 * @return the new Rocket
+	 */
+	public Rocket createAutomaticRocket(World world, double xVelocity,
+			double initialHeight, double fuel) {
+
+		Rocket rocket = new Rocket(windowWidth / 2,
+			world.getGroundY() - initialHeight, fuel, world.getGroundY());
+		rocket.getVelocity().setX(xVelocity);
+		rocket.setAcceleration(new Vector2D(0.0, World.GRAVITY));
+		rocket.setParticleEffectsEnabled(false);
+		rocket.setRandom(world.getParticleRandom().split());
+		return rocket;
+
+	}
+
+	/**
+	 * Ticks the World until its primary Rocket lands or the max flight time
+	 * passes.
+	 * @param world the World to simulate, which must have a primary Rocket
+	 * @return the outcome of the primary Rocket's flight
+	 */
+	public LandingResult simulate(World world) {
+
+		Rocket rocket = world.getPrimaryRocket();
+		double initialFuel = rocket.getFuel();
+		double flightTime = 0;
+
+		while (rocket.isAirborne() && flightTime < getMaxFlightTime()) {
+
+			world.tick(getTimeStep());
+			flightTime += getTimeStep();
+
+		}
+
+		return new LandingResult(!rocket.isAirborne(),
+			rocket.hasLandedSuccessfully(), rocket.getLandingVelocity(),
+			rocket.getLandingAngle(), initialFuel, rocket.getFuel(), flightTime);
+
+	}
+
+	/**
+	 * Ticks the World until every Rocket in it lands or crashes, or the max
+	 * flight time passes. The World's landings and crashes are read after
+	 * each tick, so each Rocket's flight time is known however the World
+	 * splits up its ticks.
+	 * @param world the World to simulate
+	 * @return the outcome of each Rocket's flight, in the order the Rockets
+	 * are held in the World
+	 */
+	public LandingResult [] simulateFleet(World world) {
+
+		Map<Rocket, Double> initialFuel = new IdentityHashMap<Rocket, Double>();
+		Map<Rocket, Double> flightTimes = new IdentityHashMap<Rocket, Double>();
+
+		for (Entity entity : world.getObjects()) {
+
+			if (entity instanceof Rocket) {
+
+				Rocket rocket = (Rocket) entity;
+				initialFuel.put(rocket, rocket.getFuel());
+
+			}
+
+		}
+
+		double flightTime = 0;
+
+		while (flightTimes.size() < initialFuel.size() &&
+				flightTime < getMaxFlightTime()) {
+
+			world.tick(getTimeStep());
+			flightTime += getTimeStep();
+
+			for (Rocket rocket : world.getLandings()) {
+				flightTimes.put(rocket, flightTime);
+			}
+
+			for (Rocket rocket : world.getCrashes()) {
+				flightTimes.put(rocket, flightTime);
+			}
+
+		}
+
+		LandingResult [] results = new LandingResult[initialFuel.size()];
+		int index = 0;
+
+		for (Entity entity : world.getObjects()) {
+
+			if (entity instanceof Rocket) {
+
+				Rocket rocket = (Rocket) entity;
+				results[index++] = new LandingResult(
+					!rocket.isAirborne() || rocket.isCrashed(),
+					rocket.hasLandedSuccessfully(), rocket.getLandingVelocity(),
+					rocket.getLandingAngle(), initialFuel.get(rocket),
+					rocket.getFuel(), flightTimes.getOrDefault(rocket, flightTime),
+					rocket.isCrashed());
+
+			}
+
+		}
+
+		return results;
+
+	}
+
+	/**
+	 * Simulates a fleet of automatic landings in one new World with the given
+	 * seed. Each Rocket gets a random horizontal velocity and a lane along
+	 * the ground, four Rocket widths wide, with a random offset of up to a
+	 * Rocket width from its center. These are drawn from the World's initial
+	 * conditions stream, so the same arguments always give the same results.
+	 * Rockets drift across each other's paths, and any that collide crash.
+	 * @param rocketCount the number of Rockets in the fleet
+	 * @param maxXSpeed the largest initial horizontal speed, in either
+	 * direction
+	 * @param initialHeight each Rocket's initial distance from the ground
+	 * @param fuel each Rocket's initial fuel amount
+	 * @param seed the seed of the World's random streams
+	 * @return the outcome of each Rocket's landing
+	 */
+	public LandingResult [] simulateAutomaticFleet(int rocketCount,
+			double maxXSpeed, double initialHeight, double fuel, long seed) {
+
+		World world = createWorld(seed);
+		RandomStream random = world.getInitialConditionsRandom();
+
+		for (int i = 0; i < rocketCount; i++) {
+
+			Rocket rocket = createAutomaticRocket(world,
+				random.nextDouble(-maxXSpeed, maxXSpeed), initialHeight, fuel);
+			double offset = random.nextDouble(-FLEET_JITTER, FLEET_JITTER);
+			rocket.setX(((i + 0.5) * FLEET_SPACING + offset) * rocket.getWidth());
+			world.getObjects().add(rocket);
+
+			if (i == 0) {
+				world.setPrimaryRocket(rocket);
+			}
+
+		}
+
+		return simulateFleet(world);
+
+	}
+
+	/**
+	 * Simulates an automatic landing in a new World.
+	 * @param xVelocity the Rocket's initial horizontal velocity
+	 * @param initialHeight the Rocket's initial distance from the ground
+	 * @param fuel the Rocket's initial fuel amount
+	 * @return the outcome of the landing
+	 */
+	public LandingResult simulateAutomaticLanding(double xVelocity,
+			double initialHeight, double fuel) {
+
+		return simulateAutomaticLanding(xVelocity, initialHeight, fuel,
+			RandomStream.generateSeed());
+
+	}
+
+	/**
+	 * Simulates an automatic landing in a new World with the given seed. The
+	 * same arguments always give the same result.
+	 * @param xVelocity the Rocket's initial horizontal velocity
+	 * @param initialHeight the Rocket's initial distance from the ground
+	 * @param fuel the Rocket's initial fuel amount
+	 * @param seed the seed of the World's random streams
+	 * @return the outcome of the landing
+	 */
+	public LandingResult simulateAutomaticLanding(double xVelocity,
+			double initialHeight, double fuel, long seed) {
+
+		World world = createWorld(seed);
+		Rocket rocket = createAutomaticRocket(world, xVelocity, initialHeight,
+			fuel);
+		world.getObjects().add(rocket);
+		world.setPrimaryRocket(rocket);
+		return simulate(world);
+
+	}
+
+	/**
+	 * Runs a number of automatic landings with random horizontal velocities
+	 * and prints a summary. The number of landings may be given as the first
+	 * argument, and the seed that every landing is derived from as the 
+	 * second, so that a batch can be repeated exactly. With "--fleet" as the
+	 * first argument, one World with a whole fleet of Rockets is simulated
+	 * instead.
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+
+		if (args.length > 0 && args[0].equals("--fleet")) {
+
+			fleetMain(args);
+			return;
+
+		}
+
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+		double maxSpeed = 250;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) :
+			RandomStream.generateSeed();
+		RandomStream random = new RandomStream(seed);
+		HeadlessSimulator simulator = new HeadlessSimulator();
+
+		long startTime = System.nanoTime();
+		int successes = 0;
+
+		for (int i = 0; i < runs; i++) {
+
+			RandomStream runRandom = random.split(i);
+			double xVelocity = runRandom.nextDouble(-maxSpeed, maxSpeed);
+			LandingResult result = simulator.simulateAutomaticLanding(
+				xVelocity, 500, 10, runRandom.nextLong());
+
+			if (result.isSuccessful()) {
+				successes++;
+			}
+
+			if (runs == 1) {
+				System.out.println(result);
+			}
+
+		}
+
+		double elapsedMillis = (System.nanoTime() - startTime) / 1_000_000.0;
+		System.out.printf("%d landings simulated in %.1f ms, %d successful " +
+			"(seed %d)%n", runs, elapsedMillis, successes, seed);
+
+	}
+
+	/**
+	 * Runs one fleet of automatic landings in a single World and prints a
+	 * summary. The arguments are "--fleet", then optionally the number of
+	 * Rockets and the seed of the World.
+	 * @param args the command line arguments
+	 */
+	private static void fleetMain(String[] args) {
+
+		int rocketCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) :
+			RandomStream.generateSeed();
+		HeadlessSimulator simulator = new HeadlessSimulator();
+
+		long startTime = System.nanoTime();
+		LandingResult [] results = simulator.simulateAutomaticFleet(
+			rocketCount, 250, 500, 10, seed);
+		double elapsedMillis = (System.nanoTime() - startTime) / 1_000_000.0;
+
+		int successes = 0;
+		int crashes = 0;
+
+		for (LandingResult result : results) {
+
+			if (result.isSuccessful()) {
+				successes++;
+			}
+
+			if (result.hasCollided()) {
+				crashes++;
+			}
+
+		}
+
+		System.out.printf("Fleet of %d rockets simulated in %.1f ms, %d " +
+			"successful, %d crashed into each other (seed %d)%n", rocketCount,
+			elapsedMillis, successes, crashes, seed);
+
+	}
+
+}
@@ -0,0 +1,156 @@
+package simulation;
+
+/**
+ * A class used to store the outcome of a single simulated Rocket flight.
+ */
+public class LandingResult {
+
+	private boolean landed;
+	private boolean successful;
+	private double landingVelocity;
+	private double landingAngle;
+	private double initialFuel;
+	private double fuelLeft;
+	private double flightTime;
+	private boolean collided;
+
+	/**
+	 * Creates a LandingResult from the values recorded at the end of a flight.
+	 * @param landed whether the Rocket touched the ground before the flight
+	 * was stopped
+	 * @param successful whether the Rocket landed with an acceptable velocity
+	 * and angle
+	 * @param landingVelocity the magnitude of the Rocket's velocity on landing
+	 * @param landingAngle the Rocket's direction on landing, in degrees
+	 * @param initialFuel the fuel the Rocket had when the flight started
+	 * @param fuelLeft the fuel the Rocket had when the flight ended
+	 * @param flightTime the simulated time, in seconds, the flight took
+	 */
+	public LandingResult(boolean landed, boolean successful,
+			double landingVelocity, double landingAngle, double initialFuel,
+			double fuelLeft, double flightTime) {
+
+		this.landed = landed;
+		this.successful = successful;
+		this.landingVelocity = landingVelocity;
+		this.landingAngle = landingAngle;
+		this.initialFuel = initialFuel;
+		this.fuelLeft = fuelLeft;
+		this.flightTime = flightTime;
+
+	}
+
+	/**
+	 * Creates a LandingResult from the values recorded at the end of a flight
+	 * that may have ended in a collision with another Rocket.
+	 * @param landed whether the Rocket touched the ground or another Rocket
+	 * before the flight was stopped
+	 * @param successful whether the Rocket landed with an acceptable velocity
+	 * and angle
+	 * @param landingVelocity the magnitude of the Rocket's velocity on landing
+	 * @param landingAngle the Rocket's direction on landing, in degrees
+	 * @param initialFuel the fuel the Rocket had when the flight started
+	 * @param fuelLeft the fuel the Rocket had when the flight ended
+	 * @param flightTime the simulated time, in seconds, the flight took
+	 * @param collided whether the Rocket crashed into another Rocket
+	 */
+	public LandingResult(boolean landed, boolean successful,
+			double landingVelocity, double landingAngle, double initialFuel,
+			double fuelLeft, double flightTime, boolean collided) {
+
+		this(landed, successful, landingVelocity, landingAngle, initialFuel,
+			fuelLeft, flightTime);
+		this.collided = collided;
+
+	}
+
+	/**
+	 * Returns whether the Rocket touched the ground before the flight was
+	 * stopped.
+	 * @return whether the Rocket landed
+	 */
+	public boolean hasLanded() {
+		return landed;
+	}
+
+	/**
+	 * Returns whether the Rocket landed with an acceptable velocity and angle.
+	 * @return true for a successful landing, false for a crash or a flight
+	 * that never landed
+	 */
+	public boolean isSuccessful() {
+		return successful;
+	}
+
+	/**
+	 * Returns whether the Rocket's flight ended by crashing into another
+	 * Rocket.
+	 * @return whether the Rocket collided
+	 */
+	public boolean hasCollided() {
+		return collided;
+	}
+
+	/**
+	 * Gets the magnitude of the Rocket's velocity when it landed.
+	 * @return the landing velocity
+	 */
+	public double getLandingVelocity() {
+		return landingVelocity;
+	}
+
+	/**
+	 * Gets the Rocket's direction when it landed, in degrees.
+	 * @return the landing angle
+	 */
+	public double getLandingAngle() {
+		return landingAngle;
+	}
+
+	/**
+	 * Gets the amount of fuel the Rocket started the flight with.
+	 * @return the initial fuel amount
+	 */
+	public double getInitialFuel() {
+		return initialFuel;
+	}
+
+	/**
+	 * Gets the amount of fuel the Rocket had left at the end of the flight.
+	 * @return the fuel left
+	 */
+	public double getFuelLeft() {
+		return fuelLeft;
+	}
+
+	/**
+	 * Gets the amount of fuel the Rocket burned during the flight.
+	 * @return the fuel used
+	 */
+	public double getFuelUsed() {
+		return initialFuel - fuelLeft;
+	}
+
+	/**
+	 * Gets the simulated time, in seconds, that the flight took.
+	 * @return the flight time
+	 */
+	public double getFlightTime() {
+		return flightTime;
+	}
+
+	@Override
+	public String toString() {
+
+		String outcome = !hasLanded() ? "No Landing" :
+			isSuccessful() ? "Successful Landing" :
+			hasCollided() ? "Collision" : "Crash";
+
+		return String.format(
+			"%s (velocity: %.1f, angle: %.1f\u00B0, fuel used: %.2f, time: %.2fs)",
+			outcome, getLandingVelocity(), getLandingAngle(), getFuelUsed(),
+			getFlightTime());
+
+	}
+
+}
@@ -0,0 +1,121 @@
+package simulation;
+
+/**
+ * A class that summarizes the outcomes of a batch of simulated landings.
+ */
+public class MonteCarloReport {
+
+	private int runs;
+	private int successes;
+	private int landings;
+	private Distribution landingVelocity;
+	private Distribution landingAngle;
+	private Distribution fuelUsed;
+	private double elapsedSeconds;
+
+	/**
+	 * Creates a MonteCarloReport from a batch's counts and distributions.
+	 * @param runs the number of flights simulated
+	 * @param successes the number of successful landings
+	 * @param landings the number of flights that touched the ground
+	 * @param landingVelocity the distribution of landing velocities
+	 * @param landingAngle the distribution of landing angles, in degrees
+	 * @param fuelUsed the distribution of fuel burned per flight
+	 * @param elapsedSeconds the real time, in seconds, the batch took
+	 */
+	public MonteCarloReport(int runs, int successes, int landings,
+			Distribution landingVelocity, Distribution landingAngle,
+			Distribution fuelUsed, double elapsedSeconds) {
+
+		this.runs = runs;
+		this.successes = successes;
+		this.landings = landings;
+		this.landingVelocity = landingVelocity;
+		this.landingAngle = landingAngle;
+		this.fuelUsed = fuelUsed;
+		this.elapsedSeconds = elapsedSeconds;
+
+	}
+
+	/**
+	 * Gets the number of flights simulated.
+	 * @return the run count
+	 */
+	public int getRuns() {
+		return runs;
+	}
+
+	/**
+	 * Gets the number of flights that ended in a successful landing.
+	 * @return the success count
+	 */
+	public int getSuccesses() {
+		return successes;
+	}
+
+	/**
+	 * Gets the number of flights that touched the ground, whether they
+	 * crashed or not.
+	 * @return the landing count
+	 */
+	public int getLandings() {
+		return landings;
+	}
+
+	/**
+	 * Gets the fraction of flights that ended in a successful landing.
+	 * @return the success rate, from 0 to 1
+	 */
+	public double getSuccessRate() {
+		return runs > 0 ? (double) successes / runs : 0;
+	}
+
+	/**
+	 * Gets the distribution of the flights' landing velocities.
+	 * @return the landing velocity distribution
+	 */
+	public Distribution getLandingVelocity() {
+		return landingVelocity;
+	}
+
+	/**
+	 * Gets the distribution of the flights' landing angles, in degrees.
+	 * @return the landing angle distribution
+	 */
+	public Distribution getLandingAngle() {
+		return landingAngle;
+	}
+
+	/**
+	 * Gets the distribution of the fuel burned in each flight.
+	 * @return the fuel used distribution
+	 */
+	public Distribution getFuelUsed() {
+		return fuelUsed;
+	}
+
+	/**
+	 * Gets the real time, in seconds, that simulating the batch took.
+	 * @return the elapsed time
+	 */
+	public double getElapsedSeconds() {
+		return elapsedSeconds;
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format(
+			"%d runs in %.2fs (%.0f runs/s)%n" +
+			"success rate: %.2f%% (%d crashes, %d without landing)%n" +
+			"landing velocity: %s%n" +
+			"landing angle: %s%n" +
+			"fuel used: %s",
+			getRuns(), getElapsedSeconds(), getRuns() / getElapsedSeconds(),
+			getSuccessRate() * 100, getLandings() - getSuccesses(),
+			getRuns() - getLandings(), getLandingVelocity(), getLandingAngle(),
+			getFuelUsed());
+
+	}
+
+}
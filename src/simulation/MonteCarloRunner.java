@@ -0,0 +1,275 @@
+package simulation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import util.RandomStream;
+
+/**
+ * A class that runs many automatic landings with randomized initial
+ * conditions across all available cores, and summarizes how well the
+ * autopilot did.
+ */
+public class MonteCarloRunner {
+
+	private int runs = 10000;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long seed = RandomStream.generateSeed();
+
+	private double maxXSpeed = 250;
+	private double minHeight = 250;
+	private double maxHeight = 1000;
+	private double minFuel = 5;
+	private double maxFuel = 15;
+
+	public MonteCarloRunner() {}
+
+	/**
+	 * Creates a MonteCarloRunner that simulates the given number of landings.
+	 * @param runs the number of landings to simulate
+	 */
+	public MonteCarloRunner(int runs) {
+		this.runs = runs;
+	}
+
+	/**
+	 * Gets the number of landings to simulate.
+	 * @return the run count
+	 */
+	public int getRuns() {
+		return runs;
+	}
+
+	/**
+	 * Sets the number of landings to simulate.
+	 * @param runs the new run count
+	 */
+	public void setRuns(int runs) {
+		this.runs = runs;
+	}
+
+	/**
+	 * Gets the number of threads the landings are split across.
+	 * @return the thread count
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of threads the landings are split across.
+	 * @param threads the new thread count
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Gets the seed that every landing's initial conditions and World are
+	 * derived from.
+	 * @return the batch's seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the seed that every landing's initial conditions and World are
+	 * derived from. Batches with the same seed and settings give the same
+	 * results, whatever the number of threads.
+	 * @param seed the new seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Gets the largest initial horizontal speed a Rocket can be given, in
+	 * either direction.
+	 * @return the max initial horizontal speed
+	 */
+	public double getMaxXSpeed() {
+		return maxXSpeed;
+	}
+
+	/**
+	 * Sets the largest initial horizontal speed a Rocket can be given, in
+	 * either direction.
+	 * @param maxXSpeed the new max initial horizontal speed
+	 */
+	public void setMaxXSpeed(double maxXSpeed) {
+		this.maxXSpeed = maxXSpeed;
+	}
+
+	/**
+	 * Sets the range of initial distances from the ground a Rocket can be
+	 * given.
+	 * @param minHeight the smallest initial height
+	 * @param maxHeight the largest initial height
+	 */
+	public void setHeightRange(double minHeight, double maxHeight) {
+		this.minHeight = minHeight;
+		this.maxHeight = maxHeight;
+	}
+
+	/**
+	 * Sets the range of initial fuel amounts a Rocket can be given.
+	 * @param minFuel the smallest initial fuel amount
+	 * @param maxFuel the largest initial fuel amount
+	 */
+	public void setFuelRange(double minFuel, double maxFuel) {
+		this.minFuel = minFuel;
+		this.maxFuel = maxFuel;
+	}
+
+	/**
+	 * Simulates every landing and summarizes the results. Each thread runs a
+	 * contiguous share of the landings and writes its results into its own
+	 * part of the result arrays, so the threads never wait on each other.
+	 * @return a report of the batch's outcomes
+	 */
+	public MonteCarloReport run() {
+
+		LandingResult [] results = new LandingResult[getRuns()];
+		int threadCount = Math.max(1, Math.min(getThreads(), getRuns()));
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+		long startTime = System.nanoTime();
+
+		try {
+
+			List<Future<?>> tasks = new ArrayList<Future<?>>();
+			int share = (getRuns() + threadCount - 1) / threadCount;
+
+			for (int start = 0; start < getRuns(); start += share) {
+
+				int from = start;
+				int to = Math.min(start + share, getRuns());
+				tasks.add(executor.submit(() -> simulateRange(results, from, to)));
+
+			}
+
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Monte Carlo run interrupted", e);
+
+		} catch (ExecutionException e) {
+
+			throw new IllegalStateException("Monte Carlo run failed", e.getCause());
+
+		} finally {
+
+			executor.shutdown();
+
+		}
+
+		double elapsedSeconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+		return summarize(results, elapsedSeconds);
+
+	}
+
+	/**
+	 * Simulates the landings with indices from <code>from</code> up to, but
+	 * not including, <code>to</code>. Each landing draws from its own stream,
+	 * split from the batch's seed by the landing's index, so its result
+	 * doesn't depend on which thread runs it.
+	 * @param results the array to store each landing's result in
+	 * @param from the first landing's index
+	 * @param to one past the last landing's index
+	 */
+	private void simulateRange(LandingResult [] results, int from, int to) {
+
+		HeadlessSimulator simulator = new HeadlessSimulator();
+		RandomStream random = new RandomStream(getSeed());
+
+		for (int i = from; i < to; i++) {
+
+			RandomStream runRandom = random.split(i);
+			double xVelocity = runRandom.nextDouble(-getMaxXSpeed(), getMaxXSpeed());
+			double height = runRandom.nextDouble(minHeight, maxHeight);
+			double fuel = runRandom.nextDouble(minFuel, maxFuel);
+			results[i] = simulator.simulateAutomaticLanding(xVelocity, height,
+				fuel, runRandom.nextLong());
+
+		}
+
+	}
+
+	/**
+	 * Combines the results of every landing into a report. Landing velocity
+	 * and angle are only measured for flights that touched the ground.
+	 * @param results every landing's result
+	 * @param elapsedSeconds the real time the batch took
+	 * @return the batch's report
+	 */
+	private MonteCarloReport summarize(LandingResult [] results,
+			double elapsedSeconds) {
+
+		double [] velocities = new double[results.length];
+		double [] angles = new double[results.length];
+		double [] fuelUsed = new double[results.length];
+		int successes = 0;
+		int landings = 0;
+
+		for (int i = 0; i < results.length; i++) {
+
+			if (results[i].hasLanded()) {
+
+				velocities[landings] = results[i].getLandingVelocity();
+				angles[landings] = results[i].getLandingAngle();
+				landings++;
+
+			}
+
+			if (results[i].isSuccessful()) {
+				successes++;
+			}
+
+			fuelUsed[i] = results[i].getFuelUsed();
+
+		}
+
+		return new MonteCarloReport(results.length, successes, landings,
+			new Distribution(Arrays.copyOf(velocities, landings)),
+			new Distribution(Arrays.copyOf(angles, landings)),
+			new Distribution(fuelUsed), elapsedSeconds);
+
+	}
+
+	/**
+	 * Runs a batch of automatic landings and prints the report. The number
+	 * of landings, threads, and the seed may be given as the first, second,
+	 * and third arguments.
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+
+		MonteCarloRunner runner = new MonteCarloRunner();
+
+		if (args.length > 0) {
+			runner.setRuns(Integer.parseInt(args[0]));
+		}
+
+		if (args.length > 1) {
+			runner.setThreads(Integer.parseInt(args[1]));
+		}
+
+		if (args.length > 2) {
+			runner.setSeed(Long.parseLong(args[2]));
+		}
+
+		System.out.println("seed: " + runner.getSeed());
+		System.out.println(runner.run());
+
+	}
+
+}
@@ -0,0 +1,113 @@
+package simulation;
+import java.util.ArrayList;
+
+import rocket.Rocket;
+import util.Entity;
+import world.World;
+
+/**
+ * A class that holds a copy of the state of every Rocket in a World after a
+ * simulation step, so it can be handed from the simulation thread to the
+ * JavaFX application thread. Once published, a snapshot isn't changed until
+ * the reader is done with it, so it can be read without any locking.
+ * <p>
+ * The copied Rockets are created the first time a snapshot is captured and
+ * reused after that, so capturing only copies numbers and Particles.
+ */
+public class RenderSnapshot {
+
+	private ArrayList<Rocket> rockets = new ArrayList<Rocket>();
+	private long stepCount = 0;
+	private long publishedNanos = 0;
+	private double interpolationAlpha = 1;
+
+	/**
+	 * Gets the number of simulation steps run before the snapshot was
+	 * captured.
+	 * @return the step count
+	 */
+	public long getStepCount() {
+		return stepCount;
+	}
+
+	/**
+	 * Gets the time the snapshot was captured at, from
+	 * <code>System.nanoTime()</code>.
+	 * @return the capture time, in nanoseconds
+	 */
+	public long getPublishedNanos() {
+		return publishedNanos;
+	}
+
+	/**
+	 * Gets the fraction of a step that had accumulated in the simulation's
+	 * FixedTimestep, but not been run yet, when the snapshot was captured.
+	 * @return the interpolation factor, from 0 (previous) to 1 (current)
+	 */
+	public double getInterpolationAlpha() {
+		return interpolationAlpha;
+	}
+
+	/**
+	 * Copies the state of every Rocket in a World into the snapshot.
+	 * @param world the World to capture
+	 * @param stepCount the number of steps the World has been ticked
+	 * @param publishedNanos the time of the capture
+	 * @param interpolationAlpha the FixedTimestep's alpha at the capture
+	 */
+	public void capture(World world, long stepCount, long publishedNanos,
+			double interpolationAlpha) {
+
+		int rocketCount = 0;
+
+		for (Entity entity : world.getObjects()) {
+
+			if (entity instanceof Rocket) {
+
+				Rocket rocket = (Rocket) entity;
+
+				if (rocketCount < rockets.size()) {
+					rockets.get(rocketCount).copyStateFrom(rocket);
+				} else {
+					rockets.add(rocket.copy());
+				}
+
+				rocketCount++;
+
+			}
+
+		}
+
+		while (rockets.size() > rocketCount) {
+			rockets.remove(rockets.size() - 1);
+		}
+
+		this.stepCount = stepCount;
+		this.publishedNanos = publishedNanos;
+		this.interpolationAlpha = interpolationAlpha;
+
+	}
+
+	/**
+	 * Copies the snapshot's state onto the Rockets of another World, which
+	 * must hold the same Rockets in the same order as the captured World.
+	 * @param world the World to update
+	 */
+	public void apply(World world) {
+
+		int rocketCount = 0;
+
+		for (Entity entity : world.getObjects()) {
+
+			if (entity instanceof Rocket && rocketCount < rockets.size()) {
+
+				((Rocket) entity).copyStateFrom(rockets.get(rocketCount));
+				rocketCount++;
+
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,652 @@
+package simulation;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleConsumer;
+
+import rocket.Rocket;
+import rocket.UserControlledRocket;
+import util.Entity;
+import util.InputQueue;
+import util.KeyboardHandler;
+import util.TripleBuffer;
+import world.RewindHistory;
+import world.World;
+import world.WorldSnapshot;
+
+/**
+ * A class that runs a simulation on its own thread, at a fixed rate that
+ * doesn't depend on the JavaFX pulse. The thread ticks a private copy of the
+ * drawn World's Rockets, and after each batch of steps publishes a
+ * RenderSnapshot of them through a TripleBuffer. The JavaFX application
+ * thread only copies the latest snapshot into the drawn World, so a stall
+ * on either thread doesn't hold up the other. Each snapshot carries the
+ * FixedTimestep's leftover fraction of a step when it was captured, which
+ * drawn positions are interpolated with.
+ * <p>
+ * Key events are timestamped and pushed onto a lock-free InputQueue by the
+ * JavaFX application thread. The simulation thread handles each one just
+ * before the first step that starts after it happened, so only the
+ * simulation thread ever touches the simulated Rockets, and a key press
+ * takes effect at the same point in simulated time however the steps are
+ * batched. The delay between a key event and its handling is measured.
+ * While the simulation is paused, or its World is settled, the thread
+ * sleeps until it is woken by new input.
+ * <p>
+ * Time can be sped up by a time scale, which makes each step simulate more
+ * time. The World splits each step into sub-steps of its max step size, so
+ * the physics stays stable, and a snapshot is still published once per
+ * step, so only one frame is drawn for every sub-step batch. Key events are
+ * mapped onto the sub-step whose share of the step's real time they
+ * happened in. The simulation can also fast-forward at the max time scale
+ * until the next landing, collision, or key event.
+ * <p>
+ * The C key saves a checkpoint of the whole simulated World, and the R key
+ * puts the World back to the checkpoint, so a landing can be retried from
+ * any point without starting over.
+ * <p>
+ * Every step is recorded in a RewindHistory. While the Z key is held, the
+ * simulation runs backwards through the history instead of stepping
+ * forwards, and carries on from wherever the key is released. Positions
+ * are saved as previous before each step back, so drawn frames move
+ * smoothly backwards too.
+ */
+public class SimulationThread {
+
+	public static final double MIN_TIME_SCALE = 1;
+	public static final double MAX_TIME_SCALE = 100;
+	public static final int REWIND_FRAMES_PER_STEP = 2; // Rewind speed
+
+	private World renderWorld;
+	private World simulationWorld;
+	private FixedTimestep timestep = new FixedTimestep();
+
+	private TripleBuffer<RenderSnapshot> snapshots;
+	private InputQueue input = new InputQueue();
+	private KeyboardHandler keyboardHandler;
+	private WorldSnapshot checkpoint = new WorldSnapshot();
+	private volatile boolean checkpointSaved = false;
+	private RewindHistory history = new RewindHistory(
+		RewindHistory.DEFAULT_MAX_SECONDS,
+		(int) Math.round(1 / timestep.getStepSize()));
+	private volatile boolean rewinding = false;
+
+	private volatile long lastInputLatencyNanos = 0;
+	private volatile long maxInputLatencyNanos = 0;
+	private volatile long totalInputLatencyNanos = 0;
+	private volatile long inputsHandled = 0;
+
+	private Thread thread;
+	private volatile boolean running = false;
+	private volatile boolean paused = false;
+	private volatile long stepCount = 0;
+	private volatile boolean settled = true;
+	private volatile Runnable publishListener;
+	private volatile double timeScale = MIN_TIME_SCALE;
+	private volatile boolean fastForwarding = false;
+
+	private long lastPublishedNanos = 0;
+	private double interpolationAlpha = 1;
+	private double tickStartNanos = 0;
+	private double tickNanos = 0;
+	private double tickTime = 0;
+	private final DoubleConsumer subStepInput = this::handleSubStepInput;
+
+	/**
+	 * Creates a SimulationThread that simulates the Rockets of the given
+	 * World. The World is only read when the simulation starts, and only
+	 * updated when <code>applyLatestSnapshot()</code> is called.
+	 * @param renderWorld the World that is drawn
+	 */
+	public SimulationThread(World renderWorld) {
+
+		this.renderWorld = renderWorld;
+
+	}
+
+	/**
+	 * Gets the FixedTimestep that sets the simulation's step size.
+	 * @return the simulation's FixedTimestep
+	 */
+	public FixedTimestep getTimestep() {
+		return timestep;
+	}
+
+	/**
+	 * Gets the World simulated on the simulation thread. It must not be used
+	 * by any other thread while the simulation is running.
+	 * @return the simulated World, or null if the simulation was never
+	 * started
+	 */
+	public World getSimulationWorld() {
+		return simulationWorld;
+	}
+
+	/**
+	 * Returns true if a checkpoint has been saved since the simulation
+	 * started, so the simulation can be retried from it.
+	 * @return whether there is a checkpoint
+	 */
+	public boolean hasCheckpoint() {
+		return checkpointSaved;
+	}
+
+	/**
+	 * Gets the RewindHistory that the simulated World is recorded in. It
+	 * must only be used on the simulation thread, or while the simulation
+	 * is stopped.
+	 * @return the rewind history
+	 */
+	public RewindHistory getHistory() {
+		return history;
+	}
+
+	/**
+	 * Returns true while the rewind key is held and the simulation is
+	 * running backwards.
+	 * @return whether the simulation is rewinding
+	 */
+	public boolean isRewinding() {
+		return rewinding;
+	}
+
+	/**
+	 * Returns true if the simulation can't change until it gets new input:
+	 * the simulation thread is asleep because its World has settled, or 
+	 * isn't running, no key events are waiting, and the last published 
+	 * snapshot has been applied. This is the state the simulation thread
+	 * owns, so it can be trusted when the drawn World hasn't caught up yet.
+	 * @return whether the simulation is settled
+	 */
+	public boolean isSettled() {
+
+		// The flag is read first, since it is set after the last publish
+		return settled && input.isEmpty() &&
+			(snapshots == null || !snapshots.hasUpdate());
+
+	}
+
+	/**
+	 * Gets the listener that is run on the simulation thread each time a
+	 * snapshot is published.
+	 * @return the publish listener, or null if there isn't one
+	 */
+	public Runnable getPublishListener() {
+		return publishListener;
+	}
+
+	/**
+	 * Sets a listener to run on the simulation thread each time a snapshot
+	 * is published, so that a drawing loop that has stopped can be restarted.
+	 * The listener must return quickly.
+	 * @param publishListener the publish listener, or null for none
+	 */
+	public void setPublishListener(Runnable publishListener) {
+		this.publishListener = publishListener;
+	}
+
+	/**
+	 * Gets the number of steps simulated since the simulation started.
+	 * @return the step count
+	 */
+	public long getStepCount() {
+		return stepCount;
+	}
+
+	/**
+	 * Returns true if the simulation thread is running.
+	 * @return whether the simulation is running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Returns true if the simulation is paused.
+	 * @return whether the simulation is paused
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 * Gets the InputQueue that key events are passed to the simulation
+	 * thread through.
+	 * @return the simulation's InputQueue
+	 */
+	public InputQueue getInput() {
+		return input;
+	}
+
+	/**
+	 * Gets the delay between the last handled key event happening and the
+	 * simulation thread applying it to the Rocket. The delay is the time,
+	 * from <code>System.nanoTime()</code>, at which the event was taken off
+	 * the InputQueue, minus the time at which it was queued.
+	 * @return the last input latency, in nanoseconds
+	 */
+	public long getLastInputLatencyNanos() {
+		return lastInputLatencyNanos;
+	}
+
+	/**
+	 * Gets the longest delay between a key event being queued and being
+	 * taken off the InputQueue, since the simulation started.
+	 * @return the max input latency, in nanoseconds
+	 */
+	public long getMaxInputLatencyNanos() {
+		return maxInputLatencyNanos;
+	}
+
+	/**
+	 * Gets the average delay between a key event being queued and being
+	 * taken off the InputQueue, since the simulation started.
+	 * @return the average input latency, in nanoseconds, or 0 if no key
+	 * events have been handled
+	 */
+	public long getAverageInputLatencyNanos() {
+
+		long handled = inputsHandled;
+		return handled == 0 ? 0 : totalInputLatencyNanos / handled;
+
+	}
+
+	/**
+	 * Gets the number of key events handled since the simulation started.
+	 * @return the handled key event count
+	 */
+	public long getInputsHandled() {
+		return inputsHandled;
+	}
+
+	/**
+	 * Pauses or resumes the simulation. Time spent paused isn't simulated.
+	 * @param paused whether the simulation should be paused
+	 */
+	public void setPaused(boolean paused) {
+
+		if (this.paused != paused) {
+
+			this.paused = paused;
+			wake();
+
+		}
+
+	}
+
+	/**
+	 * Gets how many times faster than real time the simulation runs when it
+	 * isn't fast-forwarding.
+	 * @return the time scale
+	 */
+	public double getTimeScale() {
+		return timeScale;
+	}
+
+	/**
+	 * Sets how many times faster than real time the simulation runs. The time
+	 * scale is kept between MIN_TIME_SCALE and MAX_TIME_SCALE.
+	 * @param timeScale the new time scale
+	 */
+	public void setTimeScale(double timeScale) {
+		this.timeScale = Math.max(MIN_TIME_SCALE,
+			Math.min(MAX_TIME_SCALE, timeScale));
+	}
+
+	/**
+	 * Gets how many times faster than real time the simulation is running
+	 * right now, which is MAX_TIME_SCALE while fast-forwarding.
+	 * @return the current time scale
+	 */
+	public double getEffectiveTimeScale() {
+		return isFastForwarding() ? MAX_TIME_SCALE : getTimeScale();
+	}
+
+	/**
+	 * Returns true if the simulation is fast-forwarding to the next event.
+	 * @return whether the simulation is fast-forwarding
+	 */
+	public boolean isFastForwarding() {
+		return fastForwarding;
+	}
+
+	/**
+	 * Runs the simulation at MAX_TIME_SCALE until a Rocket lands or crashes,
+	 * a key event is handled, or the World settles, and then goes back to the
+	 * normal time scale.
+	 */
+	public void fastForwardToNextEvent() {
+
+		fastForwarding = true;
+		wake();
+
+	}
+
+	/**
+	 * Stops fast-forwarding and goes back to the normal time scale.
+	 */
+	public void cancelFastForward() {
+		fastForwarding = false;
+	}
+
+	/**
+	 * Copies the drawn World's Rockets into a new simulated World and starts
+	 * simulating them on a new thread. A simulation that is already running
+	 * is stopped first.
+	 */
+	public void start() {
+
+		stop();
+
+		simulationWorld = new World(renderWorld.getWindowWidth(),
+			renderWorld.getWindowHeight(), renderWorld.getSeed());
+
+		for (Entity entity : renderWorld.getObjects()) {
+
+			if (entity instanceof Rocket) {
+
+				Rocket copy = ((Rocket) entity).copy();
+				simulationWorld.getObjects().add(copy);
+
+				if (entity == renderWorld.getPrimaryRocket()) {
+					simulationWorld.setPrimaryRocket(copy);
+				}
+
+			}
+
+		}
+
+		Rocket primaryRocket = simulationWorld.getPrimaryRocket();
+		keyboardHandler = primaryRocket instanceof UserControlledRocket ?
+			new KeyboardHandler((UserControlledRocket) primaryRocket) : null;
+
+		snapshots = new TripleBuffer<RenderSnapshot>(RenderSnapshot::new);
+		input.clear();
+		lastInputLatencyNanos = 0;
+		maxInputLatencyNanos = 0;
+		totalInputLatencyNanos = 0;
+		inputsHandled = 0;
+		fastForwarding = false;
+		checkpointSaved = false;
+		rewinding = false;
+		history.clear();
+		history.record(simulationWorld);
+		timestep.reset();
+		stepCount = 0;
+		lastPublishedNanos = System.nanoTime();
+		interpolationAlpha = 1;
+
+		settled = false;
+		running = true;
+		thread = new Thread(this::run, "Simulation");
+		thread.setDaemon(true);
+		thread.start();
+
+	}
+
+	/**
+	 * Stops the simulation thread and waits for it to finish its step.
+	 */
+	public void stop() {
+
+		if (thread == null) {
+			return;
+		}
+
+		running = false;
+		wake();
+
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		thread = null;
+		history.close();
+		settled = true;
+
+	}
+
+	/**
+	 * Timestamps a key event and queues it to be handled on the simulation
+	 * thread, and wakes the thread if it is sleeping. Keys that don't
+	 * control the Rocket are ignored. This must only be called from one
+	 * thread.
+	 * @param key the key's KEY_ constant from KeyboardHandler, or 0 for a
+	 * key that isn't used
+	 * @param pressed true if the key was pressed, false if released
+	 */
+	public void postInput(int key, boolean pressed) {
+
+		if (key == 0) {
+			return;
+		}
+
+		input.offer(pressed ? key | InputQueue.PRESSED : key, System.nanoTime());
+		wake();
+
+	}
+
+	/**
+	 * Copies the latest published snapshot onto the drawn World's Rockets, if
+	 * one has been published since the last call. This must be called on the
+	 * thread that draws the World.
+	 * @return true if the drawn World changed
+	 */
+	public boolean applyLatestSnapshot() {
+
+		if (snapshots == null || !snapshots.update()) {
+			return false;
+		}
+
+		RenderSnapshot snapshot = snapshots.getReadBuffer();
+		snapshot.apply(renderWorld);
+		lastPublishedNanos = snapshot.getPublishedNanos();
+		interpolationAlpha = snapshot.getInterpolationAlpha();
+		return true;
+
+	}
+
+	/**
+	 * Gets the time the last applied snapshot was captured at. This must be
+	 * called on the thread that draws the World.
+	 * @return the capture time, from <code>System.nanoTime()</code>
+	 */
+	public long getLastPublishedNanos() {
+		return lastPublishedNanos;
+	}
+
+	/**
+	 * Gets the fraction of a step that the simulation's FixedTimestep had
+	 * accumulated, but not run yet, when the last applied snapshot was
+	 * captured, to interpolate drawn positions with. It comes from the
+	 * simulated time rather than the wall clock, so drawn positions never
+	 * run ahead of a step that was actually simulated. This must be called
+	 * on the thread that draws the World.
+	 * @return the interpolation factor, from 0 (previous) to 1 (current)
+	 */
+	public double getInterpolationAlpha() {
+		return interpolationAlpha;
+	}
+
+	/**
+	 * Wakes the simulation thread if it is sleeping.
+	 */
+	private void wake() {
+
+		Thread current = thread;
+
+		if (current != null) {
+			LockSupport.unpark(current);
+		}
+
+	}
+
+	/**
+	 * Handles every queued key event that happened at or before a given
+	 * time, and records how long each one waited: the time it is taken off
+	 * the queue, from <code>System.nanoTime()</code>, minus its timestamp.
+	 * @param time the time, from <code>System.nanoTime()</code>, of the
+	 * start of the next step or sub-step
+	 */
+	private void handleInput(long time) {
+
+		while (input.peekTimestamp() <= time) {
+
+			int event = input.peekEvent();
+			long latency = System.nanoTime() - input.peekTimestamp();
+			input.remove();
+
+			int key = event & ~InputQueue.PRESSED;
+			boolean pressed = (event & InputQueue.PRESSED) != 0;
+
+			if (key == KeyboardHandler.KEY_C || key == KeyboardHandler.KEY_R) {
+
+				if (pressed) {
+					handleCheckpointKey(key);
+				}
+
+			} else if (key == KeyboardHandler.KEY_Z) {
+
+				rewinding = pressed;
+
+			} else if (keyboardHandler != null) {
+				keyboardHandler.handle(key, pressed);
+			}
+
+			// A key press is an event, so the user gets control back
+			fastForwarding = false;
+			lastInputLatencyNanos = latency;
+			maxInputLatencyNanos = Math.max(maxInputLatencyNanos, latency);
+			totalInputLatencyNanos += latency;
+			inputsHandled++;
+
+		}
+
+	}
+
+	/**
+	 * Saves a checkpoint of the simulated World, or restores the last one.
+	 * @param key KEY_C to save a checkpoint, or KEY_R to restore it
+	 */
+	private void handleCheckpointKey(int key) {
+
+		if (key == KeyboardHandler.KEY_C) {
+
+			checkpoint.capture(simulationWorld);
+			checkpointSaved = true;
+
+		} else if (checkpointSaved) {
+
+			checkpoint.restore(simulationWorld);
+
+		}
+
+	}
+
+	/**
+	 * Handles the key events that happened before a sub-step of the current
+	 * tick starts. At a high time scale one step covers many sub-steps, so
+	 * each key event is mapped to the sub-step whose share of the step's
+	 * real time it happened in, rather than to the first one.
+	 * @param elapsed the simulated time, in seconds, that has passed in the
+	 * tick before the sub-step
+	 */
+	private void handleSubStepInput(double elapsed) {
+		handleInput((long) (tickStartNanos + elapsed / tickTime * tickNanos));
+	}
+
+	/**
+	 * The simulation loop. Each pass runs the steps that are due, handling
+	 * the key events that happened before each of their sub-steps, publishes
+	 * a snapshot, and sleeps until the next step is due, or until it is
+	 * woken if there is nothing to simulate.
+	 */
+	private void run() {
+
+		long lastNanos = System.nanoTime();
+
+		while (running) {
+
+			if (paused) {
+
+				LockSupport.park(this);
+				timestep.reset();
+				lastNanos = System.nanoTime();
+				continue;
+
+			}
+
+			long now = System.nanoTime();
+			int steps = timestep.advance((now - lastNanos) / 1_000_000_000.0);
+			lastNanos = now;
+
+			// The steps run now cover the time up to a fraction of a step ago
+			double stepNanos = timestep.getStepSize() * 1_000_000_000.0;
+			double firstStepStart = now - (timestep.getAlpha() + steps) * stepNanos;
+
+			for (int i = 0; i < steps; i++) {
+
+				tickStartNanos = firstStepStart + i * stepNanos;
+				handleInput((long) tickStartNanos);
+				stepCount++;
+
+				if (rewinding) {
+
+					// Drawn frames move from where the World was to each step back
+					simulationWorld.savePreviousPositions();
+
+					for (int j = 0; j < REWIND_FRAMES_PER_STEP; j++) {
+						history.stepBack(simulationWorld);
+					}
+
+					continue;
+
+				}
+
+				tickNanos = stepNanos;
+				tickTime = timestep.getStepSize() * getEffectiveTimeScale();
+				simulationWorld.tick(tickTime, subStepInput);
+				history.record(simulationWorld);
+
+				if (!simulationWorld.getLandings().isEmpty() ||
+						!simulationWorld.getCollisions().isEmpty()) {
+					fastForwarding = false;
+				}
+
+			}
+
+			if (steps > 0) {
+
+				snapshots.getWriteBuffer().capture(simulationWorld, stepCount, now,
+					timestep.getAlpha());
+				snapshots.publish();
+				Runnable listener = publishListener;
+
+				if (listener != null) {
+					listener.run();
+				}
+
+			}
+
+			if (simulationWorld.isSettled() && input.isEmpty() && !rewinding) {
+
+				// Nothing can change until there is new input
+				fastForwarding = false;
+				settled = true;
+				LockSupport.park(this);
+				settled = false;
+				timestep.reset();
+				lastNanos = System.nanoTime();
+
+			} else {
+
+				LockSupport.parkNanos(this,
+					(long) ((1 - timestep.getAlpha()) * stepNanos));
+
+			}
+
+		}
+
+	}
+
+}
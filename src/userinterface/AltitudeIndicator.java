@@ -2,14 +2,13 @@ package userinterface;
 
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import util.Entity;
 import rocket.Rocket;
 
 /**
  * An element that shows the user a simple representation of the Rocket's
  * altitude when drawn.
  */
-public class AltitudeIndicator extends Entity {
+public class AltitudeIndicator extends InterfaceElement {
 	
 	private Rocket rocket;
 	private double maxAltitude;
@@ -0,0 +1,153 @@
+package userinterface;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws a button that fast-forwards the simulation to its next event, like
+ * a landing. Clicking it again while the simulation is fast-forwarding 
+ * cancels the fast-forward. The simulator class takes the button's requests
+ * every frame, and tells it whether the simulation is fast-forwarding so
+ * that it can be highlighted.
+ */
+public class FastForwardButton extends CustomButton {
+
+	private boolean requested = false;
+	private boolean active = false;
+
+	private Color symbolColor = Color.BLACK;
+	private Color activeSymbolColor = Color.GREEN;
+
+	private double symbolWidth;
+	private double symbolHeight;
+
+	/**
+	 * Creates a FastForwardButton with the given x and y offsets and 
+	 * dimensions.
+	 * @param xOffset the FastForwardButton's x offset
+	 * @param yOffset the FastForwardButton's y offset
+	 * @param width the FastForwardButton's width
+	 * @param height the FastForwardButton's height
+	 */
+	public FastForwardButton(double xOffset, double yOffset, double width, double height) {
+
+		super(xOffset, yOffset, width, height);
+		this.symbolWidth = width / 2;
+		this.symbolHeight = height / 2;
+
+	}
+
+	/**
+	 * Returns true if the button was clicked since the last call, and clears
+	 * the click.
+	 * @return whether the button was clicked
+	 */
+	public boolean takeRequest() {
+
+		boolean wasRequested = requested;
+		requested = false;
+		return wasRequested;
+
+	}
+
+	/**
+	 * Returns true if the simulation is fast-forwarding.
+	 * @return whether the FastForwardButton is highlighted
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Sets whether the simulation is fast-forwarding, which highlights the
+	 * button.
+	 * @param active whether the simulation is fast-forwarding
+	 */
+	public void setActive(boolean active) {
+		this.active = active;
+	}
+
+	/**
+	 * Gets the color of the fast-forward symbol.
+	 * @return the symbol color
+	 */
+	public Color getSymbolColor() {
+		return symbolColor;
+	}
+
+	/**
+	 * Sets the color of the fast-forward symbol.
+	 * @param symbolColor the new symbol color
+	 */
+	public void setSymbolColor(Color symbolColor) {
+		this.symbolColor = symbolColor;
+	}
+
+	/**
+	 * Gets the color of the fast-forward symbol while the simulation is
+	 * fast-forwarding.
+	 * @return the active symbol color
+	 */
+	public Color getActiveSymbolColor() {
+		return activeSymbolColor;
+	}
+
+	/**
+	 * Sets the color of the fast-forward symbol while the simulation is
+	 * fast-forwarding.
+	 * @param activeSymbolColor the new active symbol color
+	 */
+	public void setActiveSymbolColor(Color activeSymbolColor) {
+		this.activeSymbolColor = activeSymbolColor;
+	}
+
+	/**
+	 * Draws two triangles and a bar, the 'skip to next' symbol, within the 
+	 * bounds of the FastForwardButton.
+	 * @param gc the GraphicsContext used to draw the FastForwardButton
+	 */
+	private void drawSymbol(GraphicsContext gc) {
+
+		double left = getX() - symbolWidth / 2;
+		double triangleWidth = symbolWidth * 2 / 5;
+		double barWidth = symbolWidth / 5;
+		double top = getCenterY() - symbolHeight / 2;
+		double bottom = getCenterY() + symbolHeight / 2;
+
+		gc.setFill(isActive() ? getActiveSymbolColor() : getSymbolColor());
+
+		for (int i = 0; i < 2; i++) {
+
+			double triangleLeft = left + i * triangleWidth;
+			gc.fillPolygon(
+				new double[] {triangleLeft, triangleLeft, triangleLeft + triangleWidth},
+				new double[] {bottom, top, getCenterY()},
+				3);
+
+		}
+
+		gc.fillRect(left + 2 * triangleWidth, top, barWidth, symbolHeight);
+
+	}
+
+	@Override
+	public void draw(GraphicsContext gc) {
+
+		if (isVisible()) {
+
+			gc.setFill(getBaseColor());
+			gc.fillRoundRect(getX() - getWidth() / 2, getY(), getWidth(), getHeight(), 10, 10);
+			gc.setStroke(getStrokeColor());
+			gc.strokeRoundRect(getX() - getWidth() / 2, getY(), getWidth(), getHeight(), 10, 10);
+
+			drawSymbol(gc);
+
+		}
+
+	}
+
+	@Override
+	void onClick() {
+		requested = true;
+	}
+
+}
@@ -1,14 +1,13 @@
 package userinterface;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import util.Entity;
 import rocket.Rocket;
 
 /**
  * An element that shows the user a visual representation of how much fuel the
  * Rocket has left.
  */
-public class FuelIndicator extends Entity {
+public class FuelIndicator extends InterfaceElement {
 	
 	private Rocket rocket;
 	private double maxFuelLevel;
@@ -0,0 +1,41 @@
+package userinterface;
+import javafx.scene.canvas.GraphicsContext;
+
+import util.Entity;
+
+/**
+ * A class for the elements of the UserInterface sidebar, which, unlike the
+ * simulation's Entities, draw themselves on a Canvas.
+ */
+public abstract class InterfaceElement extends Entity {
+
+	/**
+	 * Creates an InterfaceElement with arguments for x and y, and the default
+	 * width and height.
+	 * @param x the middle x coordinate of the InterfaceElement
+	 * @param y the top y coordinate of the InterfaceElement
+	 */
+	public InterfaceElement(double x, double y) {
+		super(x, y);
+	}
+
+	/**
+	 * Creates an InterfaceElement with no x and y position with the given x
+	 * and y offsets and dimensions.
+	 * @param xOffset the InterfaceElement's x offset
+	 * @param yOffset the InterfaceElement's y offset
+	 * @param width the InterfaceElement's width
+	 * @param height the InterfaceElement's height
+	 */
+	public InterfaceElement(double xOffset, double yOffset, double width,
+					double height) {
+		super(xOffset, yOffset, width, height);
+	}
+
+	/**
+	 * Draws the InterfaceElement on a Canvas
+	 * @param gc the Canvas's GraphicsContext
+	 */
+	public abstract void draw(GraphicsContext gc);
+
+}
@@ -5,17 +5,17 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.ArcType;
 import javafx.scene.text.Font;
 import javafx.scene.text.TextAlignment;
-import util.Entity;
 
 /**
  * A clock element that shows the user how much time has passed since the start
  * of the simulation.
  */
-public class TimeIndicator extends Entity {
+public class TimeIndicator extends InterfaceElement {
 	
 	private boolean forcePaused = false;
 	private boolean paused = false;
 	private double internalTime = 0;
+	private double timeScale = 1;
 	
 	private double clockHandAngle = 90;
 	private double clockRadius;
@@ -70,6 +70,24 @@ public class TimeIndicator extends Entity {
 		this.internalTime = internalTime;
 	}
 
+	/**
+	 * Gets how many times faster than real time the TimeIndicator's clock
+	 * runs, to match the simulation's time scale.
+	 * @return the TimeIndicator's time scale
+	 */
+	public double getTimeScale() {
+		return timeScale;
+	}
+
+	/**
+	 * Sets how many times faster than real time the TimeIndicator's clock
+	 * runs.
+	 * @param timeScale the TimeIndicator's new time scale
+	 */
+	public void setTimeScale(double timeScale) {
+		this.timeScale = timeScale;
+	}
+
 	/**
 	 * Returns whether the TimeIndicator has been force paused. This property 
 	 * allows the TimeIndicator to be paused even if the TogglePlayButton state 
@@ -305,6 +323,7 @@ public class TimeIndicator extends Entity {
 
 		if (!isPaused() && !isForcePaused()) {
 
+			timeElapsed *= getTimeScale();
 			setClockHandAngle(getClockHandAngle() + (timeElapsed * 360));
 			
 			if (getInternalTime() > 999) {
@@ -0,0 +1,92 @@
+package userinterface;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Draws a button that shows how many times faster than real time the 
+ * simulation runs, and steps through the available time scales when it is
+ * clicked, going back to real time after the fastest one. The simulator 
+ * class reads the TimeWarpButton's time scale every frame.
+ */
+public class TimeWarpButton extends CustomButton {
+
+	private static final double [] TIME_SCALES = {1, 2, 5, 10, 25, 50, 100};
+
+	private int timeScaleIndex = 0;
+
+	private Color textColor = Color.BLACK;
+	private Font font = new Font(14);
+
+	/**
+	 * Creates a TimeWarpButton with the given x and y offsets and dimensions.
+	 * @param xOffset the TimeWarpButton's x offset
+	 * @param yOffset the TimeWarpButton's y offset
+	 * @param width the TimeWarpButton's width
+	 * @param height the TimeWarpButton's height
+	 */
+	public TimeWarpButton(double xOffset, double yOffset, double width, double height) {
+
+		super(xOffset, yOffset, width, height);
+
+	}
+
+	/**
+	 * Gets how many times faster than real time the simulation should run.
+	 * @return the selected time scale
+	 */
+	public double getTimeScale() {
+		return TIME_SCALES[timeScaleIndex];
+	}
+
+	/**
+	 * Goes back to running the simulation in real time.
+	 */
+	public void reset() {
+		timeScaleIndex = 0;
+	}
+
+	/**
+	 * Gets the color of the time scale's text.
+	 * @return the text color
+	 */
+	public Color getTextColor() {
+		return textColor;
+	}
+
+	/**
+	 * Sets the color of the time scale's text.
+	 * @param textColor the new text color
+	 */
+	public void setTextColor(Color textColor) {
+		this.textColor = textColor;
+	}
+
+	@Override
+	public void draw(GraphicsContext gc) {
+
+		if (isVisible()) {
+
+			gc.setFill(getBaseColor());
+			gc.fillRoundRect(getX() - getWidth() / 2, getY(), getWidth(), getHeight(), 10, 10);
+			gc.setStroke(getStrokeColor());
+			gc.strokeRoundRect(getX() - getWidth() / 2, getY(), getWidth(), getHeight(), 10, 10);
+
+			gc.setFill(getTextColor());
+			gc.setTextAlign(TextAlignment.CENTER);
+			gc.setFont(font);
+			gc.setTextBaseline(VPos.CENTER);
+			gc.fillText(Math.round(getTimeScale()) + "x", getX(), getCenterY());
+
+		}
+
+	}
+
+	@Override
+	void onClick() {
+		timeScaleIndex = (timeScaleIndex + 1) % TIME_SCALES.length;
+	}
+
+}
@@ -13,7 +13,7 @@ import rocket.Rocket;
  * class reads the TogglePlayButton's state to determine if the simulation
  * should be paused)
  */
-public class UserInterface extends Entity {
+public class UserInterface extends InterfaceElement {
 
 	private double minWidth = 0;
 	private double maxWidth;
@@ -27,6 +27,10 @@ public class UserInterface extends Entity {
 
 	private TogglePlayButton togglePlayButton;
 
+	private TimeWarpButton timeWarpButton;
+
+	private FastForwardButton fastForwardButton;
+
 	private VerticalVelocityIndicator verticalVelocityIndicator;
 
 	private HorizontalVelocityIndicator horizontalVelocityIndicator;
@@ -34,7 +38,8 @@ public class UserInterface extends Entity {
 	private MinimizeMaximizeButton minimizeMaximizeButton;
 
 	ArrayList<CustomButton> buttons = new ArrayList<CustomButton>();
-	ArrayList<Entity> interfaceElements = new ArrayList<Entity>();
+	ArrayList<InterfaceElement> interfaceElements = 
+		new ArrayList<InterfaceElement>();
 	
 	private double transitionSpeed = 2;
 
@@ -103,7 +108,8 @@ public class UserInterface extends Entity {
 	}
 
 	/**
-	 * Creates buttons involved with the UserInterface.
+	 * Creates buttons involved with the UserInterface. The time controls are
+	 * stacked below the TogglePlayButton.
 	 * @param togglePlayButtonTopY the top y-coordinate for the 
 	 * TogglePlayButton
 	 */
@@ -116,6 +122,24 @@ public class UserInterface extends Entity {
 		));
 		buttons.add(getTogglePlayButton());
 
+		double timeWarpButtonTopY = togglePlayButtonTopY + 
+			getTogglePlayButton().getPrefHeight() + getElementVerticalSpacing();
+		setTimeWarpButton(new TimeWarpButton(getMaxWidth() / 4, 
+			timeWarpButtonTopY,
+			50, 
+			30
+		));
+		buttons.add(getTimeWarpButton());
+
+		double fastForwardButtonTopY = timeWarpButtonTopY + 
+			getTimeWarpButton().getPrefHeight() + getElementVerticalSpacing();
+		setFastForwardButton(new FastForwardButton(getMaxWidth() / 4, 
+			fastForwardButtonTopY,
+			30, 
+			30
+		));
+		buttons.add(getFastForwardButton());
+
 		setMinimizeMaximizeButton(new MinimizeMaximizeButton(
 			(getMaxWidth() + 20) / 2, getHeight() / 2 - 50, 20, 50));
 		buttons.add(getMinimizeMaximizeButton());
@@ -127,7 +151,7 @@ public class UserInterface extends Entity {
 	 * to the <code>elementVerticalSpacing</code> variable.
 	 * @param elements the elements to space out vertically
 	 */
-	private void setUniformYOffsets(ArrayList<Entity> elements) {
+	private void setUniformYOffsets(ArrayList<InterfaceElement> elements) {
 
 		Entity aboveEntity = elements.get(0);
 
@@ -162,6 +186,8 @@ public class UserInterface extends Entity {
 	public void reset() {
 
 		getTogglePlayButton().setState("PAUSE");
+		getTimeWarpButton().reset();
+		getFastForwardButton().setActive(false);
 		getTimeIndicator().setInternalTime(0);
 		getTimeIndicator().setPaused(false);
 		getTimeIndicator().setForcePaused(false);
@@ -282,6 +308,38 @@ public class UserInterface extends Entity {
 		this.togglePlayButton = togglePlayButton;
 	}
 
+	/**
+	 * Gets the UserInterface's TimeWarpButton.
+	 * @return the UserInterface's TimeWarpButton
+	 */
+	public TimeWarpButton getTimeWarpButton() {
+		return this.timeWarpButton;
+	}
+
+	/**
+	 * Sets the UserInterface's TimeWarpButton.
+	 * @param timeWarpButton the UserInterface's new TimeWarpButton
+	 */
+	public void setTimeWarpButton(TimeWarpButton timeWarpButton) {
+		this.timeWarpButton = timeWarpButton;
+	}
+
+	/**
+	 * Gets the UserInterface's FastForwardButton.
+	 * @return the UserInterface's FastForwardButton
+	 */
+	public FastForwardButton getFastForwardButton() {
+		return this.fastForwardButton;
+	}
+
+	/**
+	 * Sets the UserInterface's FastForwardButton.
+	 * @param fastForwardButton the UserInterface's new FastForwardButton
+	 */
+	public void setFastForwardButton(FastForwardButton fastForwardButton) {
+		this.fastForwardButton = fastForwardButton;
+	}
+
 	/**
 	 * Gets the UserInterface's MinimizeMaximizeButton.
 	 * @return the UserInterface's MinimizeMaximizeButton
@@ -353,7 +411,7 @@ public class UserInterface extends Entity {
 	 * Gets the list of all the UserInterface elements.
 	 * @return the interface elements
 	 */
-	public ArrayList<Entity> getInterfaceElements() {
+	public ArrayList<InterfaceElement> getInterfaceElements() {
 		return interfaceElements;
 	}
 
@@ -361,7 +419,8 @@ public class UserInterface extends Entity {
 	 * Sets the list of all the UserInterface elements.
 	 * @param interfaceElements the interface elements
 	 */
-	public void setInterfaceElements(ArrayList<Entity> interfaceElements) {
+	public void setInterfaceElements(
+			ArrayList<InterfaceElement> interfaceElements) {
 		this.interfaceElements = interfaceElements;
 	}
 
@@ -400,6 +459,25 @@ public class UserInterface extends Entity {
 		this.elementVerticalSpacing = elementVerticalSpacing;
 	}
 
+	/**
+	 * Returns true if the UserInterface's appearance changes on its own from
+	 * one frame to the next, which happens while it slides between its
+	 * minimized and maximized widths and while its TimeIndicator's clock is
+	 * running.
+	 * @return whether the UserInterface is animating
+	 */
+	public boolean isAnimating() {
+
+		double targetWidth = isMaximized() ? getMaxWidth() : getMinWidth();
+		boolean transitioning = Math.abs(getWidth() - targetWidth) > 0.5 || 
+			isMaximized() != getMinimizeMaximizeButton().isMaximized();
+		boolean clockRunning = !getTimeIndicator().isPaused() && 
+			!getTimeIndicator().isForcePaused();
+
+		return transitioning || clockRunning;
+
+	}
+
 	@Override
 	public void tick(double timeElapsed) {
 
@@ -451,7 +529,7 @@ public class UserInterface extends Entity {
 		boolean timeIndicatorShouldPause = !getTogglePlayButton().getState().equals("PAUSE");
 		getTimeIndicator().setPaused(timeIndicatorShouldPause);
 
-		for (Entity element : getInterfaceElements()) {
+		for (InterfaceElement element : getInterfaceElements()) {
 			
 			element.tick(timeElapsed);
 			element.setVisible(isMaximized());
@@ -477,7 +555,7 @@ public class UserInterface extends Entity {
 		
 		}
 
-		for (Entity element : getInterfaceElements()) {
+		for (InterfaceElement element : getInterfaceElements()) {
 			
 			element.alignWith(this);
 			element.setxOffset(getWidth() / 4);
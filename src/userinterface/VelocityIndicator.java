@@ -5,7 +5,6 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.text.Font;
 import javafx.scene.text.TextAlignment;
 import javafx.scene.paint.Color;
-import util.Entity;
 import rocket.Rocket;
 
 /**
@@ -14,7 +13,7 @@ import rocket.Rocket;
  * implement the way the arrow and velocity are displayed as those aspects are
  * specific to which velocity (horizontal/vertical) is being displayed.
  */
-public abstract class VelocityIndicator extends Entity {
+public abstract class VelocityIndicator extends InterfaceElement {
 	
 	private Rocket rocket;
 	
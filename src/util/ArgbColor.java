@@ -0,0 +1,65 @@
+package util;
+
+/**
+ * A class of colors packed into ints, with 8 bits each of alpha, red, green
+ * and blue, from the highest bits to the lowest. Simulation objects hold
+ * their colors in this form, so they can be ticked without a drawing
+ * toolkit, and whatever draws them converts the colors to its own.
+ */
+public final class ArgbColor {
+
+	public static final int WHITE = 0xFFFFFFFF;
+	public static final int RED = 0xFFFF0000;
+	public static final int ORANGE = 0xFFFFA500;
+	public static final int GRAY = 0xFF808080;
+
+	private ArgbColor() {}
+
+	/**
+	 * Packs an opaque color from its red, green and blue components.
+	 * @param red the red component, from 0 to 255
+	 * @param green the green component, from 0 to 255
+	 * @param blue the blue component, from 0 to 255
+	 * @return the packed color
+	 */
+	public static int rgb(int red, int green, int blue) {
+		return 0xFF000000 | (red & 0xFF) << 16 | (green & 0xFF) << 8 | (blue & 0xFF);
+	}
+
+	/**
+	 * Gets the alpha component of a packed color.
+	 * @param argb the packed color
+	 * @return the alpha component, from 0 (transparent) to 255 (opaque)
+	 */
+	public static int getAlpha(int argb) {
+		return argb >>> 24;
+	}
+
+	/**
+	 * Gets the red component of a packed color.
+	 * @param argb the packed color
+	 * @return the red component, from 0 to 255
+	 */
+	public static int getRed(int argb) {
+		return (argb >> 16) & 0xFF;
+	}
+
+	/**
+	 * Gets the green component of a packed color.
+	 * @param argb the packed color
+	 * @return the green component, from 0 to 255
+	 */
+	public static int getGreen(int argb) {
+		return (argb >> 8) & 0xFF;
+	}
+
+	/**
+	 * Gets the blue component of a packed color.
+	 * @param argb the packed color
+	 * @return the blue component, from 0 to 255
+	 */
+	public static int getBlue(int argb) {
+		return argb & 0xFF;
+	}
+
+}
@@ -1,21 +1,24 @@
 package util;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
 
 /**
  * A class containing general data for most elements that take part in the 
- * simulation.
+ * simulation. An Entity only holds state, and is drawn by whatever displays
+ * the simulation, so it can be ticked without a drawing toolkit.
  */
 public abstract class Entity {
 	
+	public static final int STATE_TYPE = 0;
+	
 	private double x; 
 	private double y; 
+	private double previousX;
+	private double previousY;
 	private double width = 0;
 	private double height = 0;
 	private double xOffset = 0;
 	private double yOffset = 0;
 	private double direction = 90;
-	private Color color = Color.WHITE;
+	private int color = ArgbColor.WHITE; // packed ARGB
 	
 	private Vector2D velocity = new Vector2D();
 	private Vector2D acceleration = new Vector2D();
@@ -33,17 +36,21 @@ public abstract class Entity {
 	public Entity(double x, double y) {
 		this.x = x;
 		this.y = y;
+		this.previousX = x;
+		this.previousY = y;
 	}
 
 	/**
 	 * Creates an Entity with arguments for position and color.
 	 * @param x the middle x coordinate of the Entity
 	 * @param y the top y coordinate of the Entity
-	 * @param color the color of the Entity
+	 * @param color the color of the Entity, as a packed ARGB value
 	 */
-	public Entity(double x, double y, Color color) {
+	public Entity(double x, double y, int color) {
 		this.x = x;
 		this.y = y;
+		this.previousX = x;
+		this.previousY = y;
 		this.color = color;
 	}
 	
@@ -52,14 +59,16 @@ public abstract class Entity {
 	 * offsets.
 	 * @param x the middle x coordinate of the Entity
 	 * @param y the top y coordinate of the Entity
-	 * @param color the color of the Entity
+	 * @param color the color of the Entity, as a packed ARGB value
 	 * @param xOffset the Entity's x offset
 	 * @param yOffset the Entity's y offset
 	 */
-	public Entity(double x, double y, Color color, double xOffset, 
+	public Entity(double x, double y, int color, double xOffset, 
 					double yOffset) {
 		this.x = x;
 		this.y = y;
+		this.previousX = x;
+		this.previousY = y;
 		this.color = color;
 		this.xOffset = xOffset;
 		this.yOffset = yOffset;
@@ -72,14 +81,16 @@ public abstract class Entity {
 	 * @param y the top y coordinate of the Entity
 	 * @param width the width of the Entity
 	 * @param height the height of the Entity
-	 * @param color the color of the Entity
+	 * @param color the color of the Entity, as a packed ARGB value
 	 * @param xOffset the Entity's x offset
 	 * @param yOffset the Entity's y offset
 	 */
-	public Entity(double x, double y, double width, double height, Color color, 
+	public Entity(double x, double y, double width, double height, int color, 
 					double xOffset, double yOffset) {
 		this.x = x;
 		this.y = y;
+		this.previousX = x;
+		this.previousY = y;
 		this.width = width;
 		this.height = height;
 		this.color = color;
@@ -103,18 +114,132 @@ public abstract class Entity {
 		this.height = height;
 	}
 
-	/**
-	 * Draws the Entity on a Canvas
-	 * @param gc the Canvas's GraphicsContext
-	 */
-	public abstract void draw(GraphicsContext gc);
-	
 	/**
 	 * Updates the Entity
 	 * @param timeElapsed the time, in seconds, since the last tick
 	 */
 	public abstract void tick(double timeElapsed);
 
+	/**
+	 * Gets the number that tags this kind of Entity in a World's saved
+	 * state, so that the state can only be restored onto the same kinds of
+	 * objects. Subclasses that save state of their own return a constant of
+	 * their own.
+	 * @return the Entity's state type
+	 */
+	public int getStateType() {
+		return STATE_TYPE;
+	}
+
+	/**
+	 * Records the Entity's current position as its previous position. This
+	 * should be called once per step, before the Entity is ticked, so that
+	 * it can be drawn between its positions before and after the step.
+	 */
+	public void savePreviousPosition() {
+		
+		this.previousX = getX();
+		this.previousY = getY();
+		
+	}
+
+	/**
+	 * Copies the position, previous position, direction, velocity, 
+	 * acceleration, and visibility of another Entity into this one, without
+	 * sharing any of its objects. 
+	 * @param other the Entity to copy the state of
+	 */
+	public void copyStateFrom(Entity other) {
+		
+		this.x = other.x;
+		this.y = other.y;
+		this.previousX = other.previousX;
+		this.previousY = other.previousY;
+		this.direction = other.direction;
+		this.visible = other.visible;
+		getVelocity().setX(other.getVelocity().getX());
+		getVelocity().setY(other.getVelocity().getY());
+		getAcceleration().setX(other.getAcceleration().getX());
+		getAcceleration().setY(other.getAcceleration().getY());
+		
+	}
+
+	/**
+	 * Writes the same state that <code>copyStateFrom()</code> copies to the
+	 * end of a StateBuffer. Subclasses that add state write it after this.
+	 * The previous position is only drawn, so it is cosmetic state.
+	 * @param buffer the StateBuffer to write to
+	 */
+	public void saveState(StateBuffer buffer) {
+		
+		buffer.putDouble(x);
+		buffer.putDouble(y);
+		
+		if (buffer.isCosmeticStateIncluded()) {
+			
+			buffer.putDouble(previousX);
+			buffer.putDouble(previousY);
+			
+		}
+		
+		buffer.putDouble(direction);
+		buffer.putBoolean(visible);
+		buffer.putDouble(getVelocity().getX());
+		buffer.putDouble(getVelocity().getY());
+		buffer.putDouble(getAcceleration().getX());
+		buffer.putDouble(getAcceleration().getY());
+		
+	}
+	
+	/**
+	 * Reads back the state written by <code>saveState()</code>, from the
+	 * StateBuffer's read position. Without cosmetic state, the previous
+	 * position is left as it is.
+	 * @param buffer the StateBuffer to read from
+	 */
+	public void restoreState(StateBuffer buffer) {
+		
+		this.x = buffer.getDouble();
+		this.y = buffer.getDouble();
+		
+		if (buffer.isCosmeticStateIncluded()) {
+			
+			this.previousX = buffer.getDouble();
+			this.previousY = buffer.getDouble();
+			
+		}
+		
+		this.direction = buffer.getDouble();
+		this.visible = buffer.getBoolean();
+		getVelocity().setX(buffer.getDouble());
+		getVelocity().setY(buffer.getDouble());
+		getAcceleration().setX(buffer.getDouble());
+		getAcceleration().setY(buffer.getDouble());
+		
+	}
+
+	/**
+	 * Gets an x coordinate between the Entity's previous and current x.
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @return the interpolated x coordinate
+	 */
+	public double getInterpolatedX(double alpha) {
+		
+		return previousX + (getX() - previousX) * alpha;
+		
+	}
+
+	/**
+	 * Gets a y coordinate between the Entity's previous and current y.
+	 * @param alpha the interpolation factor, from 0 (previous) to 1 (current)
+	 * @return the interpolated y coordinate
+	 */
+	public double getInterpolatedY(double alpha) {
+		
+		return previousY + (getY() - previousY) * alpha;
+		
+	}
+
 	/**
 	 * Gets the middle x coordinate of the Entity
 	 * @return the x of the Entity
@@ -301,16 +426,16 @@ public abstract class Entity {
 	
 	/**
 	 * Gets the color of the Entity
-	 * @return the color of the Entity
+	 * @return the color of the Entity, as a packed ARGB value
 	 */
-	public Color getColor() {
+	public int getColor() {
 		return color;
 	}
 
 	/** Sets the color of the Entity
-	 * @param color the new color
+	 * @param color the new color, as a packed ARGB value
 	 */
-	public void setColor(Color color) {
+	public void setColor(int color) {
 		this.color = color;
 	}
 
@@ -0,0 +1,151 @@
+package util;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free, fixed-size queue of timestamped input events, for handing
+ * key presses and releases from one producer thread to one consumer thread.
+ * Each event is a key bit from KeyboardHandler, with the PRESSED flag set
+ * for presses, and the <code>System.nanoTime()</code> it happened at.
+ * <p>
+ * Events are kept in two parallel arrays that are allocated once, so
+ * queueing an event creates no garbage. If the consumer falls so far behind
+ * that the queue is full, new events are dropped and counted.
+ */
+public class InputQueue {
+
+	public static final int DEFAULT_CAPACITY = 256;
+	public static final int PRESSED = 1 << 31; // Set on key press events
+
+	private final int [] events;
+	private final long [] timestamps;
+	private final int mask;
+
+	private final AtomicLong head = new AtomicLong(); // Next event to take
+	private final AtomicLong tail = new AtomicLong(); // Next free slot
+	private volatile int droppedEvents = 0;
+
+	/**
+	 * Creates an InputQueue with the default capacity.
+	 */
+	public InputQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an InputQueue that can hold at least the given number of events.
+	 * The capacity is rounded up to a power of two.
+	 * @param capacity the least number of events the queue can hold
+	 */
+	public InputQueue(int capacity) {
+
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		this.events = new int[size];
+		this.timestamps = new long[size];
+		this.mask = size - 1;
+
+	}
+
+	/**
+	 * Gets the number of events the queue can hold.
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return events.length;
+	}
+
+	/**
+	 * Gets the number of events that were dropped because the queue was full.
+	 * @return the dropped event count
+	 */
+	public int getDroppedEvents() {
+		return droppedEvents;
+	}
+
+	/**
+	 * Adds an event to the end of the queue. Only the producer thread may
+	 * call this.
+	 * @param event the key bit, with PRESSED set for a press
+	 * @param timestamp the time of the event, from <code>System.nanoTime()</code>
+	 * @return true if the event was queued, false if the queue was full
+	 */
+	public boolean offer(int event, long timestamp) {
+
+		long currentTail = tail.get();
+
+		if (currentTail - head.get() >= events.length) {
+
+			droppedEvents++;
+			return false;
+
+		}
+
+		int index = (int) currentTail & mask;
+		events[index] = event;
+		timestamps[index] = timestamp;
+		tail.lazySet(currentTail + 1); // Publishes the slot to the consumer
+		return true;
+
+	}
+
+	/**
+	 * Returns true if there are no events waiting.
+	 * @return whether the queue is empty
+	 */
+	public boolean isEmpty() {
+		return head.get() == tail.get();
+	}
+
+	/**
+	 * Gets the timestamp of the first event in the queue without removing
+	 * it. Only the consumer thread may call this.
+	 * @return the first event's timestamp, or <code>Long.MAX_VALUE</code> if
+	 * the queue is empty
+	 */
+	public long peekTimestamp() {
+
+		long currentHead = head.get();
+
+		if (currentHead == tail.get()) {
+			return Long.MAX_VALUE;
+		}
+
+		return timestamps[(int) currentHead & mask];
+
+	}
+
+	/**
+	 * Gets the first event in the queue without removing it. Only the
+	 * consumer thread may call this, after checking that the queue isn't
+	 * empty.
+	 * @return the first event
+	 */
+	public int peekEvent() {
+		return events[(int) head.get() & mask];
+	}
+
+	/**
+	 * Removes the first event from the queue, freeing its slot for the
+	 * producer. Only the consumer thread may call this.
+	 */
+	public void remove() {
+
+		long currentHead = head.get();
+
+		if (currentHead != tail.get()) {
+			head.lazySet(currentHead + 1);
+		}
+
+	}
+
+	/**
+	 * Removes every event from the queue. This must not be called while the
+	 * producer or consumer is using the queue.
+	 */
+	public void clear() {
+
+		head.set(tail.get());
+		droppedEvents = 0;
+
+	}
+
+}
@@ -1,16 +1,30 @@
 package util;
-import javafx.event.EventHandler;
-import javafx.scene.input.KeyEvent;
+import rocket.ParticleBuffer;
+import rocket.RocketEngine;
 import rocket.UserControlledRocket;
 
 /**
- * A class for taking in keyboard input and using it to control the 
- * simulation's UserControlledRocket.
+ * A class for taking in keyboard input and using it to control the
+ * simulation's UserControlledRocket. The keys being held are kept as a
+ * bitmask of the KEY_ constants, so handling a key creates no garbage.
+ * <p>
+ * Keys are handled as key bits, which whatever receives the key events
+ * maps its keys to. They can be handled directly, or queued on an 
+ * InputQueue and handled later on the thread that ticks the 
+ * UserControlledRocket.
  */
-public class KeyboardHandler implements EventHandler<KeyEvent> {
+public class KeyboardHandler {
+
+	public static final int KEY_W = 1; // Fires the engines
+	public static final int KEY_A = 1 << 1; // Turns left
+	public static final int KEY_D = 1 << 2; // Turns right
+	public static final int KEY_I = 1 << 3; // Prints the Rocket's state
+	public static final int KEY_C = 1 << 4; // Saves a checkpoint
+	public static final int KEY_R = 1 << 5; // Retries from the checkpoint
+	public static final int KEY_Z = 1 << 6; // Rewinds while held
+
+	int keysPressed = 0;
 
-	String currentKeysPressed = "";
-	
 	UserControlledRocket userRocket;
 
 	/**
@@ -18,84 +32,88 @@ public class KeyboardHandler implements EventHandler<KeyEvent> {
 	 * @param userRocket the UserControlledRocket to control
 	 */
 	public KeyboardHandler(UserControlledRocket userRocket) {
-		
+
 		this.userRocket = userRocket;
-	
+
 	}
 
-	@Override
-	public void handle(KeyEvent arg0) {
-
-		String code = arg0.getCode().toString().toUpperCase();
-		
-		if (arg0.getEventType() == KeyEvent.KEY_PRESSED) {
-			
-			if ("WAD".contains(code) && !currentKeysPressed.contains(code)) {
-				
-				currentKeysPressed += code;
-				
-			}
-			
-			if (code.equals("I")) {
-				
+	/**
+	 * Gets the bitmask of the keys currently held down.
+	 * @return the pressed keys, as KEY_ constants
+	 */
+	public int getKeysPressed() {
+		return keysPressed;
+	}
+
+	/**
+	 * Handles a key being pressed or released, and updates the
+	 * UserControlledRocket's controls to match the keys held down.
+	 * @param key the key's KEY_ constant, or 0 for an unused key
+	 * @param pressed true if the key was pressed, false if released
+	 */
+	public void handle(int key, boolean pressed) {
+
+		if (pressed) {
+
+			keysPressed |= key & (KEY_W | KEY_A | KEY_D);
+
+			if (key == KEY_I) {
+
 				System.out.println("target: " + userRocket.getTargetAngle());
 				System.out.println("direction: " + userRocket.getDirection());
-				
+
+				for (RocketEngine engine : userRocket.getEngines()) {
+
+					ParticleBuffer particles = engine.getEmitter().getParticles();
+					System.out.println("particles: " + particles.size() +
+							" hits: " + particles.getHitCount() +
+							" misses: " + particles.getMissCount() +
+							" overflows: " + particles.getOverflowCount());
+
+				}
+
 			}
 
-		}
-		
-		if (arg0.getEventType() == KeyEvent.KEY_RELEASED) {
-			
-			currentKeysPressed = currentKeysPressed.replace(code, "");
-			
-			if ("AD".contains(code)) {
-				
+		} else {
+
+			keysPressed &= ~key;
+
+			if ((key & (KEY_A | KEY_D)) != 0) {
+
 				// stop rocket rotation
 				userRocket.setTargetAngle(userRocket.getDirection());
 				userRocket.setShouldFireRCS(false);
-				
+
 			}
-			
-		}
 
-		if (currentKeysPressed.contains("W")) {
+		}
 
-			userRocket.setShouldFireEngines(true);
+		userRocket.setShouldFireEngines((keysPressed & KEY_W) != 0);
 
-		} else {
-			
-			userRocket.setShouldFireEngines(false);
-			
-		}
+		if ((keysPressed & (KEY_A | KEY_D)) != 0) {
 
-		
-		if (currentKeysPressed.contains("A") || currentKeysPressed.contains("D")) {
-			
 			userRocket.setShouldFireRCS(true);
-			
-			if (currentKeysPressed.contains("A")) {
-				
+
+			if ((keysPressed & KEY_A) != 0) {
+
 				userRocket.setTargetAngle(userRocket.getDirection() + 2 * userRocket.getTurnRate());
-				
+
 			}
-			
-			if (currentKeysPressed.contains("D")) {
+
+			if ((keysPressed & KEY_D) != 0) {
 
 				userRocket.setTargetAngle(userRocket.getDirection() - 2 * userRocket.getTurnRate());
 
 			}
-			
+
 		} else {
-			
+
 			userRocket.setShouldFireRCS(false);
 			// stop rocket rotation
 			userRocket.setTargetAngle(userRocket.getDirection());
-			userRocket.setShouldFireRCS(false);
-			
-			
+
 		}
-		
+
 	}
 
 	/**
@@ -114,4 +132,4 @@ public class KeyboardHandler implements EventHandler<KeyEvent> {
 		this.userRocket = userRocket;
 	}
 
-}
\ No newline at end of file
+}
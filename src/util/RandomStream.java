@@ -0,0 +1,151 @@
+package util;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A seedable source of random numbers based on the SplitMix64 generator. A
+ * RandomStream can be split into independent child streams, so each part of
+ * the simulation can own a stream derived from one seed, and the same seed
+ * always produces the same numbers.
+ * <p>
+ * A RandomStream is not thread-safe. Each thread should use its own stream,
+ * which also keeps parallel simulations from contending on a shared
+ * generator.
+ */
+public class RandomStream {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private static final AtomicLong seedGenerator = new AtomicLong(
+			mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+	private long state;
+
+	/**
+	 * Creates a RandomStream with a seed that is different from every other
+	 * unseeded stream's.
+	 */
+	public RandomStream() {
+		this(generateSeed());
+	}
+
+	/**
+	 * Creates a RandomStream with the given seed.
+	 * @param seed the seed of the stream
+	 */
+	public RandomStream(long seed) {
+		this.state = seed;
+	}
+
+	/**
+	 * Generates a new seed, different from every seed generated before it.
+	 * @return a new seed
+	 */
+	public static long generateSeed() {
+		return mix64(seedGenerator.getAndAdd(2 * GOLDEN_GAMMA));
+	}
+
+	/**
+	 * Gets the internal state of the stream. A stream whose state is set to
+	 * this value produces the same numbers as this one from now on.
+	 * @return the stream's state
+	 */
+	public long getState() {
+		return state;
+	}
+
+	/**
+	 * Sets the internal state of the stream.
+	 * @param state the new state, usually from <code>getState()</code>
+	 */
+	public void setState(long state) {
+		this.state = state;
+	}
+
+	/**
+	 * Returns the next random long, with every value equally likely.
+	 * @return a random long
+	 */
+	public long nextLong() {
+
+		state += GOLDEN_GAMMA;
+		return mix64(state);
+
+	}
+
+	/**
+	 * Returns a random double from 0 (inclusive) to 1 (exclusive).
+	 * @return a random double
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Returns a random double between the given bounds.
+	 * @param min the lower bound (inclusive)
+	 * @param max the upper bound (exclusive)
+	 * @return a random double between min and max
+	 */
+	public double nextDouble(double min, double max) {
+		return min + nextDouble() * (max - min);
+	}
+
+	/**
+	 * Returns a random int from 0 (inclusive) to the given bound (exclusive).
+	 * @param bound the upper bound, which must be positive
+	 * @return a random int between 0 and bound
+	 */
+	public int nextInt(int bound) {
+		return (int) (((nextLong() >>> 33) * bound) >>> 31);
+	}
+
+	/**
+	 * Creates a new stream seeded from this one, advancing this stream. The
+	 * streams split from a stream depend on the order they are split in.
+	 * @return a new, independent stream
+	 */
+	public RandomStream split() {
+		return new RandomStream(nextLong());
+	}
+
+	/**
+	 * Creates a new stream identified by the given id, without advancing this
+	 * stream. The same stream and id always give the same child stream, no
+	 * matter how many streams were split before it, so children can be
+	 * created in any order or on any thread.
+	 * @param streamId the id of the child stream
+	 * @return a new, independent stream
+	 */
+	public RandomStream split(long streamId) {
+		return new RandomStream(mix64(state ^ mix64((streamId + 1) * GOLDEN_GAMMA)));
+	}
+
+	/**
+	 * Returns the first long of the child stream with the given id of a
+	 * stream with the given seed, without creating either stream. This is
+	 * the same as <code>new RandomStream(seed).split(streamId).nextLong()
+	 * </code>, so it can be used as a hash of the seed and the id in code
+	 * that runs too often to allocate.
+	 * @param seed the seed of the parent stream
+	 * @param streamId the id of the child stream
+	 * @return a random long
+	 */
+	public static long hash(long seed, long streamId) {
+		return mix64(mix64(seed ^ mix64((streamId + 1) * GOLDEN_GAMMA)) + GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Scrambles the bits of a long, so that nearby inputs give unrelated
+	 * outputs.
+	 * @param z the long to scramble
+	 * @return the scrambled long
+	 */
+	private static long mix64(long z) {
+
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+
+	}
+
+}
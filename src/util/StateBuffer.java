@@ -0,0 +1,301 @@
+package util;
+import java.util.Arrays;
+
+/**
+ * A growable buffer of primitive values that simulation objects write their
+ * state into and read it back from, in the same order. Every value is kept
+ * as a long in one array, with doubles stored by their exact bits, so
+ * restoring a state gives back exactly the numbers that were captured.
+ * <p>
+ * The array only grows, so a buffer that is reused for the same objects
+ * stops allocating after the first write. Writing starts at the beginning
+ * after <code>clear()</code>, and reading starts at the beginning after
+ * <code>rewind()</code>.
+ * <p>
+ * A buffer can leave out cosmetic state, such as exhaust Particles and
+ * the previous positions drawing interpolates from, that has no effect on
+ * how the simulation plays out. Objects check
+ * <code>isCosmeticStateIncluded()</code> when writing and reading, so a
+ * state without it is smaller and always the same size for the same
+ * objects.
+ */
+public class StateBuffer {
+
+	private long [] values;
+	private int size = 0;
+	private int position = 0;
+	private boolean cosmeticStateIncluded = true;
+
+	/**
+	 * Creates an empty StateBuffer with room for a few hundred values.
+	 */
+	public StateBuffer() {
+		this(256);
+	}
+
+	/**
+	 * Creates an empty StateBuffer with room for the given number of values.
+	 * @param capacity the number of values to allocate room for
+	 */
+	public StateBuffer(int capacity) {
+		this.values = new long[Math.max(1, capacity)];
+	}
+
+	/**
+	 * Gets the number of values written since the last clear.
+	 * @return the buffer's size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of values the buffer can hold before it has to grow.
+	 * @return the buffer's capacity
+	 */
+	public int getCapacity() {
+		return values.length;
+	}
+
+	/**
+	 * Gets the index of the next value to be read.
+	 * @return the read position
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * Returns true if objects should write and read their cosmetic state.
+	 * @return whether cosmetic state is included
+	 */
+	public boolean isCosmeticStateIncluded() {
+		return cosmeticStateIncluded;
+	}
+
+	/**
+	 * Sets whether objects should write and read their cosmetic state. This
+	 * must be the same when a state is read as when it was written.
+	 * @param cosmeticStateIncluded whether cosmetic state is included
+	 */
+	public void setCosmeticStateIncluded(boolean cosmeticStateIncluded) {
+		this.cosmeticStateIncluded = cosmeticStateIncluded;
+	}
+
+	/**
+	 * Gets a written value by its index, without moving the read position.
+	 * @param index the index of the value, less than <code>size()</code>
+	 * @return the value
+	 */
+	public long get(int index) {
+		return values[index];
+	}
+
+	/**
+	 * Replaces a written value by its index.
+	 * @param index the index of the value, less than <code>size()</code>
+	 * @param value the new value
+	 */
+	public void set(int index, long value) {
+		values[index] = value;
+	}
+
+	/**
+	 * Empties the buffer so that the next write starts at the beginning. The
+	 * buffer keeps its capacity.
+	 */
+	public void clear() {
+
+		size = 0;
+		position = 0;
+
+	}
+
+	/**
+	 * Moves the read position back to the first value.
+	 */
+	public void rewind() {
+		position = 0;
+	}
+
+	/**
+	 * Copies the values of another StateBuffer into this one, replacing its
+	 * contents and rewinding it.
+	 * @param other the StateBuffer to copy
+	 */
+	public void copyFrom(StateBuffer other) {
+
+		ensureCapacity(other.size);
+		System.arraycopy(other.values, 0, values, 0, other.size);
+		size = other.size;
+		position = 0;
+		cosmeticStateIncluded = other.cosmeticStateIncluded;
+
+	}
+
+	/**
+	 * Writes a long at the end of the buffer.
+	 * @param value the value to write
+	 */
+	public void putLong(long value) {
+
+		ensureCapacity(size + 1);
+		values[size++] = value;
+
+	}
+
+	/**
+	 * Writes a double at the end of the buffer.
+	 * @param value the value to write
+	 */
+	public void putDouble(double value) {
+		putLong(Double.doubleToRawLongBits(value));
+	}
+
+	/**
+	 * Writes an int at the end of the buffer.
+	 * @param value the value to write
+	 */
+	public void putInt(int value) {
+		putLong(value);
+	}
+
+	/**
+	 * Writes a boolean at the end of the buffer.
+	 * @param value the value to write
+	 */
+	public void putBoolean(boolean value) {
+		putLong(value ? 1 : 0);
+	}
+
+	/**
+	 * Writes the first values of a double array at the end of the buffer.
+	 * @param source the array to write from
+	 * @param count the number of values to write
+	 */
+	public void putDoubles(double [] source, int count) {
+
+		ensureCapacity(size + count);
+
+		for (int i = 0; i < count; i++) {
+			values[size + i] = Double.doubleToRawLongBits(source[i]);
+		}
+
+		size += count;
+
+	}
+
+	/**
+	 * Writes the first values of an int array at the end of the buffer.
+	 * @param source the array to write from
+	 * @param count the number of values to write
+	 */
+	public void putInts(int [] source, int count) {
+
+		ensureCapacity(size + count);
+
+		for (int i = 0; i < count; i++) {
+			values[size + i] = source[i];
+		}
+
+		size += count;
+
+	}
+
+	/**
+	 * Reads the next values into the start of a double array.
+	 * @param destination the array to read into
+	 * @param count the number of values to read
+	 */
+	public void getDoubles(double [] destination, int count) {
+
+		checkRemaining(count);
+
+		for (int i = 0; i < count; i++) {
+			destination[i] = Double.longBitsToDouble(values[position + i]);
+		}
+
+		position += count;
+
+	}
+
+	/**
+	 * Reads the next values into the start of an int array.
+	 * @param destination the array to read into
+	 * @param count the number of values to read
+	 */
+	public void getInts(int [] destination, int count) {
+
+		checkRemaining(count);
+
+		for (int i = 0; i < count; i++) {
+			destination[i] = (int) values[position + i];
+		}
+
+		position += count;
+
+	}
+
+	/**
+	 * Reads the next value as a long.
+	 * @return the value
+	 */
+	public long getLong() {
+
+		checkRemaining(1);
+		return values[position++];
+
+	}
+
+	/**
+	 * Reads the next value as a double.
+	 * @return the value
+	 */
+	public double getDouble() {
+		return Double.longBitsToDouble(getLong());
+	}
+
+	/**
+	 * Reads the next value as an int.
+	 * @return the value
+	 */
+	public int getInt() {
+		return (int) getLong();
+	}
+
+	/**
+	 * Reads the next value as a boolean.
+	 * @return the value
+	 */
+	public boolean getBoolean() {
+		return getLong() != 0;
+	}
+
+	/**
+	 * Checks that there are enough values left to read.
+	 * @param count the number of values about to be read
+	 * @throws IllegalStateException if the read would pass the end of the
+	 * values written
+	 */
+	private void checkRemaining(int count) {
+
+		if (position + count > size) {
+			throw new IllegalStateException("Read past the end of the state");
+		}
+
+	}
+
+	/**
+	 * Grows the array, if needed, to hold at least the given number of
+	 * values.
+	 * @param capacity the number of values the buffer must hold
+	 */
+	private void ensureCapacity(int capacity) {
+
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+		}
+
+	}
+
+}
@@ -0,0 +1,99 @@
+package util;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A lock-free triple buffer for handing the latest of a series of values
+ * from one writer thread to one reader thread. The writer fills its own
+ * buffer and publishes it, and the reader takes the most recently published
+ * buffer. Neither thread ever waits for the other: the third buffer always
+ * holds either the latest published value or a free buffer for the writer.
+ * <p>
+ * A published buffer isn't touched by the writer again until the reader
+ * has moved on to a newer one, so the reader can use it for as long as it
+ * likes. Values the reader never picks up are simply overwritten.
+ * @param <T> the type of the buffers
+ */
+public class TripleBuffer<T> {
+
+	private static final int INDEX_MASK = 0b011;
+	private static final int FRESH = 0b100; // Set when the middle is unread
+
+	private final Object [] buffers;
+
+	private int writeIndex = 0; // Only used by the writer
+	private int readIndex = 1; // Only used by the reader
+	private final AtomicInteger middle = new AtomicInteger(2);
+
+	/**
+	 * Creates a TripleBuffer with three buffers from the given supplier.
+	 * @param supplier creates each of the three buffers
+	 */
+	public TripleBuffer(Supplier<T> supplier) {
+
+		this.buffers = new Object[] {
+			supplier.get(), supplier.get(), supplier.get()
+		};
+
+	}
+
+	/**
+	 * Gets the buffer the writer should fill before publishing it. Only the
+	 * writer thread may call this.
+	 * @return the writer's buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public T getWriteBuffer() {
+		return (T) buffers[writeIndex];
+	}
+
+	/**
+	 * Publishes the writer's buffer as the latest value, and gives the
+	 * writer a free buffer to fill next. Only the writer thread may call
+	 * this.
+	 */
+	public void publish() {
+
+		int previous = middle.getAndSet(writeIndex | FRESH);
+		writeIndex = previous & INDEX_MASK;
+
+	}
+
+	/**
+	 * Returns true if a value has been published since the reader last
+	 * called <code>update()</code>.
+	 * @return whether there is a newer value to read
+	 */
+	public boolean hasUpdate() {
+		return (middle.get() & FRESH) != 0;
+	}
+
+	/**
+	 * Makes the latest published value the reader's buffer, if a new one has
+	 * been published. Only the reader thread may call this.
+	 * @return true if the reader's buffer changed
+	 */
+	public boolean update() {
+
+		if (!hasUpdate()) {
+			return false;
+		}
+
+		int previous = middle.getAndSet(readIndex);
+		readIndex = previous & INDEX_MASK;
+		return true;
+
+	}
+
+	/**
+	 * Gets the reader's buffer, which holds the value that was the latest
+	 * the last time <code>update()</code> was called. Only the reader thread
+	 * may call this.
+	 * @return the reader's buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public T getReadBuffer() {
+		return (T) buffers[readIndex];
+	}
+
+}
@@ -0,0 +1,184 @@
+package util;
+
+/**
+ * A class for the rectangle of the World that the camera sees in a frame.
+ * It is computed once per frame and passed down to everything that is
+ * drawn, so that Entities, emitters and Particles outside of it can skip
+ * drawing. The Viewport also counts how many of each were culled in the
+ * current frame.
+ * <p>
+ * The rectangle is kept both in World coordinates and in Canvas pixels,
+ * since Particles are tested after being transformed into pixels, whatever
+ * rotation they are drawn with.
+ */
+public class Viewport {
+
+	private double left;
+	private double top;
+	private double width;
+	private double height;
+
+	private int culledEntities = 0;
+	private int culledEmitters = 0;
+	private int culledParticles = 0;
+
+	/**
+	 * Moves the Viewport to a new rectangle of the World for a new frame,
+	 * and resets the cull counters. The top left corner of the rectangle is
+	 * at the Canvas's top left pixel.
+	 * @param left the x-coordinate of the rectangle's left edge
+	 * @param top the y-coordinate of the rectangle's top edge
+	 * @param width the width of the rectangle, and of the Canvas
+	 * @param height the height of the rectangle, and of the Canvas
+	 */
+	public void set(double left, double top, double width, double height) {
+
+		this.left = left;
+		this.top = top;
+		this.width = width;
+		this.height = height;
+
+		culledEntities = 0;
+		culledEmitters = 0;
+		culledParticles = 0;
+
+	}
+
+	/**
+	 * Gets the x-coordinate of the Viewport's left edge.
+	 * @return the left x-coordinate
+	 */
+	public double getLeft() {
+		return left;
+	}
+
+	/**
+	 * Gets the y-coordinate of the Viewport's top edge.
+	 * @return the top y-coordinate
+	 */
+	public double getTop() {
+		return top;
+	}
+
+	/**
+	 * Gets the width of the Viewport.
+	 * @return the width
+	 */
+	public double getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the height of the Viewport.
+	 * @return the height
+	 */
+	public double getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns true if a rectangle of the World overlaps the Viewport.
+	 * @param minX the rectangle's left x-coordinate
+	 * @param minY the rectangle's top y-coordinate
+	 * @param maxX the rectangle's right x-coordinate
+	 * @param maxY the rectangle's bottom y-coordinate
+	 * @return whether the rectangle is visible
+	 */
+	public boolean intersects(double minX, double minY, double maxX,
+			double maxY) {
+
+		return maxX >= left && minX <= left + width &&
+			maxY >= top && minY <= top + height;
+
+	}
+
+	/**
+	 * Returns true if a rectangle of Canvas pixels overlaps the Canvas.
+	 * @param minX the rectangle's left pixel x-coordinate
+	 * @param minY the rectangle's top pixel y-coordinate
+	 * @param maxX the rectangle's right pixel x-coordinate
+	 * @param maxY the rectangle's bottom pixel y-coordinate
+	 * @return whether the rectangle is visible
+	 */
+	public boolean intersectsScreen(double minX, double minY, double maxX,
+			double maxY) {
+
+		return maxX >= 0 && minX <= width && maxY >= 0 && minY <= height;
+
+	}
+
+	/**
+	 * Returns true if a circle of Canvas pixels overlaps the Canvas.
+	 * @param x the circle's center pixel x-coordinate
+	 * @param y the circle's center pixel y-coordinate
+	 * @param radius the circle's radius, in pixels
+	 * @return whether the circle is visible
+	 */
+	public boolean containsScreen(double x, double y, double radius) {
+
+		return x + radius >= 0 && x - radius <= width &&
+			y + radius >= 0 && y - radius <= height;
+
+	}
+
+	/**
+	 * Gets the number of Entities that were culled this frame.
+	 * @return the culled Entity count
+	 */
+	public int getCulledEntities() {
+		return culledEntities;
+	}
+
+	/**
+	 * Gets the number of ParticleEmitters whose Particles were all culled at
+	 * once this frame.
+	 * @return the culled emitter count
+	 */
+	public int getCulledEmitters() {
+		return culledEmitters;
+	}
+
+	/**
+	 * Gets the number of Particles that were culled this frame, including
+	 * the Particles of culled emitters.
+	 * @return the culled Particle count
+	 */
+	public int getCulledParticles() {
+		return culledParticles;
+	}
+
+	/**
+	 * Counts an Entity as culled.
+	 */
+	public void countCulledEntity() {
+		culledEntities++;
+	}
+
+	/**
+	 * Counts an emitter, and all of its Particles, as culled.
+	 * @param particleCount the number of Particles the emitter had
+	 */
+	public void countCulledEmitter(int particleCount) {
+
+		culledEmitters++;
+		culledParticles += particleCount;
+
+	}
+
+	/**
+	 * Counts some Particles as culled.
+	 * @param particleCount the number of culled Particles
+	 */
+	public void countCulledParticles(int particleCount) {
+		culledParticles += particleCount;
+	}
+
+	@Override
+	public String toString() {
+
+		return "culled " + culledEntities + " entities, " + culledEmitters +
+			" emitters, " + culledParticles + " particles";
+
+	}
+
+}
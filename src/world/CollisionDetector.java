@@ -0,0 +1,321 @@
+package world;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import rocket.Rocket;
+import util.Entity;
+
+/**
+ * A class that finds the pairs of Rockets in a World whose bodies overlap.
+ * <p>
+ * The broad phase sorts the Rockets by the left edge of their bounding
+ * boxes and sweeps along x, so only Rockets whose x-extents overlap are
+ * compared. The order is kept from one tick to the next and re-sorted with
+ * an insertion sort, which takes close to linear time since Rockets move
+ * only a little in each tick. The narrow phase treats each Rocket's body as
+ * a box rotated to its direction and tests the pair with the separating
+ * axis theorem.
+ * <p>
+ * Pairs where neither Rocket is still flying are skipped, since Rockets
+ * that have stopped or already crashed can't crash again. A falling wreck
+ * still crashes a flying Rocket that it hits.
+ */
+public class CollisionDetector {
+
+	private Rocket [] rockets = new Rocket[0];
+	private int rocketCount = 0;
+	private IdentityHashMap<Rocket, Boolean> members =
+		new IdentityHashMap<Rocket, Boolean>();
+
+	// Bounding boxes and body axes, by position in the sorted order
+	private double [] minX = new double[0];
+	private double [] maxX = new double[0];
+	private double [] minY = new double[0];
+	private double [] maxY = new double[0];
+	private double [] centerX = new double[0];
+	private double [] centerY = new double[0];
+	private double [] axisX = new double[0];
+	private double [] axisY = new double[0];
+
+	private ArrayList<Rocket []> collisions = new ArrayList<Rocket []>();
+	private long pairsTested = 0;
+
+	/**
+	 * Gets the pairs of Rockets found colliding by the last call to
+	 * <code>detect()</code>, in the order they were found.
+	 * @return the colliding pairs
+	 */
+	public List<Rocket []> getCollisions() {
+		return collisions;
+	}
+
+	/**
+	 * Gets the number of pairs that reached the narrow phase in the last call
+	 * to <code>detect()</code>.
+	 * @return the narrow phase pair count
+	 */
+	public long getPairsTested() {
+		return pairsTested;
+	}
+
+	/**
+	 * Finds every pair of overlapping Rockets among the given objects.
+	 * Objects that aren't Rockets are ignored.
+	 * @param objects the objects of the World
+	 * @return the number of colliding pairs
+	 */
+	public int detect(List<Entity> objects) {
+
+		collisions.clear();
+		pairsTested = 0;
+
+		updateMembers(objects);
+
+		if (rocketCount < 2) {
+			return 0;
+		}
+
+		for (int i = 0; i < rocketCount; i++) {
+			updateBounds(i);
+		}
+
+		sortByMinX();
+		sweep();
+		return collisions.size();
+
+	}
+
+	/**
+	 * Refills the list of Rockets if any were added to or removed from the
+	 * objects since the last call, keeping the last sorted order otherwise.
+	 * @param objects the objects of the World
+	 */
+	private void updateMembers(List<Entity> objects) {
+
+		int count = 0;
+		boolean changed = false;
+
+		for (Entity entity : objects) {
+
+			if (entity instanceof Rocket) {
+
+				count++;
+				changed = changed || !members.containsKey(entity);
+
+			}
+
+		}
+
+		if (!changed && count == rocketCount) {
+			return;
+		}
+
+		members.clear();
+
+		if (rockets.length < count) {
+
+			rockets = new Rocket[count];
+			minX = new double[count];
+			maxX = new double[count];
+			minY = new double[count];
+			maxY = new double[count];
+			centerX = new double[count];
+			centerY = new double[count];
+			axisX = new double[count];
+			axisY = new double[count];
+
+		}
+
+		rocketCount = 0;
+
+		for (Entity entity : objects) {
+
+			if (entity instanceof Rocket) {
+
+				rockets[rocketCount++] = (Rocket) entity;
+				members.put((Rocket) entity, Boolean.TRUE);
+
+			}
+
+		}
+
+		for (int i = count; i < rockets.length; i++) {
+			rockets[i] = null;
+		}
+
+	}
+
+	/**
+	 * Computes the center, body axis and bounding box of the Rocket at a
+	 * position in the sorted order.
+	 * @param i the Rocket's position
+	 */
+	private void updateBounds(int i) {
+
+		Rocket rocket = rockets[i];
+		double radians = Math.toRadians(rocket.getDirection());
+
+		// The unit vector from the Rocket's tail to its nose, on screen
+		axisX[i] = Math.cos(radians);
+		axisY[i] = -Math.sin(radians);
+		centerX[i] = rocket.getX();
+		centerY[i] = rocket.getY() + rocket.getHeight() / 2;
+
+		double halfLength = rocket.getHeight() / 2;
+		double halfWidth = rocket.getWidth() / 2;
+		double extentX = Math.abs(axisX[i]) * halfLength +
+			Math.abs(axisY[i]) * halfWidth;
+		double extentY = Math.abs(axisY[i]) * halfLength +
+			Math.abs(axisX[i]) * halfWidth;
+
+		minX[i] = centerX[i] - extentX;
+		maxX[i] = centerX[i] + extentX;
+		minY[i] = centerY[i] - extentY;
+		maxY[i] = centerY[i] + extentY;
+
+	}
+
+	/**
+	 * Sorts the Rockets by the left edges of their bounding boxes with an
+	 * insertion sort, which is fast when the order has barely changed.
+	 */
+	private void sortByMinX() {
+
+		for (int i = 1; i < rocketCount; i++) {
+
+			if (minX[i - 1] <= minX[i]) {
+				continue;
+			}
+
+			Rocket rocket = rockets[i];
+			double rocketMinX = minX[i], rocketMaxX = maxX[i];
+			double rocketMinY = minY[i], rocketMaxY = maxY[i];
+			double rocketCenterX = centerX[i], rocketCenterY = centerY[i];
+			double rocketAxisX = axisX[i], rocketAxisY = axisY[i];
+			int j = i - 1;
+
+			while (j >= 0 && minX[j] > rocketMinX) {
+
+				rockets[j + 1] = rockets[j];
+				minX[j + 1] = minX[j];
+				maxX[j + 1] = maxX[j];
+				minY[j + 1] = minY[j];
+				maxY[j + 1] = maxY[j];
+				centerX[j + 1] = centerX[j];
+				centerY[j + 1] = centerY[j];
+				axisX[j + 1] = axisX[j];
+				axisY[j + 1] = axisY[j];
+				j--;
+
+			}
+
+			rockets[j + 1] = rocket;
+			minX[j + 1] = rocketMinX;
+			maxX[j + 1] = rocketMaxX;
+			minY[j + 1] = rocketMinY;
+			maxY[j + 1] = rocketMaxY;
+			centerX[j + 1] = rocketCenterX;
+			centerY[j + 1] = rocketCenterY;
+			axisX[j + 1] = rocketAxisX;
+			axisY[j + 1] = rocketAxisY;
+
+		}
+
+	}
+
+	/**
+	 * Sweeps along x, comparing each Rocket with the Rockets after it until
+	 * one starts past its right edge.
+	 */
+	private void sweep() {
+
+		for (int i = 0; i < rocketCount; i++) {
+
+			for (int j = i + 1; j < rocketCount && minX[j] <= maxX[i]; j++) {
+
+				if (maxY[j] < minY[i] || minY[j] > maxY[i]) {
+					continue;
+				}
+
+				if (!isFlying(rockets[i]) && !isFlying(rockets[j])) {
+					continue;
+				}
+
+				pairsTested++;
+
+				if (bodiesOverlap(i, j)) {
+					collisions.add(new Rocket [] {rockets[i], rockets[j]});
+				}
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Returns true if a Rocket is airborne and hasn't crashed.
+	 * @param rocket the Rocket to check
+	 * @return whether the Rocket can still crash
+	 */
+	private static boolean isFlying(Rocket rocket) {
+		return rocket.isAirborne() && !rocket.isCrashed();
+	}
+
+	/**
+	 * Tests whether the rotated bodies of two Rockets overlap, by looking for
+	 * a separating axis among the sides of the two boxes.
+	 * @param i the first Rocket's position
+	 * @param j the second Rocket's position
+	 * @return true if the bodies overlap
+	 */
+	private boolean bodiesOverlap(int i, int j) {
+
+		double dx = centerX[j] - centerX[i];
+		double dy = centerY[j] - centerY[i];
+
+		return !separates(axisX[i], axisY[i], i, j, dx, dy) &&
+			!separates(-axisY[i], axisX[i], i, j, dx, dy) &&
+			!separates(axisX[j], axisY[j], i, j, dx, dy) &&
+			!separates(-axisY[j], axisX[j], i, j, dx, dy);
+
+	}
+
+	/**
+	 * Tests whether the projections of two Rockets' bodies onto an axis are
+	 * apart.
+	 * @param x the x component of the unit axis
+	 * @param y the y component of the unit axis
+	 * @param i the first Rocket's position
+	 * @param j the second Rocket's position
+	 * @param dx the x distance between the Rockets' centers
+	 * @param dy the y distance between the Rockets' centers
+	 * @return true if the axis separates the bodies
+	 */
+	private boolean separates(double x, double y, int i, int j, double dx,
+			double dy) {
+
+		double distance = Math.abs(dx * x + dy * y);
+		return distance > projectedRadius(i, x, y) + projectedRadius(j, x, y);
+
+	}
+
+	/**
+	 * Gets half the length of a Rocket's body projected onto an axis.
+	 * @param i the Rocket's position
+	 * @param x the x component of the unit axis
+	 * @param y the y component of the unit axis
+	 * @return the projected half length
+	 */
+	private double projectedRadius(int i, double x, double y) {
+
+		Rocket rocket = rockets[i];
+		double alongAxis = Math.abs(axisX[i] * x + axisY[i] * y);
+		double acrossAxis = Math.abs(-axisY[i] * x + axisX[i] * y);
+		return alongAxis * rocket.getHeight() / 2 +
+			acrossAxis * rocket.getWidth() / 2;
+
+	}
+
+}
@@ -1,19 +1,16 @@
 package world;
-import java.util.ArrayList;
-
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
-
-import design.ColorPalette;
+import util.RandomStream;
 
 /**
- * A class that handles the creation and drawing of mountains, used in the 
- * <code>World</code> class.
+ * A class that handles the creation of mountains, used in the 
+ * <code>World</code> class. It works out the skyline of any part of the 
+ * mountain range, which a renderer fills and outlines.
  */
 public class MountainManager {
 	
-	private ArrayList<Double> mountainXPoints = new ArrayList<Double>();
-	private ArrayList<Double> mountainYPoints = new ArrayList<Double>();
+	public static final double OUTLINE_WIDTH = 3;
+	
+	private MountainPoints mountainPoints = new MountainPoints(64);
 	
 	private double xStep; 
 	private double maxShiftMagnitude; 
@@ -21,45 +18,60 @@ public class MountainManager {
 	private double groundY;
 	private double windowWidth;
 
-	private ColorPalette palette;
+	private long terrainSeed;
+	private TerrainGenerator terrainGenerator;
+	
+	// Reused between frames so drawing allocates nothing
+	private double [] skylineX = new double[0];
+	private double [] skylineY = new double[0];
 
 	/**
 	 * Creates a MountainManager for a window of given width with arguments for
-	 * xStep, maxShiftMagnitude, the ground's top y-coordinate, and the color 
-	 * palette.
+	 * xStep, maxShiftMagnitude, and the ground's top y-coordinate.
 	 * @param windowWidth the width of the Canvas the simulation takes place in
 	 * @param xStep how far apart mountain vertices should be
 	 * @param maxShiftMagnitude the maximum deviation between one mountain
 	 * vertex y-coordinate and the next
 	 * @param groundY the ground's top y-coordinate
-	 * @param palette the color palette to use when drawing the mountains
 	 */
 	public MountainManager(double windowWidth, double xStep, 
-			double maxShiftMagnitude, double groundY, ColorPalette palette) {
+			double maxShiftMagnitude, double groundY) {
+		
+		this(windowWidth, xStep, maxShiftMagnitude, groundY, 
+				new RandomStream());
 		
+	}
+	
+	/**
+	 * Creates a MountainManager like the other constructor, which seeds its
+	 * terrain from the given stream of random numbers, so the same seed
+	 * always gives the same mountains.
+	 * @param windowWidth the width of the Canvas the simulation takes place in
+	 * @param xStep how far apart mountain vertices should be
+	 * @param maxShiftMagnitude the maximum deviation between one mountain
+	 * vertex y-coordinate and the next
+	 * @param groundY the ground's top y-coordinate
+	 * @param random the stream of random numbers to seed the terrain from
+	 */
+	public MountainManager(double windowWidth, double xStep, 
+			double maxShiftMagnitude, double groundY, RandomStream random) {
+		
+		this.terrainSeed = random.nextLong();
 		this.xStep = xStep;
 		this.maxShiftMagnitude = maxShiftMagnitude;
 		this.windowWidth = windowWidth;
 		this.groundY = groundY;
-		this.palette = palette;
+		this.terrainGenerator = createTerrainGenerator();
 		fillPoints(20);
 		
 	}
 	
 	/**
-	 * Gets an ordered list of the mountain range's x-coordinates.
-	 * @return the mountain range's x-coordinates
+	 * Gets the mountain range's vertices, ordered from left to right.
+	 * @return the mountain range's vertices
 	 */
-	public ArrayList<Double> getMountainXPoints() {
-		return mountainXPoints;
-	}
-
-	/**
-	 * Gets an ordered list of the mountain range's y-coordinates.
-	 * @return the mountain range's y-coordinates
-	 */
-	public ArrayList<Double> getMountainYPoints() {
-		return mountainYPoints;
+	public MountainPoints getMountainPoints() {
+		return mountainPoints;
 	}
 	
 	/**
@@ -89,18 +101,31 @@ public class MountainManager {
 
 	/**
 	 * Sets the maximum deviation between one mountain vertex y-coordinate and 
-	 * the next
+	 * the next, and regenerates the mountains with the same seed.
 	 * @param maxShiftMagnitude the maximum shift magnitude
 	 */
 	public void setMaxShiftMagnitude(double maxShiftMagnitude) {
+		
 		this.maxShiftMagnitude = maxShiftMagnitude;
+		this.terrainGenerator = createTerrainGenerator();
+		getMountainPoints().clear();
+		fillPoints(20);
+		
+	}
+
+	/**
+	 * Gets the generator that mountain vertex heights come from.
+	 * @return the MountainManager's TerrainGenerator
+	 */
+	public TerrainGenerator getTerrainGenerator() {
+		return terrainGenerator;
 	}
 
 	/**
 	 * Gets the ground's top y-coordinate
 	 * @return the ground's top y-coordinate
 	 */
-	private double getGroundY() {
+	public double getGroundY() {
 		return groundY;
 	}
 
@@ -121,62 +146,41 @@ public class MountainManager {
 	}
 
 	/**
-	 * Generates the y-coordinate of the next mountain vertex based on the last
-	 * one.
-	 * @param lastY the last mountain vertex's y-coordinate
-	 * @return the next mountain vertex's y-coordinate
+	 * Creates a TerrainGenerator for this MountainManager's seed. The terrain
+	 * varies around a line 300 pixels above the ground, by up to twice the 
+	 * max shift magnitude.
+	 * @return a new TerrainGenerator
 	 */
-	private double getNextY(double lastY) {
+	private TerrainGenerator createTerrainGenerator() {
 		
-		return (lastY - maxShiftMagnitude) + 
-				Math.random() * (2 * maxShiftMagnitude);
+		return new TerrainGenerator(terrainSeed, getGroundY() - 300, 
+				2 * getMaxShiftMagnitude(), 
+				TerrainGenerator.DEFAULT_MAX_CACHED_CHUNKS);
 		
 	}
 
 	/**
-	 * Gets the color palette to use when drawing the mountains.
-	 * @return the MountainManager's color palette
+	 * Gets the index of the mountain vertex at the given x-coordinate.
+	 * @param x the vertex's x-coordinate
+	 * @return the vertex's index
 	 */
-	private ColorPalette getPalette() {
-		return this.palette;
+	private long getVertexIndex(double x) {
+		
+		return Math.round(x / xStep);
+		
 	}
 
 	/**
-	 * Sets the color palette to use when drawing the mountains
-	 * @param palette the MountainManager's color palette
-	 */
-	public void setPalette(ColorPalette palette) {
-		this.palette = palette;
-	}
-	
-	/**
-	 * Fills the lists storing mountain x and y points by continuously 
-	 * generating vertex x and y coordinates.
+	 * Fills the buffer storing mountain vertices with the first vertices to
+	 * the right of the origin.
 	 * @param initialGenSize the number of mountain vertices to generate
 	 */
 	private void fillPoints(int initialGenSize) {
 		
-		for (int i = 0; i < initialGenSize; i ++) {
+		for (int i = 0; i < initialGenSize; i++) {
 			
-			getMountainXPoints().add(i * xStep);
-			
-		}
-		
-		double baseY = getGroundY() - 300;
-		
-		for (int j = 0; j < initialGenSize; j++) {
-			
-			double lastY = j == 0 ? baseY : getMountainYPoints().get(j-1);
-			
-			double nextY = getNextY(lastY);
-			
-			if (nextY > baseY) {
-				
-				nextY = baseY;
-				
-			}
-			
-			getMountainYPoints().add(nextY);
+			getMountainPoints().addLast(i * xStep, 
+					getTerrainGenerator().getVertexY(i));
 			
 		}
 		
@@ -184,80 +188,154 @@ public class MountainManager {
 	
 	/**
 	 * Makes sure that there are enough mountain vertices to fill the Canvas
-	 * that the MountainManager occupies.
+	 * that the MountainManager occupies, and removes the vertices that have
+	 * moved more than the margin outside of it.
 	 * @param canvasLeftX the left x-coordinate of the Canvas used to draw the 
 	 * mountains
 	 * @param margin the area outside of the Canvas to generate mountain 
 	 * vertices in
 	 */
-	private void fillViewingWindow(double canvasLeftX, double margin) {
-		if (getMountainXPoints().size() == 0 || getMountainYPoints().size() == 0) {
+	public void fillViewingWindow(double canvasLeftX, double margin) {
+		
+		fillRange(canvasLeftX - margin, canvasLeftX + getWindowWidth() + margin);
+		
+	}
+	
+	/**
+	 * Makes sure that the buffer of mountain vertices covers the range 
+	 * between two x-coordinates, and removes the vertices outside of it. 
+	 * Removed vertices come back the same when the range returns to them. One
+	 * vertex beyond the range is kept on each side, so a vertex is never 
+	 * removed and then added again while the range stays still. If the range
+	 * has jumped clear of the buffer, the buffer starts over inside it rather
+	 * than generating every vertex in between.
+	 * @param leftEdge the left x-coordinate of the range
+	 * @param rightEdge the right x-coordinate of the range
+	 */
+	private void fillRange(double leftEdge, double rightEdge) {
+		
+		MountainPoints points = getMountainPoints();
+		
+		if (points.isEmpty() || points.getFirstX() > rightEdge || 
+				points.getLastX() < leftEdge) {
 			
-			System.out.println("still loading mountains");
-
-		} else {
+			long index = getVertexIndex(leftEdge);
+			points.clear();
+			points.addLast(index * xStep, getTerrainGenerator().getVertexY(index));
 			
-			if (getMountainXPoints().get(0) > canvasLeftX - margin) {
-				
-				double leftMountainX = getMountainXPoints().get(0);
-				getMountainXPoints().add(0, leftMountainX - xStep);
-				
-				double leftMountainY = getMountainYPoints().get(0);
-				getMountainYPoints().add(0, getNextY(leftMountainY));
-				
-			}
+		}
+		
+		while (points.getFirstX() > leftEdge) {
+			
+			long index = getVertexIndex(points.getFirstX()) - 1;
+			points.addFirst(index * xStep, 
+					getTerrainGenerator().getVertexY(index));
+			
+		}
 
-			double canvasRightX = canvasLeftX + getWindowWidth();
-			if (getMountainXPoints().get(getMountainXPoints().size() - 1) < canvasRightX + margin) {
+		while (points.getLastX() < rightEdge) {
 
-				double rightMountainX = getMountainXPoints().get(getMountainXPoints().size() - 1);
-				double rightMountainY = getMountainYPoints().get(getMountainYPoints().size() - 1);
-				
-				getMountainXPoints().add(rightMountainX + xStep);
-				getMountainYPoints().add(getNextY(rightMountainY));
+			long index = getVertexIndex(points.getLastX()) + 1;
+			points.addLast(index * xStep, 
+					getTerrainGenerator().getVertexY(index));
 
-			}
+		}
+		
+		while (points.size() > 2 && points.getX(1) < leftEdge) {
+			
+			points.removeFirst();
+			
+		}
+		
+		while (points.size() > 2 && points.getX(points.size() - 2) > rightEdge) {
+			
+			points.removeLast();
+			
+		}
+		
+	}
 
+	/**
+	 * Computes the skyline vertices between two x-coordinates, plus one 
+	 * vertex past each side, into the reusable skyline arrays. This is all
+	 * the work of drawing the mountains apart from the drawing calls. The 
+	 * arrays have room for 2 more points after the vertices, so the skyline
+	 * can be closed along the ground into a polygon.
+	 * <p>
+	 * The vertices are copied from the buffer of mountain vertices, which is
+	 * extended to cover the skyline and a window width on either side of it.
+	 * Skylines drawn for the same view share the buffer, and vertices further
+	 * away are evicted.
+	 * @param leftX the left x-coordinate of the skyline
+	 * @param rightX the right x-coordinate of the skyline
+	 * @return the number of skyline vertices
+	 */
+	public int computeSkyline(double leftX, double rightX) {
+		
+		long first = (long) Math.floor(leftX / xStep);
+		long last = (long) Math.ceil(rightX / xStep);
+		int vertexCount = (int) (last - first + 1);
+		ensureSkylineCapacity(vertexCount + 2);
+		
+		fillRange(leftX - getWindowWidth(), rightX + getWindowWidth());
+		
+		MountainPoints points = getMountainPoints();
+		int offset = (int) (first - getVertexIndex(points.getFirstX()));
+		
+		for (int i = 0; i < vertexCount; i++) {
+			
+			skylineX[i] = points.getX(offset + i);
+			skylineY[i] = points.getY(offset + i);
+			
 		}
 		
+		return vertexCount;
+		
+	}
+	
+	/**
+	 * Gets the x-coordinates of the skyline last computed. The array may be
+	 * longer than the number of vertices, and is reused by the next 
+	 * computation.
+	 * @return the skyline x-coordinates
+	 */
+	public double [] getSkylineX() {
+		return skylineX;
+	}
+	
+	/**
+	 * Gets the y-coordinates of the skyline last computed. The array may be
+	 * longer than the number of vertices, and is reused by the next 
+	 * computation.
+	 * @return the skyline y-coordinates
+	 */
+	public double [] getSkylineY() {
+		return skylineY;
 	}
 	
 	/**
-	 * Draws mountains on a Canvas with the given GraphicsContext.
-	 * @param gc the GraphicsContext to use when drawing the mountains
+	 * Gets the highest y-coordinate that any part of the mountains, including
+	 * their outline, can be drawn at.
+	 * @return the top y-coordinate of the mountain range
 	 */
-	public void draw(GraphicsContext gc) {
+	public double getTopY() {
 		
-		fillViewingWindow(-gc.getTransform().getTx(), 500);
-		gc.setFill(getPalette().getMountainColor());
+		return getTerrainGenerator().getBaseY() - 
+				getTerrainGenerator().getAmplitude() - OUTLINE_WIDTH;
 		
-		for (int i = 0; i < getMountainXPoints().size() - 1; i++) {
-			
-			gc.fillPolygon(
-					new double [] {
-							
-							getMountainXPoints().get(i),
-							getMountainXPoints().get(i),
-							getMountainXPoints().get(i+1) + 1,
-							getMountainXPoints().get(i+1) + 1,
-							getMountainXPoints().get(i)
-									
-					},
-					new double [] {
-							getMountainYPoints().get(i),
-							getMountainYPoints().get(i),
-							getMountainYPoints().get(i+1),
-							groundY,
-							groundY
-					},
-					5
-					
-			);
+	}
+	
+	/**
+	 * Makes sure the reusable skyline arrays can hold the given number of
+	 * points.
+	 * @param length the number of points needed
+	 */
+	private void ensureSkylineCapacity(int length) {
+		
+		if (skylineX.length < length) {
 			
-			gc.setStroke(getPalette().getMountainColor().darker());
-			gc.setLineWidth(3);
-			gc.strokeLine(getMountainXPoints().get(i), getMountainYPoints().get(i), 
-					getMountainXPoints().get(i+1), getMountainYPoints().get(i+1));
+			skylineX = new double[length * 2];
+			skylineY = new double[length * 2];
 			
 		}
 		
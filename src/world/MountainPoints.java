@@ -0,0 +1,198 @@
+package world;
+
+/**
+ * A class that stores mountain vertices, ordered from left to right, in a
+ * double-ended ring buffer of primitive x and y coordinates. Vertices can be
+ * added and removed at either end in constant time without shifting the
+ * others, so the mountain range can follow the camera in both directions
+ * while only keeping the vertices near it.
+ */
+public class MountainPoints {
+
+	private double [] x;
+	private double [] y;
+
+	private int head = 0; // The array index of the leftmost vertex
+	private int size = 0;
+
+	/**
+	 * Creates a MountainPoints with room for the given number of vertices
+	 * before its arrays have to grow.
+	 * @param initialCapacity the number of vertices to allocate space for
+	 */
+	public MountainPoints(int initialCapacity) {
+
+		x = new double[Math.max(1, initialCapacity)];
+		y = new double[Math.max(1, initialCapacity)];
+
+	}
+
+	/**
+	 * Gets the number of vertices stored.
+	 * @return the vertex count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of vertices that can be stored before the arrays grow.
+	 * @return the allocated capacity
+	 */
+	public int capacity() {
+		return x.length;
+	}
+
+	/**
+	 * Returns true if no vertices are stored.
+	 * @return whether the MountainPoints is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the x-coordinate of a vertex.
+	 * @param i the vertex's index, counting from the leftmost vertex
+	 * @return the vertex's x-coordinate
+	 */
+	public double getX(int i) {
+		return x[toArrayIndex(i)];
+	}
+
+	/**
+	 * Gets the y-coordinate of a vertex.
+	 * @param i the vertex's index, counting from the leftmost vertex
+	 * @return the vertex's y-coordinate
+	 */
+	public double getY(int i) {
+		return y[toArrayIndex(i)];
+	}
+
+	/**
+	 * Gets the x-coordinate of the leftmost vertex.
+	 * @return the leftmost x-coordinate
+	 */
+	public double getFirstX() {
+		return getX(0);
+	}
+
+	/**
+	 * Gets the y-coordinate of the leftmost vertex.
+	 * @return the leftmost vertex's y-coordinate
+	 */
+	public double getFirstY() {
+		return getY(0);
+	}
+
+	/**
+	 * Gets the x-coordinate of the rightmost vertex.
+	 * @return the rightmost x-coordinate
+	 */
+	public double getLastX() {
+		return getX(size - 1);
+	}
+
+	/**
+	 * Gets the y-coordinate of the rightmost vertex.
+	 * @return the rightmost vertex's y-coordinate
+	 */
+	public double getLastY() {
+		return getY(size - 1);
+	}
+
+	/**
+	 * Adds a vertex to the left of every other vertex.
+	 * @param x the vertex's x-coordinate
+	 * @param y the vertex's y-coordinate
+	 */
+	public void addFirst(double x, double y) {
+
+		ensureCapacity();
+		head = (head - 1 + capacity()) % capacity();
+		this.x[head] = x;
+		this.y[head] = y;
+		size++;
+
+	}
+
+	/**
+	 * Adds a vertex to the right of every other vertex.
+	 * @param x the vertex's x-coordinate
+	 * @param y the vertex's y-coordinate
+	 */
+	public void addLast(double x, double y) {
+
+		ensureCapacity();
+		int tail = toArrayIndex(size);
+		this.x[tail] = x;
+		this.y[tail] = y;
+		size++;
+
+	}
+
+	/**
+	 * Removes the leftmost vertex.
+	 */
+	public void removeFirst() {
+
+		head = (head + 1) % capacity();
+		size--;
+
+	}
+
+	/**
+	 * Removes the rightmost vertex.
+	 */
+	public void removeLast() {
+		size--;
+	}
+
+	/**
+	 * Removes every vertex.
+	 */
+	public void clear() {
+
+		head = 0;
+		size = 0;
+
+	}
+
+	/**
+	 * Converts a vertex index into an index of the underlying arrays.
+	 * @param i the vertex's index, counting from the leftmost vertex
+	 * @return the array index
+	 */
+	private int toArrayIndex(int i) {
+
+		int index = head + i;
+		return index < capacity() ? index : index - capacity();
+
+	}
+
+	/**
+	 * Doubles the length of the arrays if they are full, moving the vertices
+	 * so that the leftmost one is at index 0.
+	 */
+	private void ensureCapacity() {
+
+		if (size < capacity()) {
+			return;
+		}
+
+		double [] newX = new double[capacity() * 2];
+		double [] newY = new double[capacity() * 2];
+		int firstPart = capacity() - head;
+
+		System.arraycopy(x, head, newX, 0, firstPart);
+		System.arraycopy(x, 0, newX, firstPart, head);
+		System.arraycopy(y, head, newY, 0, firstPart);
+		System.arraycopy(y, 0, newY, firstPart, head);
+
+		x = newX;
+		y = newY;
+		head = 0;
+
+	}
+
+}
@@ -0,0 +1,592 @@
+package world;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import util.StateBuffer;
+
+/**
+ * A bounded history of a World's recent states, for scrubbing the
+ * simulation backwards. A frame is recorded after every tick, and the
+ * oldest frames are dropped once the history covers more than a set number
+ * of seconds.
+ * <p>
+ * Only the newest state is kept whole. Every other frame is stored as the
+ * difference from the frame before it: the values that changed, each as a
+ * variable-length number of the change in its bits, and a count of the
+ * unchanged values skipped before it. Most values stay the same from one
+ * tick to the next, so a frame takes a few hundred bytes. Stepping back
+ * subtracts the newest frame's differences from the newest state and
+ * forgets that frame, since the simulation carries on from wherever the
+ * rewind stops. Exhaust Particles and previous positions are left out of
+ * the history, since they have no effect on the flight. Stepping back
+ * leaves the Particles already in the air where they are, and leaves every
+ * object's previous position as it was, so a World whose positions are
+ * saved as previous before stepping back is drawn moving from where it was
+ * to the restored frame.
+ * <p>
+ * Frames are packed into fixed-size chunks. When the chunks in memory pass
+ * the memory limit, or the heap is nearly full, the oldest chunks are
+ * written to a temp file and read back if the rewind reaches them. If the
+ * temp file can't be used, the oldest chunks are dropped instead.
+ * <p>
+ * A RewindHistory must only be used from one thread.
+ */
+public class RewindHistory {
+
+	public static final double DEFAULT_MAX_SECONDS = 300;
+	public static final int DEFAULT_FRAMES_PER_SECOND = 120;
+	public static final long DEFAULT_MEMORY_LIMIT = 4 * 1024 * 1024;
+	public static final double HEAP_PRESSURE = 0.75; // Heap use that spills
+
+	private static final int CHUNK_BYTES = 64 * 1024;
+	private static final int MAX_FRAME_BYTES_PER_VALUE = 15; // Two varints
+
+	private final int framesPerSecond;
+	private final int maxFrames;
+	private long memoryLimit = DEFAULT_MEMORY_LIMIT;
+
+	private StateBuffer state = new StateBuffer(); // The newest frame
+	private StateBuffer recorded = new StateBuffer();
+	private boolean empty = true;
+
+	private ArrayList<Chunk> chunks = new ArrayList<Chunk>();
+	private int chunkBytes = CHUNK_BYTES;
+	private int frameCount = 0; // Frames stored as differences
+	private long memoryUsed = 0;
+
+	private File spillPath;
+	private RandomAccessFile spillFile;
+	private ArrayDeque<Long> freeSlots = new ArrayDeque<Long>();
+	private long slotCount = 0;
+	private int spilledChunks = 0;
+	private boolean spillFailed = false;
+
+	/**
+	 * Creates a RewindHistory that keeps the default number of seconds at
+	 * the default number of frames per second.
+	 */
+	public RewindHistory() {
+		this(DEFAULT_MAX_SECONDS, DEFAULT_FRAMES_PER_SECOND);
+	}
+
+	/**
+	 * Creates a RewindHistory that keeps a given number of seconds.
+	 * @param maxSeconds the number of seconds of history to keep
+	 * @param framesPerSecond the number of frames recorded per second
+	 */
+	public RewindHistory(double maxSeconds, int framesPerSecond) {
+
+		if (maxSeconds <= 0 || framesPerSecond <= 0) {
+			throw new IllegalArgumentException("History length must be positive");
+		}
+
+		this.framesPerSecond = framesPerSecond;
+		this.maxFrames = (int) Math.ceil(maxSeconds * framesPerSecond);
+		state.setCosmeticStateIncluded(false);
+		recorded.setCosmeticStateIncluded(false);
+
+	}
+
+	/**
+	 * Gets the number of frames the history can step back through.
+	 * @return the frame count
+	 */
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Gets the number of seconds the history can step back through.
+	 * @return the length of the history in seconds
+	 */
+	public double getSeconds() {
+		return (double) frameCount / framesPerSecond;
+	}
+
+	/**
+	 * Gets the number of bytes of frames held in memory, not counting the
+	 * newest state.
+	 * @return the memory used by the history
+	 */
+	public long getMemoryUsed() {
+		return memoryUsed;
+	}
+
+	/**
+	 * Gets the number of bytes of frames written to the temp file.
+	 * @return the spilled byte count
+	 */
+	public long getSpilledBytes() {
+		return (long) spilledChunks * chunkBytes;
+	}
+
+	/**
+	 * Gets the number of bytes of frames the history keeps in memory before
+	 * it writes the oldest ones to a temp file.
+	 * @return the memory limit
+	 */
+	public long getMemoryLimit() {
+		return memoryLimit;
+	}
+
+	/**
+	 * Sets the number of bytes of frames the history keeps in memory before
+	 * it writes the oldest ones to a temp file.
+	 * @param memoryLimit the memory limit
+	 */
+	public void setMemoryLimit(long memoryLimit) {
+		this.memoryLimit = memoryLimit;
+	}
+
+	/**
+	 * Records the current state of a World as the newest frame. If the World
+	 * doesn't have the same objects as the last frame, the history starts
+	 * over from this frame.
+	 * @param world the World to record
+	 */
+	public void record(World world) {
+
+		recorded.clear();
+		world.saveState(recorded);
+
+		if (empty || recorded.size() != state.size()) {
+
+			clear();
+			chunkBytes = Math.max(CHUNK_BYTES,
+				recorded.size() * MAX_FRAME_BYTES_PER_VALUE);
+			state.copyFrom(recorded);
+			empty = false;
+			return;
+
+		}
+
+		Chunk chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+
+		if (chunk == null || chunk.data == null ||
+				chunkBytes - chunk.length < state.size() * MAX_FRAME_BYTES_PER_VALUE) {
+
+			chunk = new Chunk(chunkBytes);
+			chunks.add(chunk);
+			memoryUsed += chunkBytes;
+			relieveMemory();
+
+		}
+
+		chunk.addFrame(encode(state, recorded, chunk.data, chunk.length));
+		frameCount++;
+
+		// The recorded frame becomes the newest
+		StateBuffer newest = recorded;
+		recorded = state;
+		state = newest;
+
+		while (frameCount > maxFrames) {
+			dropOldestFrame();
+		}
+
+	}
+
+	/**
+	 * Puts a World back to the frame before the newest one, and forgets the
+	 * newest frame.
+	 * @param world the World to step back
+	 * @return false if there was no earlier frame to step back to
+	 */
+	public boolean stepBack(World world) {
+
+		if (frameCount == 0) {
+			return false;
+		}
+
+		int last = chunks.size() - 1;
+		Chunk chunk = chunks.get(last);
+
+		if (chunk.data == null && !load(chunk)) {
+
+			// The spilled frames are lost, so the history ends here
+			clearFrames();
+			return false;
+
+		}
+
+		int end = chunk.length;
+		chunk.removeFrame();
+		decode(chunk.data, chunk.length, end, state);
+		frameCount--;
+
+		if (chunk.getLiveFrames() == 0) {
+			removeChunk(last);
+		}
+
+		state.rewind();
+		world.restoreState(state);
+		return true;
+
+	}
+
+	/**
+	 * Forgets every frame, including the newest state.
+	 */
+	public void clear() {
+
+		clearFrames();
+		empty = true;
+
+	}
+
+	/**
+	 * Forgets every frame and deletes the temp file.
+	 */
+	public void close() {
+
+		clear();
+
+		if (spillFile != null) {
+
+			try {
+				spillFile.close();
+			} catch (IOException e) {
+				// The file is deleted below either way
+			}
+
+			spillPath.delete();
+			spillFile = null;
+			spillPath = null;
+
+		}
+
+		spillFailed = false;
+
+	}
+
+	/**
+	 * Forgets every frame before the newest state, and frees the temp file's
+	 * space for reuse.
+	 */
+	private void clearFrames() {
+
+		chunks.clear();
+		frameCount = 0;
+		memoryUsed = 0;
+		freeSlots.clear();
+		slotCount = 0;
+		spilledChunks = 0;
+
+	}
+
+	/**
+	 * Removes a chunk and frees its memory or its slot in the temp file.
+	 * @param index the index of the chunk
+	 */
+	private void removeChunk(int index) {
+
+		Chunk chunk = chunks.remove(index);
+		frameCount -= chunk.getLiveFrames();
+
+		if (chunk.data == null) {
+
+			freeSlots.push(chunk.slot);
+			spilledChunks--;
+
+		} else {
+
+			memoryUsed -= chunk.data.length;
+
+		}
+
+	}
+
+	/**
+	 * Forgets the oldest frame. Its chunk is removed once it has no frames
+	 * left, so a chunk never keeps the history longer than its limit.
+	 */
+	private void dropOldestFrame() {
+
+		Chunk oldest = chunks.get(0);
+
+		if (oldest.getLiveFrames() == 1) {
+
+			removeChunk(0);
+
+		} else {
+
+			oldest.dropFrame();
+			frameCount--;
+
+		}
+
+	}
+
+	/**
+	 * Writes the oldest chunks in memory to the temp file while the history
+	 * is over its memory limit or the heap is nearly full. The newest chunk
+	 * always stays in memory.
+	 */
+	private void relieveMemory() {
+
+		Runtime runtime = Runtime.getRuntime();
+		int oldest = 0;
+
+		while (oldest < chunks.size() - 1) {
+
+			long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+
+			if (memoryUsed <= memoryLimit &&
+					heapUsed <= HEAP_PRESSURE * runtime.maxMemory()) {
+				return;
+			}
+
+			Chunk chunk = chunks.get(oldest);
+
+			if (chunk.data == null) {
+
+				oldest++;
+
+			} else if (!spill(chunk)) {
+
+				// Without a temp file, the oldest frames have to go
+				removeChunk(oldest);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Writes a chunk to a free slot in the temp file, and lets go of its
+	 * bytes in memory.
+	 * @param chunk the chunk to write
+	 * @return false if the temp file couldn't be written
+	 */
+	private boolean spill(Chunk chunk) {
+
+		if (spillFailed) {
+			return false;
+		}
+
+		try {
+
+			if (spillFile == null) {
+
+				spillPath = File.createTempFile("rewind", ".tmp");
+				spillPath.deleteOnExit();
+				spillFile = new RandomAccessFile(spillPath, "rw");
+
+			}
+
+			long slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+			spillFile.seek(slot * chunkBytes);
+			spillFile.write(chunk.data, 0, chunk.length);
+			chunk.slot = slot;
+
+		} catch (IOException e) {
+
+			spillFailed = true;
+			return false;
+
+		}
+
+		memoryUsed -= chunk.data.length;
+		chunk.data = null;
+		spilledChunks++;
+		return true;
+
+	}
+
+	/**
+	 * Reads a spilled chunk back into memory and frees its slot in the temp
+	 * file.
+	 * @param chunk the chunk to read
+	 * @return false if the temp file couldn't be read
+	 */
+	private boolean load(Chunk chunk) {
+
+		byte [] data = new byte[chunkBytes];
+
+		try {
+
+			spillFile.seek(chunk.slot * chunkBytes);
+			spillFile.readFully(data, 0, chunk.length);
+
+		} catch (IOException e) {
+
+			spillFailed = true;
+			return false;
+
+		}
+
+		chunk.data = data;
+		freeSlots.push(chunk.slot);
+		spilledChunks--;
+		memoryUsed += data.length;
+		return true;
+
+	}
+
+	/**
+	 * Writes the differences between two states with the same layout.
+	 * @param from the earlier state
+	 * @param to the later state
+	 * @param out the bytes to write into
+	 * @param offset the index to start writing at
+	 * @return the index after the last byte written
+	 */
+	private static int encode(StateBuffer from, StateBuffer to, byte [] out,
+			int offset) {
+
+		int skipped = 0;
+
+		for (int i = 0; i < to.size(); i++) {
+
+			long difference = to.get(i) - from.get(i);
+
+			if (difference == 0) {
+
+				skipped++;
+				continue;
+
+			}
+
+			offset = putVarint(out, offset, skipped);
+			offset = putVarint(out, offset, (difference << 1) ^ (difference >> 63));
+			skipped = 0;
+
+		}
+
+		return offset;
+
+	}
+
+	/**
+	 * Subtracts a frame's differences from a state, turning it into the
+	 * state of the frame before.
+	 * @param in the bytes to read
+	 * @param offset the index of the frame's first byte
+	 * @param end the index after the frame's last byte
+	 * @param state the state to change
+	 */
+	private static void decode(byte [] in, int offset, int end,
+			StateBuffer state) {
+
+		int index = 0;
+
+		while (offset < end) {
+
+			long skipped = 0;
+			int shift = 0;
+			byte b;
+
+			do {
+				b = in[offset++];
+				skipped |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			long zigzag = 0;
+			shift = 0;
+
+			do {
+				b = in[offset++];
+				zigzag |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			index += skipped;
+			state.set(index, state.get(index) - ((zigzag >>> 1) ^ -(zigzag & 1)));
+			index++;
+
+		}
+
+	}
+
+	/**
+	 * Writes an unsigned number in as few bytes as it needs, seven bits at a
+	 * time, with the high bit set on every byte but the last.
+	 * @param out the bytes to write into
+	 * @param offset the index to write at
+	 * @param value the number to write
+	 * @return the index after the last byte written
+	 */
+	private static int putVarint(byte [] out, int offset, long value) {
+
+		while ((value & ~0x7FL) != 0) {
+
+			out[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+
+		}
+
+		out[offset++] = (byte) value;
+		return offset;
+
+	}
+
+	/**
+	 * A block of consecutive frames, in memory or in a slot of the temp
+	 * file.
+	 */
+	private static class Chunk {
+
+		private byte [] data; // Null while the chunk is spilled
+		private int length = 0;
+		private int [] frameStarts = new int[64];
+		private int frameCount = 0;
+		private int droppedFrames = 0; // Frames at the start that are forgotten
+		private long slot = -1;
+
+		/**
+		 * Creates an empty chunk in memory.
+		 * @param size the number of bytes the chunk can hold
+		 */
+		private Chunk(int size) {
+			this.data = new byte[size];
+		}
+
+		/**
+		 * Adds a frame that has been written at the end of the chunk.
+		 * @param end the index after the frame's last byte
+		 */
+		private void addFrame(int end) {
+
+			if (frameCount == frameStarts.length) {
+				frameStarts = Arrays.copyOf(frameStarts, frameCount * 2);
+			}
+
+			frameStarts[frameCount++] = length;
+			length = end;
+
+		}
+
+		/**
+		 * Gets the number of frames in the chunk that haven't been dropped.
+		 * @return the live frame count
+		 */
+		private int getLiveFrames() {
+			return frameCount - droppedFrames;
+		}
+
+		/**
+		 * Removes the last frame from the chunk. Its bytes stay in the array
+		 * until they are overwritten.
+		 */
+		private void removeFrame() {
+			length = frameStarts[--frameCount];
+		}
+
+		/**
+		 * Forgets the first frame that hasn't been dropped yet. Its bytes stay
+		 * in the chunk, since the frames after it start where it ends, but it
+		 * can no longer be stepped back to.
+		 */
+		private void dropFrame() {
+			droppedFrames++;
+		}
+
+	}
+
+}
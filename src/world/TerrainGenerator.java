@@ -0,0 +1,217 @@
+package world;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import util.RandomStream;
+
+/**
+ * A class that generates mountain vertex heights from seeded value noise.
+ * The height of a vertex only depends on the seed and the vertex's index, so
+ * any part of the terrain can be regenerated and always looks the same.
+ * <p>
+ * Heights are generated a chunk of vertices at a time, and the most recently
+ * used chunks are cached. Once the cache is full the least recently used
+ * chunk is dropped, so memory use stays the same however far the terrain
+ * stretches.
+ */
+public class TerrainGenerator {
+
+	public static final int CHUNK_SIZE = 16; // vertices per chunk
+	public static final int DEFAULT_MAX_CACHED_CHUNKS = 8;
+
+	// The noise's octaves, from the widest hills to the smallest bumps
+	private static final int [] OCTAVE_PERIODS = {32, 16, 8, 4, 2, 1}; // vertices
+	private static final double PERSISTENCE = 0.6;
+
+	private long seed;
+	private double baseY;
+	private double amplitude;
+	private int maxCachedChunks;
+
+	private long chunksGenerated = 0;
+
+	private final LinkedHashMap<Long, double[]> chunks;
+
+	/**
+	 * Creates a TerrainGenerator whose vertex heights vary around the base
+	 * y-coordinate by up to the amplitude.
+	 * @param seed the seed that determines the terrain's shape
+	 * @param baseY the y-coordinate the terrain varies around
+	 * @param amplitude the most a vertex can be above or below baseY
+	 * @param maxCachedChunks the most chunks to keep cached at once
+	 */
+	public TerrainGenerator(long seed, double baseY, double amplitude,
+			int maxCachedChunks) {
+
+		this.seed = seed;
+		this.baseY = baseY;
+		this.amplitude = amplitude;
+		this.maxCachedChunks = maxCachedChunks;
+
+		// An access-ordered map iterates from least to most recently used
+		this.chunks = new LinkedHashMap<Long, double[]>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, double[]> eldest) {
+				return size() > getMaxCachedChunks();
+			}
+
+		};
+
+	}
+
+	/**
+	 * Gets the y-coordinate the terrain varies around.
+	 * @return the base y-coordinate
+	 */
+	public double getBaseY() {
+		return baseY;
+	}
+
+	/**
+	 * Gets the most a vertex can be above or below the base y-coordinate.
+	 * @return the amplitude
+	 */
+	public double getAmplitude() {
+		return amplitude;
+	}
+
+	/**
+	 * Gets the most chunks that are kept cached at once.
+	 * @return the max cached chunk count
+	 */
+	public int getMaxCachedChunks() {
+		return maxCachedChunks;
+	}
+
+	/**
+	 * Sets the most chunks that are kept cached at once. The cache shrinks
+	 * the next time a chunk is generated.
+	 * @param maxCachedChunks the new max cached chunk count
+	 */
+	public void setMaxCachedChunks(int maxCachedChunks) {
+		this.maxCachedChunks = maxCachedChunks;
+	}
+
+	/**
+	 * Gets the number of chunks currently cached.
+	 * @return the cached chunk count
+	 */
+	public int getCachedChunkCount() {
+		return chunks.size();
+	}
+
+	/**
+	 * Gets the number of chunks that have been generated, including chunks
+	 * that were generated again after being dropped from the cache.
+	 * @return the generated chunk count
+	 */
+	public long getChunksGenerated() {
+		return chunksGenerated;
+	}
+
+	/**
+	 * Gets the y-coordinate of a mountain vertex.
+	 * @param vertexIndex the vertex's index, which may be negative for
+	 * vertices to the left of the origin
+	 * @return the vertex's y-coordinate
+	 */
+	public double getVertexY(long vertexIndex) {
+
+		long chunkIndex = Math.floorDiv(vertexIndex, CHUNK_SIZE);
+		int offset = Math.floorMod(vertexIndex, CHUNK_SIZE);
+		return getChunk(chunkIndex)[offset];
+
+	}
+
+	/**
+	 * Gets the vertex y-coordinates of a chunk, generating the chunk if it
+	 * isn't cached.
+	 * @param chunkIndex the chunk's index
+	 * @return the y-coordinates of the chunk's vertices
+	 */
+	private double[] getChunk(long chunkIndex) {
+
+		double [] chunk = chunks.get(chunkIndex);
+
+		if (chunk == null) {
+
+			chunk = generateChunk(chunkIndex);
+			chunks.put(chunkIndex, chunk);
+
+		}
+
+		return chunk;
+
+	}
+
+	/**
+	 * Generates the vertex y-coordinates of a chunk.
+	 * @param chunkIndex the chunk's index
+	 * @return the y-coordinates of the chunk's vertices
+	 */
+	private double[] generateChunk(long chunkIndex) {
+
+		double [] chunk = new double[CHUNK_SIZE];
+		long firstVertex = chunkIndex * CHUNK_SIZE;
+
+		for (int i = 0; i < CHUNK_SIZE; i++) {
+			chunk[i] = baseY + amplitude * noise(firstVertex + i);
+		}
+
+		chunksGenerated++;
+		return chunk;
+
+	}
+
+	/**
+	 * Sums the octaves of value noise at a vertex. Each octave smoothly
+	 * interpolates between random values on a lattice of its period.
+	 * @param vertexIndex the vertex's index
+	 * @return the noise value, from -1 to 1
+	 */
+	private double noise(long vertexIndex) {
+
+		double sum = 0;
+		double weight = 1;
+		double totalWeight = 0;
+
+		for (int octave = 0; octave < OCTAVE_PERIODS.length; octave++) {
+
+			int period = OCTAVE_PERIODS[octave];
+			long lattice = Math.floorDiv(vertexIndex, period);
+			double t = Math.floorMod(vertexIndex, period) / (double) period;
+			double smoothT = t * t * (3 - 2 * t);
+
+			double left = latticeValue(octave, lattice);
+			double right = latticeValue(octave, lattice + 1);
+
+			sum += weight * (left + (right - left) * smoothT);
+			totalWeight += weight;
+			weight *= PERSISTENCE;
+
+		}
+
+		return sum / totalWeight;
+
+	}
+
+	/**
+	 * Gets the random value at a point of an octave's lattice. The value is
+	 * a hash of the seed, the lattice point and the octave, so nothing is
+	 * allocated for each sample.
+	 * @param octave the octave's index
+	 * @param lattice the lattice point's index
+	 * @return a value from -1 to 1
+	 */
+	private double latticeValue(int octave, long lattice) {
+
+		long hash = RandomStream.hash(seed,
+			lattice * OCTAVE_PERIODS.length + octave);
+		return (hash >>> 11) * 0x1.0p-52 - 1;
+
+	}
+
+}
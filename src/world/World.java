@@ -1,12 +1,16 @@
 package world;
 import java.util.ArrayList;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleConsumer;
 
 import util.Entity;
+import util.RandomStream;
+import util.StateBuffer;
 import rocket.Rocket;
 import rocket.UserControlledRocket;
-import design.ColorPalette;
 
 /**
  * A class used to encapsulate all the bodies that interact in the simulation.
@@ -28,34 +32,112 @@ public class World {
 	private MountainManager mountainManager;
 
 	private Rocket primaryRocket;
-
-	private ColorPalette palette;
+	
+	private double interpolationAlpha = 1;
+	
+	public static final int DEFAULT_PARALLEL_TICK_THRESHOLD = 256;
+	private static final int TICK_GRAIN = 64; // Objects ticked by one task
+	private int parallelTickThreshold = DEFAULT_PARALLEL_TICK_THRESHOLD;
+	private ForkJoinPool tickPool = ForkJoinPool.commonPool();
+	private boolean [] landedThisTick = new boolean[0];
+	private ArrayList<Rocket> landings = new ArrayList<Rocket>();
+	private long landingCount = 0;
+	
+	public static final double DEFAULT_MAX_STEP_SIZE = 1 / 120.0; // seconds
+	private double maxStepSize = DEFAULT_MAX_STEP_SIZE;
+	private CollisionDetector collisionDetector = new CollisionDetector();
+	private ArrayList<Rocket []> collisions = new ArrayList<Rocket []>();
+	private ArrayList<Rocket> crashes = new ArrayList<Rocket>();
+	private boolean collisionsEnabled = true;
+	private long collisionCount = 0;
+	
+	private static final long TERRAIN_STREAM = 0;
+	private static final long PARTICLE_STREAM = 1;
+	private static final long INITIAL_CONDITIONS_STREAM = 2;
+	
+	private long seed;
+	private RandomStream particleRandom;
+	private RandomStream initialConditionsRandom;
 
 	World() {}
 	
 	/**
-	 * Creates a World for a window of given dimensions and a given color 
-	 * palette.
+	 * Creates a World for a window of given dimensions. The World only holds
+	 * the simulation's state, so it can be ticked without ever being drawn.
+	 * @param windowWidth the width of the window this World occupies
+	 * @param windowHeight the height of the window this World occupies
+	 */
+	public World(double windowWidth, double windowHeight) {
+		
+		this(windowWidth, windowHeight, RandomStream.generateSeed());
+		
+	}
+	
+	/**
+	 * Creates a World for a window of given dimensions whose randomness all
+	 * comes from the given seed. Each part of the World draws from its own
+	 * stream split from the seed, so two Worlds with the same seed generate
+	 * the same terrain, exhaust, and initial conditions.
 	 * @param windowWidth the width of the window this World occupies
 	 * @param windowHeight the height of the window this World occupies
-	 * @param palette the color palette to use when drawing the World and its
-	 * objects
+	 * @param seed the seed of the World's random streams
 	 */
-	public World(double windowWidth, double windowHeight, ColorPalette palette) {
+	public World(double windowWidth, double windowHeight, long seed) {
+		
+		RandomStream random = new RandomStream(seed);
+		this.seed = seed;
+		this.particleRandom = random.split(PARTICLE_STREAM);
+		this.initialConditionsRandom = random.split(INITIAL_CONDITIONS_STREAM);
 		
 		this.windowWidth = windowWidth;
 		this.windowHeight = windowHeight;
 		this.groundY = windowHeight - getGroundHeight();
 		this.mountainManager = new MountainManager(
-				windowWidth, 100, 100, groundY, palette);
-		this.palette = palette;
+				windowWidth, 100, 100, groundY, random.split(TERRAIN_STREAM));
+		
+	}
+
+	/**
+	 * Gets the seed that all of this World's random streams come from.
+	 * @return the World's seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gets the stream that the random streams of Rockets' exhaust are split 
+	 * from. Rockets should be given their streams in the same order to get
+	 * the same exhaust.
+	 * @return the World's particle stream
+	 */
+	public RandomStream getParticleRandom() {
+		return particleRandom;
+	}
+
+	/**
+	 * Gets the stream used to pick the initial conditions of flights in this
+	 * World, like a Rocket's starting velocity.
+	 * @return the World's initial conditions stream
+	 */
+	public RandomStream getInitialConditionsRandom() {
+		return initialConditionsRandom;
+	}
+
+	/**
+	 * Gets the highest y-coordinate that the background's mountains can
+	 * reach. Above it, the background is only sky.
+	 * @return the background's top y-coordinate
+	 */
+	public double getBackgroundTopY() {
+		return getMountainManager().getTopY();
 	}
 
 	/**
 	 * Gets the width of the window this World occupies.
 	 * @return the window width
 	 */
-	private double getWindowWidth() {
+	public double getWindowWidth() {
 		return windowWidth;
 	}
 
@@ -100,15 +182,15 @@ public class World {
 	}
 
 	/**
-	 * Gets the MountainManager used to handle mountain creation and drawing.
+	 * Gets the MountainManager used to handle mountain creation.
 	 * @return this World's MountainManager
 	 */
-	private MountainManager getMountainManager() {
+	public MountainManager getMountainManager() {
 		return mountainManager;
 	}
 
 	/**
-	 * Sets the MountainManager used to handle mountain creation and drawing.
+	 * Sets the MountainManager used to handle mountain creation.
 	 * @param mountainManager this World's MountainManager
 	 */
 	public void setMountainManager(MountainManager mountainManager) {
@@ -215,147 +297,479 @@ public class World {
 	}
 
 	/**
-	 * Gets the color palette to use when drawing this World's objects
-	 * @return this World's color palette
+	 * Gets how far between their previous and current positions the World's
+	 * objects are drawn, from 0 (previous) to 1 (current).
+	 * @return the interpolation factor used when drawing
 	 */
-	private ColorPalette getPalette() {
-		return this.palette;
+	public double getInterpolationAlpha() {
+		return interpolationAlpha;
 	}
 
 	/**
-	 * Sets the color palette to use when drawing this World's objects
-	 * @param palette this World's color palette
+	 * Sets how far between their previous and current positions the World's
+	 * objects are drawn. A fixed-step simulation loop should set this to the
+	 * fraction of a step it has not simulated yet.
+	 * @param interpolationAlpha the interpolation factor used when drawing
 	 */
-	public void setPalette(ColorPalette palette) {
-		this.palette = palette;
-		getMountainManager().setPalette(palette);
+	public void setInterpolationAlpha(double interpolationAlpha) {
+		this.interpolationAlpha = interpolationAlpha;
 	}
 	
 	/**
 	 * Updates all the objects of the World, and increments
-	 * the world time.
+	 * the world time. Times longer than the max step size are split into
+	 * equal sub-steps no longer than it, so the physics stays as stable when
+	 * time is sped up as at normal speed. Every object's position is saved
+	 * once, before the first sub-step, so drawn positions are interpolated
+	 * across the whole tick rather than only its last sub-step.
 	 * @param timeElapsed the time, in seconds, since the last tick
 	 */
 	public void tick(double timeElapsed) {
+		tick(timeElapsed, null);
+	}
+	
+	/**
+	 * Updates all the objects of the World like <code>tick(double)</code>,
+	 * and calls a listener before each sub-step with the time from the start
+	 * of the tick to the start of that sub-step. This lets input that
+	 * arrived partway through a long tick be applied at the sub-step it
+	 * belongs to.
+	 * @param timeElapsed the time, in seconds, since the last tick
+	 * @param subStepListener the listener that is given the time, in
+	 * seconds, that has passed in the tick before each sub-step, or null
+	 */
+	public void tick(double timeElapsed, DoubleConsumer subStepListener) {
+		
+		// The small margin keeps rounding errors from adding a sub-step
+		int subSteps = Math.max(1,
+				(int) Math.ceil(timeElapsed / getMaxStepSize() - 1e-9));
+		double subStepTime = timeElapsed / subSteps;
+		
+		landings.clear();
+		collisions.clear();
+		crashes.clear();
+		savePreviousPositions();
 		
-		if (rocketTouchingGround(getPrimaryRocket())) {
-			getPrimaryRocket().stop();
+		for (int i = 0; i < subSteps; i++) {
+			
+			if (subStepListener != null) {
+				subStepListener.accept(i * subStepTime);
+			}
+			
+			step(subStepTime);
+			
 		}
 		
-		for (Entity entity: getObjects()) {
-			entity.tick(timeElapsed);
+		landingCount += landings.size();
+		collisionCount += collisions.size();
+		
+	}
+	
+	/**
+	 * Records every object's current position as its previous position, so
+	 * that it is drawn moving from there to wherever it is next put.
+	 */
+	public void savePreviousPositions() {
+		
+		for (Entity entity : getObjects()) {
+			entity.savePreviousPosition();
 		}
 		
 	}
 	
 	/**
-	 * Fills the Canvas with a sky color. Other landscape elements, like the
-	 * ground and mountains, should be drawn over this background sky.
-	 * @param gc the GraphicsContext used to draw the World
+	 * Runs a single sub-step of a tick. Every airborne Rocket that is
+	 * touching the ground is stopped first, and recorded as a landing unless
+	 * it is the wreck of a crash. After the objects move, Rockets whose
+	 * bodies overlap crash, and the ones that were still flying are recorded
+	 * as crashes. Their wrecks fall until they hit the ground.
+	 * <p>
+	 * Once the World holds enough objects, they are split into ranges that
+	 * are ticked in parallel on the tick pool. Each object only changes its
+	 * own state, and each landing is flagged at its object's index, so the
+	 * landings are merged in the order of the objects, whatever order the
+	 * ranges finish in.
+	 * @param timeElapsed the time, in seconds, of the sub-step
 	 */
-	public void drawSky(GraphicsContext gc) {
+	private void step(double timeElapsed) {
 		
-		gc.setFill(getPalette().getSkyColor());
+		int objectCount = getObjects().size();
 		
-		double leftX = -gc.getTransform().getTx();
-		double topY = -gc.getTransform().getTy();
+		if (landedThisTick.length < objectCount) {
+			landedThisTick = new boolean[objectCount];
+		}
+		
+		if (objectCount >= getParallelTickThreshold() &&
+				getTickPool().getParallelism() > 1) {
+			
+			getTickPool().invoke(new TickTask(0, objectCount, timeElapsed));
+			
+		} else {
+			
+			tick(0, objectCount, timeElapsed);
+			
+		}
+		
+		for (int i = 0; i < objectCount; i++) {
+			
+			if (landedThisTick[i]) {
+				
+				landedThisTick[i] = false;
+				landings.add((Rocket) getObjects().get(i));
+				
+			}
+			
+		}
+		
+		if (isCollisionsEnabled() &&
+				collisionDetector.detect(getObjects()) > 0) {
+			
+			for (Rocket [] collision : collisionDetector.getCollisions()) {
+				
+				for (Rocket rocket : collision) {
+					
+					if (rocket.isAirborne() && !rocket.isCrashed()) {
+						crashes.add(rocket);
+					}
+					
+					rocket.crash();
+					
+				}
+				
+			}
+			
+			collisions.addAll(collisionDetector.getCollisions());
+			
+		}
 		
-		// topY is essentially the top Y coordinate of the moving Canvas window
-		// that the player sees
-		gc.fillRect(leftX, 
-				topY, 
-				getWindowWidth(), getWindowHeight());
-
 	}
 	
 	/**
-	 * Draws the ground level with color filled below it
-	 * @param gc The GraphicsContext for the Canvas to draw the ground on
+	 * Writes the state of the World and of every one of its objects to the
+	 * end of a StateBuffer. The terrain isn't written, since it is generated
+	 * from the World's seed wherever it is needed.
+	 * @param buffer the StateBuffer to write to
 	 */
-	public void drawGround(GraphicsContext gc) {
+	public void saveState(StateBuffer buffer) {
 		
-		gc.setFill(getPalette().getGroundColor());
-		double leftX = -gc.getTransform().getTx();
-		double topY = getWindowHeight() - getGroundHeight();
-		// Stretch the ground rectangle to the bottom of the screen
-		double height = topY + getGroundHeight() - gc.getTransform().getTy();
-		gc.fillRect(leftX, topY, getWindowWidth(), height);
+		buffer.putLong(getSeed());
+		buffer.putLong(particleRandom.getState());
+		buffer.putLong(initialConditionsRandom.getState());
+		buffer.putLong(landingCount);
+		buffer.putLong(collisionCount);
+		buffer.putDouble(interpolationAlpha);
+		buffer.putInt(getObjects().size());
 		
+		for (Entity entity : getObjects()) {
+			
+			buffer.putInt(entity.getStateType());
+			entity.saveState(buffer);
+			
+		}
 		
 	}
 	
 	/**
-	 * Translates the given GraphicsContext so that the Rocket appears in the
-	 * center of the window horizontally.
-	 * @param gc the GraphicsContext used to draw the World
-	 * @param center the Rocket to center the GraphicsContext on horizontally
+	 * Reads back the state written by <code>saveState()</code>, from the
+	 * StateBuffer's read position. The World must have the same seed, and
+	 * the same kinds of objects in the same order, as the World that was
+	 * saved.
+	 * @param buffer the StateBuffer to read from
+	 * @throws IllegalArgumentException if the state was saved from a
+	 * different World
 	 */
-	public void centerOnRocketHorizontally(GraphicsContext gc, Rocket center) {
-
-		double xTranslate = centerOnRocketHorizontally() ? 
-				-center.getX() - gc.getTransform().getTx() 
-				+ getWindowWidth() / 2 : 0;
+	public void restoreState(StateBuffer buffer) {
+		
+		if (buffer.getLong() != getSeed()) {
+			throw new IllegalArgumentException("State is from another World");
+		}
+		
+		particleRandom.setState(buffer.getLong());
+		initialConditionsRandom.setState(buffer.getLong());
+		landingCount = buffer.getLong();
+		collisionCount = buffer.getLong();
+		interpolationAlpha = buffer.getDouble();
+		
+		if (buffer.getInt() != getObjects().size()) {
+			throw new IllegalArgumentException("State has other objects");
+		}
+		
+		for (Entity entity : getObjects()) {
+			
+			if (buffer.getInt() != entity.getStateType()) {
+				throw new IllegalArgumentException("State has other objects");
+			}
+			
+			entity.restoreState(buffer);
+			
+		}
+		
+		landings.clear();
+		collisions.clear();
+		crashes.clear();
 		
-		gc.translate(xTranslate, 0);
-
 	}
 	
 	/**
-	 * Translates the given GraphicsContext so that the Rocket appears in the
-	 * center of the window vertically.
-	 * @param gc the GraphicsContext used to draw the World
-	 * @param center the Rocket to center the GraphicsContext on vertically
+	 * Gets the longest time, in seconds, that the World's objects are moved
+	 * by at once. Longer ticks are split into sub-steps.
+	 * @return the max step size
 	 */
-	public void centerOnRocketVertically(GraphicsContext gc, Rocket center) {
-
-		double yTranslate = centerOnRocketVertically()? 
-				-center.getY() + center.getHeight() / 2 - 
-				gc.getTransform().getTy() + getWindowHeight() / 2 : 0;
-		
-		gc.translate(0, yTranslate);
-
+	public double getMaxStepSize() {
+		return maxStepSize;
 	}
 	
 	/**
-	 * Checks whether the GraphicsContext should follow the Rocket horizontally
-	 * or vertically and performs the necessary translations.
-	 * @param gc the GraphicsContext to translate
+	 * Sets the longest time, in seconds, that the World's objects are moved
+	 * by at once.
+	 * @param maxStepSize the new max step size
 	 */
-	public void alignGraphicsContext(GraphicsContext gc) {
-
-		if (centerOnRocketHorizontally()) {
-
-			centerOnRocketHorizontally(gc, getPrimaryRocket());
-
+	public void setMaxStepSize(double maxStepSize) {
+		this.maxStepSize = maxStepSize;
+	}
+	
+	/**
+	 * Updates a range of the World's objects, stopping and flagging each
+	 * Rocket that touches the ground.
+	 * @param from the index of the first object to update
+	 * @param to the index after the last object to update
+	 * @param timeElapsed the time, in seconds, of the sub-step
+	 */
+	private void tick(int from, int to, double timeElapsed) {
+		
+		for (int i = from; i < to; i++) {
+			
+			Entity entity = getObjects().get(i);
+			
+			if (entity instanceof Rocket) {
+				
+				Rocket rocket = (Rocket) entity;
+				
+				if (rocket.isAirborne() && rocketTouchingGround(rocket)) {
+					
+					// A wreck hitting the ground was counted when it crashed
+					landedThisTick[i] = !rocket.isCrashed();
+					rocket.stop();
+					
+				}
+				
+			}
+			
+			entity.tick(timeElapsed);
+			
 		}
-
-		if (centerOnRocketVertically()) {
-
-			centerOnRocketVertically(gc, getPrimaryRocket());
-
-		}		
-
+		
+	}
+	
+	/**
+	 * Gets the Rockets that landed in the last tick. The Rockets that landed
+	 * in each sub-step are in the order they are held in the World.
+	 * @return the last tick's landings
+	 */
+	public List<Rocket> getLandings() {
+		return Collections.unmodifiableList(landings);
+	}
+	
+	/**
+	 * Gets the number of Rockets that have landed in the World.
+	 * @return the landing count
+	 */
+	public long getLandingCount() {
+		return landingCount;
 	}
 	
 	/**
-	 * Draws the World and all its child objects on the Canvas
-	 * @param gc the GraphicsContext for the Canvas to draw the objects on
+	 * Gets the pairs of Rockets that collided in the last tick, in the order
+	 * they were found.
+	 * @return the last tick's collisions
 	 */
-	public void draw(GraphicsContext gc) {
+	public List<Rocket []> getCollisions() {
+		return Collections.unmodifiableList(collisions);
+	}
+	
+	/**
+	 * Gets the Rockets whose flights ended in a collision in the last tick.
+	 * Their wrecks are still airborne, and aren't counted as landings when
+	 * they hit the ground.
+	 * @return the last tick's crashes
+	 */
+	public List<Rocket> getCrashes() {
+		return Collections.unmodifiableList(crashes);
+	}
+	
+	/**
+	 * Gets the number of collisions between Rockets in the World.
+	 * @return the collision count
+	 */
+	public long getCollisionCount() {
+		return collisionCount;
+	}
+	
+	/**
+	 * Returns true if Rockets in the World crash when they collide.
+	 * @return whether collisions are detected
+	 */
+	public boolean isCollisionsEnabled() {
+		return collisionsEnabled;
+	}
+	
+	/**
+	 * Sets whether Rockets in the World crash when they collide.
+	 * @param collisionsEnabled whether collisions should be detected
+	 */
+	public void setCollisionsEnabled(boolean collisionsEnabled) {
+		this.collisionsEnabled = collisionsEnabled;
+	}
+	
+	/**
+	 * Gets the number of objects at which the World's objects are ticked in
+	 * parallel.
+	 * @return the parallel tick threshold
+	 */
+	public int getParallelTickThreshold() {
+		return parallelTickThreshold;
+	}
+	
+	/**
+	 * Sets the number of objects at which the World's objects are ticked in
+	 * parallel. <code>Integer.MAX_VALUE</code> always ticks them on the
+	 * calling thread.
+	 * @param parallelTickThreshold the new parallel tick threshold
+	 */
+	public void setParallelTickThreshold(int parallelTickThreshold) {
+		this.parallelTickThreshold = parallelTickThreshold;
+	}
+	
+	/**
+	 * Gets the ForkJoinPool the World's objects are ticked on in parallel.
+	 * @return the tick pool
+	 */
+	public ForkJoinPool getTickPool() {
+		return tickPool;
+	}
+	
+	/**
+	 * Sets the ForkJoinPool the World's objects are ticked on in parallel.
+	 * @param tickPool the new tick pool
+	 */
+	public void setTickPool(ForkJoinPool tickPool) {
+		this.tickPool = tickPool;
+	}
+	
+	/**
+	 * Gets the number of live exhaust Particles of every Rocket in the World.
+	 * @return the live Particle count
+	 */
+	public int getLiveParticleCount() {
 		
-		alignGraphicsContext(gc);
+		int count = 0;
 		
-		drawSky(gc);
+		for (Entity entity : getObjects()) {
+			
+			if (entity instanceof Rocket) {
+				count += ((Rocket) entity).getLiveParticleCount();
+			}
+			
+		}
 		
-		getMountainManager().draw(gc); 
+		return count;
+		
+	}
+	
+	/**
+	 * Returns true if nothing in the World can change on its own: every
+	 * Rocket has landed and all of their exhaust Particles have died out.
+	 * Ticking a settled World doesn't change how it looks.
+	 * @return whether the World is settled
+	 */
+	public boolean isSettled() {
 		
 		for (Entity entity : getObjects()) {
 			
-			entity.draw(gc);
+			if (entity instanceof Rocket) {
+				
+				Rocket rocket = (Rocket) entity;
+				
+				if (rocket.isAirborne() || rocket.hasLiveParticles()) {
+					return false;
+				}
+				
+			}
+			
+		}
+		
+		return true;
+		
+	}
+	
+	/**
+	 * Gets the x-coordinate of the left edge of the camera's view, which 
+	 * moves with the primary Rocket when the camera follows it horizontally.
+	 * @return the view's left x-coordinate
+	 */
+	public double getViewLeftX() {
+		
+		return centerOnRocketHorizontally() && getPrimaryRocket() != null ? 
+				getPrimaryRocket().getInterpolatedX(getInterpolationAlpha()) 
+				- getWindowWidth() / 2 : 0;
+		
+	}
+	
+	/**
+	 * Gets the y-coordinate of the top edge of the camera's view, which 
+	 * moves with the primary Rocket when the camera follows it vertically.
+	 * @return the view's top y-coordinate
+	 */
+	public double getViewTopY() {
+		
+		return centerOnRocketVertically() && getPrimaryRocket() != null ? 
+				getPrimaryRocket().getInterpolatedY(getInterpolationAlpha()) 
+				- getPrimaryRocket().getHeight() / 2 - getWindowHeight() / 2 : 0;
+		
+	}
+	
+	/**
+	 * A task that ticks a range of the World's objects, splitting it in half
+	 * until each part is small enough to tick directly.
+	 */
+	private class TickTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private int from;
+		private int to;
+		private double timeElapsed;
+		
+		/**
+		 * Creates a TickTask for a range of the World's objects.
+		 * @param from the index of the first object to update
+		 * @param to the index after the last object to update
+		 * @param timeElapsed the time, in seconds, of the sub-step
+		 */
+		TickTask(int from, int to, double timeElapsed) {
+			
+			this.from = from;
+			this.to = to;
+			this.timeElapsed = timeElapsed;
 			
 		}
 		
-		drawGround(gc);
+		@Override
+		protected void compute() {
+			
+			if (to - from <= TICK_GRAIN) {
+				
+				tick(from, to, timeElapsed);
+				
+			} else {
+				
+				int middle = (from + to) >>> 1;
+				invokeAll(new TickTask(from, middle, timeElapsed),
+						new TickTask(middle, to, timeElapsed));
+				
+			}
+			
+		}
 		
 	}
 	
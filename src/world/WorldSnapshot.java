@@ -0,0 +1,90 @@
+package world;
+import util.StateBuffer;
+
+/**
+ * A class that holds the complete simulation state of a World at one moment:
+ * every Rocket with its engines, RCS thrusters and their exhaust Particles,
+ * and the World's random streams. Restoring a snapshot puts the World back
+ * exactly as it was, so the simulation can be retried from that moment or
+ * branched into different futures.
+ * <p>
+ * The state is copied into a StateBuffer that is reused by every capture,
+ * so once it has grown to fit the World, capturing and restoring only copy
+ * numbers. The terrain isn't copied, since it is generated from the World's
+ * seed, which the snapshot checks on restore.
+ */
+public class WorldSnapshot {
+
+	private StateBuffer state = new StateBuffer();
+	private boolean captured = false;
+
+	/**
+	 * Returns true if a World has been captured into the snapshot.
+	 * @return whether the snapshot holds a state
+	 */
+	public boolean isCaptured() {
+		return captured;
+	}
+
+	/**
+	 * Gets the number of values the captured state takes up.
+	 * @return the size of the state
+	 */
+	public int getSize() {
+		return state.size();
+	}
+
+	/**
+	 * Gets the StateBuffer that the state is captured into.
+	 * @return the snapshot's StateBuffer
+	 */
+	public StateBuffer getState() {
+		return state;
+	}
+
+	/**
+	 * Copies the state of a World into the snapshot, replacing any state it
+	 * held before.
+	 * @param world the World to capture
+	 */
+	public void capture(World world) {
+
+		state.clear();
+		world.saveState(state);
+		captured = true;
+
+	}
+
+	/**
+	 * Puts a World back into the captured state. The World must be the
+	 * captured World, or one with the same seed and the same kinds of
+	 * objects in the same order. The snapshot can be restored any number of
+	 * times.
+	 * @param world the World to restore
+	 * @throws IllegalStateException if nothing has been captured
+	 * @throws IllegalArgumentException if the state was captured from a 
+	 * different World
+	 */
+	public void restore(World world) {
+
+		if (!isCaptured()) {
+			throw new IllegalStateException("Nothing has been captured");
+		}
+
+		state.rewind();
+		world.restoreState(state);
+
+	}
+
+	/**
+	 * Makes this snapshot hold a copy of another snapshot's state.
+	 * @param other the snapshot to copy
+	 */
+	public void copyFrom(WorldSnapshot other) {
+
+		state.copyFrom(other.state);
+		captured = other.captured;
+
+	}
+
+}